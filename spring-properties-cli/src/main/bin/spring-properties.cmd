@@ -0,0 +1,13 @@
+@echo off
+rem Runs spring-properties-cli. The class data sharing archive created by the build is used if it exists
+rem and matches the JVM, otherwise the JVM silently starts without it.
+
+setlocal
+set APP_HOME=%~dp0
+set JAVA_CMD=java
+if defined JAVA_HOME set JAVA_CMD=%JAVA_HOME%\bin\java
+
+set CDS_OPTS=
+if exist "%APP_HOME%${cds.archive}" set CDS_OPTS=-XX:SharedArchiveFile="%APP_HOME%${cds.archive}" -Xshare:auto -Xlog:cds=off -Xlog:cds+dynamic=off
+
+"%JAVA_CMD%" -XX:TieredStopAtLevel=1 -XX:+UseSerialGC %CDS_OPTS% %JAVA_OPTS% -jar "%APP_HOME%${project.build.finalName}.jar" %*
@@ -0,0 +1,423 @@
+package org.springframework.configuration.cli;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.rodnansol.core.generator.template.TemplateType;
+import org.rodnansol.core.generator.template.compiler.TemplateCompilerFactory;
+import org.rodnansol.core.generator.template.customization.AsciiDocTemplateCustomization;
+import org.rodnansol.core.generator.template.customization.HtmlTemplateCustomization;
+import org.rodnansol.core.generator.template.customization.MarkdownTemplateCustomization;
+import org.rodnansol.core.generator.template.customization.TemplateCustomization;
+import org.rodnansol.core.generator.template.customization.XmlTemplateCustomization;
+import org.rodnansol.core.generator.writer.CombinedInput;
+import org.rodnansol.core.generator.writer.CreateAggregationCommand;
+import org.rodnansol.core.project.ProjectFactory;
+import org.rodnansol.core.project.maven.MavenProject;
+import org.springframework.configuration.maven.bytecode.ClassFileScanner;
+import org.springframework.configuration.maven.patch.AggregationDocumenterPatch;
+import org.springframework.configuration.maven.patch.HandlebarsTemplateCompilerPatch;
+import org.springframework.configuration.maven.patch.MetadataDiscovery;
+import org.springframework.configuration.maven.patch.MetadataReaderPatch;
+import org.springframework.configuration.maven.patch.RenderCache;
+import org.springframework.configuration.maven.xml.MetadataProcessor;
+import org.springframework.configuration.maven.xml.XmlMetadataScanner;
+
+/**
+ * Runs xml metadata generation and documentation aggregation of the Maven plugin without Maven.
+ * <p>
+ * Commands:
+ * <ul>
+ *     <li>{@code xml-metadata} - the same as {@code generate-xml-properties-metadata} goal.</li>
+ *     <li>{@code docs} - the same as {@code generate-and-aggregate-documents} goal for the given module directories,
+ *     jars and metadata files, optionally with metadata of Spring xml files scanned in the same run.</li>
+ * </ul>
+ * Exit code is 0 on success, 1 if the command fails and 2 if the arguments are wrong.
+ *
+ * @author tia
+ * @since 1.1
+ */
+public final class SpringPropertiesCli {
+
+    static final String XML_METADATA = "xml-metadata";
+    static final String DOCS = "docs";
+
+    private static final String METADATA_FILE_NAME = "spring-configuration-metadata.json";
+
+    /**
+     * Options without value.
+     */
+    private static final Set<String> FLAGS = Set.of("nested-groups", "aggregate-usages", "jar-xml", "jar-classes",
+            "help");
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: spring-properties <command> [options] <path>...",
+            "",
+            "Commands:",
+            "  " + XML_METADATA + "   Scan Spring xml files of the directories and write properties metadata",
+            "    --metadata-dir <dir>   directory of " + METADATA_FILE_NAME + " (required)",
+            "    --fragments-dir <dir>  write a standalone metadata fragment into the directory instead",
+            "    --nested-groups        infer nested groups from property names",
+            "    --aggregate-usages     write a property used at several places once, with the list of its usages",
+            "    --include <glob>       scan xml files matching the pattern only, may be repeated",
+            "    --exclude <glob>       skip xml files and directories matching the pattern, may be repeated",
+            "    --root-context <loc>   scan the root context and the files it imports only, may be repeated;",
+            "                           classpath: locations are looked up in the directories and jars given",
+            "",
+            "  " + DOCS + "           Aggregate metadata of module directories, jars and metadata files into documents",
+            "    --output <file>        output file, the extension of every type is added (default: project-properties)",
+            "    --type <types>         comma separated MARKDOWN, ADOC, HTML, XML (default: MARKDOWN)",
+            "    --name <name>          main header (default: name of the current directory)",
+            "    --description <text>   main description",
+            "    --xml <dir>            scan Spring xml files of the directory as well, may be repeated",
+            "    --metadata-dir <dir>   where metadata of '--xml' is written (default: <output directory>/META-INF)",
+            "    --nested-groups        infer nested groups of '--xml' metadata from property names",
+            "    --jar-xml              document placeholders of Spring xml files of jars without metadata",
+            "    --jar-classes          document placeholders of Spring annotations of classes of jars without metadata",
+            "    --cache-dir <dir>      skip unchanged documents and re-render changed sections only",
+            "    --timestamp <time>     generation date for reproducible documents, ISO-8601 or seconds since the epoch");
+
+    private SpringPropertiesCli() {
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    /**
+     * Runs the command of the arguments.
+     *
+     * @return exit code
+     */
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        CommandLine commandLine;
+        try {
+            commandLine = CommandLine.parse(args);
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.println(USAGE);
+            return 2;
+        }
+        if (commandLine.getCommand() == null || commandLine.hasFlag("help")) {
+            out.println(USAGE);
+            return commandLine.getCommand() == null ? 2 : 0;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            switch (commandLine.getCommand()) {
+            case XML_METADATA:
+                xmlMetadata(commandLine);
+                break;
+            case DOCS:
+                docs(commandLine);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown command '" + commandLine.getCommand() + "'");
+            }
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.println(USAGE);
+            return 2;
+        } catch (RuntimeException e) {
+            err.println("Failed: " + e);
+            return 1;
+        }
+        long dur = System.currentTimeMillis() - start;
+        out.println(commandLine.getCommand() + " completed in " + dur + " ms");
+        return 0;
+    }
+
+    private static void xmlMetadata(CommandLine commandLine) {
+        commandLine.checkOptions(Set.of("metadata-dir", "fragments-dir", "nested-groups", "aggregate-usages",
+                "include", "exclude", "root-context"));
+        Path metadataDir = commandLine.requireOption("metadata-dir");
+        List<Path> xmlLocations = commandLine.requireArguments();
+        Path fragmentsDir = commandLine.getOption("fragments-dir");
+        MetadataProcessor processor = new MetadataProcessor(xmlLocations, metadataDir, fragmentsDir);
+        processor.setNestedGroups(commandLine.hasFlag("nested-groups"));
+        processor.setAggregateUsages(commandLine.hasFlag("aggregate-usages"));
+        processor.setFilePatterns(commandLine.getValues("include"), commandLine.getValues("exclude"));
+        processor.setRootContexts(commandLine.getValues("root-context"));
+        processor.execute();
+    }
+
+    private static void docs(CommandLine commandLine) {
+        commandLine.checkOptions(Set.of("output", "type", "name", "description", "xml", "metadata-dir", "nested-groups",
+                "jar-xml", "jar-classes", "cache-dir", "timestamp"));
+        Path output = commandLine.getOption("output", Path.of("project-properties")).toAbsolutePath();
+        Path baseDir = Path.of("").toAbsolutePath();
+        String name = commandLine.getValue("name", baseDir.getFileName() == null ? "" : baseDir.getFileName().toString());
+
+        List<CombinedInput> combinedInputs = new ArrayList<>();
+        List<Path> xmlLocations = commandLine.getOptions("xml");
+        if (!xmlLocations.isEmpty()) {
+            Path metadataDir = commandLine.getOption("metadata-dir", output.resolveSibling("META-INF"));
+            MetadataProcessor processor = new MetadataProcessor(xmlLocations, metadataDir);
+            processor.setNestedGroups(commandLine.hasFlag("nested-groups"));
+            processor.execute();
+            Path metadataFile = metadataDir.resolve(METADATA_FILE_NAME).toAbsolutePath();
+            if (Files.isRegularFile(metadataFile)) {
+                combinedInputs.add(new CombinedInput(metadataFile.toFile(), name, null));
+            }
+        } else if (commandLine.getArguments().isEmpty()) {
+            throw new IllegalArgumentException("No inputs given");
+        }
+        for (Path input : commandLine.getArguments()) {
+            combinedInputs.add(new CombinedInput(input.toAbsolutePath().toFile(), sectionNameOf(input), null));
+        }
+        combinedInputs.sort(Comparator.comparing(combinedInput -> combinedInput.getSectionName().toLowerCase(Locale.ROOT)));
+
+        MavenProject project = ProjectFactory.ofMavenProject(baseDir.toFile(), name, List.of());
+        List<TemplateType> types = parseTypes(commandLine.getValue("type", TemplateType.MARKDOWN.name()));
+        List<CreateAggregationCommand> commands = new ArrayList<>(types.size());
+        for (TemplateType type : types) {
+            CreateAggregationCommand command = new CreateAggregationCommand(project, name, combinedInputs, type,
+                    customizationOf(type), outputFileOf(output, type));
+            command.setDescription(commandLine.getValue("description", null));
+            commands.add(command);
+        }
+
+        String templateCompilerName = TemplateCompilerFactory.getDefaultCompilerName();
+        Path cacheDir = commandLine.getOption("cache-dir");
+        Function<File, RenderCache> renderCacheFactory = cacheDir == null ? null
+                : outputFile -> new RenderCache(cacheDir.toAbsolutePath().resolve(outputFile.getName()));
+        LocalDateTime generationDate = parseTimestamp(commandLine.getValue("timestamp", null));
+        MetadataDiscovery metadataDiscovery = new MetadataDiscovery(project);
+        if (commandLine.hasFlag("jar-xml")) {
+            metadataDiscovery.setJarXmlScanner(new XmlMetadataScanner(List.of()));
+        }
+        if (commandLine.hasFlag("jar-classes")) {
+            metadataDiscovery.setJarClassScanner(new ClassFileScanner());
+        }
+        AggregationDocumenterPatch documenter = new AggregationDocumenterPatch(new MetadataReaderPatch(),
+                HandlebarsTemplateCompilerPatch.newCompilers(templateCompilerName),
+                metadataDiscovery, AggregationDocumenterPatch.newPropertyGroupFilterService(), renderCacheFactory,
+                generationDate == null ? templateCompilerName : templateCompilerName + '@' + generationDate);
+        documenter.setGenerationDate(generationDate);
+        documenter.createDocumentsAndAggregate(commands, null);
+    }
+
+    /**
+     * File name without extension, or the name of the directory above {@code META-INF} for metadata files.
+     */
+    static String sectionNameOf(Path input) {
+        Path absolute = input.toAbsolutePath().normalize();
+        String fileName = absolute.getFileName() == null ? "" : absolute.getFileName().toString();
+        if (fileName.equals(METADATA_FILE_NAME) && absolute.getParent() != null
+                && absolute.getParent().getFileName() != null && absolute.getParent().getFileName().toString().equals("META-INF")
+                && absolute.getParent().getParent() != null && absolute.getParent().getParent().getFileName() != null) {
+            return absolute.getParent().getParent().getFileName().toString();
+        }
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 && !Files.isDirectory(absolute) ? fileName.substring(0, dot) : fileName;
+    }
+
+    private static List<TemplateType> parseTypes(String value) {
+        Set<TemplateType> types = new LinkedHashSet<>();
+        for (String type : value.split(",")) {
+            try {
+                types.add(TemplateType.valueOf(type.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown document type '" + type.trim() + "'");
+            }
+        }
+        return new ArrayList<>(types);
+    }
+
+    private static TemplateCustomization customizationOf(TemplateType type) {
+        switch (type) {
+        case MARKDOWN:
+            return new MarkdownTemplateCustomization();
+        case ADOC:
+            return new AsciiDocTemplateCustomization();
+        case HTML:
+            return new HtmlTemplateCustomization();
+        case XML:
+            return new XmlTemplateCustomization();
+        }
+        throw new IllegalStateException("There is no template customization for " + type);
+    }
+
+    /**
+     * Replaces extension of any template type of the output with the extension of the given type.
+     */
+    static File outputFileOf(Path output, TemplateType type) {
+        String fileName = output.getFileName().toString();
+        for (TemplateType anyType : TemplateType.values()) {
+            String extension = '.' + extensionOf(anyType);
+            if (fileName.endsWith(extension)) {
+                fileName = fileName.substring(0, fileName.length() - extension.length());
+                break;
+            }
+        }
+        return output.resolveSibling(fileName + '.' + extensionOf(type)).toFile();
+    }
+
+    private static String extensionOf(TemplateType type) {
+        switch (type) {
+        case MARKDOWN:
+            return "md";
+        case ADOC:
+            return "adoc";
+        case HTML:
+            return "html";
+        case XML:
+            return "xml";
+        }
+        return "";
+    }
+
+    /**
+     * Returns the date of the timestamp in UTC or {@code null} if it is not set.
+     */
+    static LocalDateTime parseTimestamp(String timestamp) {
+        if (timestamp == null || timestamp.isEmpty()) {
+            return null;
+        }
+        try {
+            Instant instant = timestamp.chars().allMatch(Character::isDigit)
+                    ? Instant.ofEpochSecond(Long.parseLong(timestamp))
+                    : OffsetDateTime.parse(timestamp).toInstant();
+            return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid timestamp '" + timestamp + "'");
+        }
+    }
+
+    /**
+     * Arguments of a command: options with values, flags and the remaining paths.
+     */
+    static final class CommandLine {
+        private final String command;
+        private final List<String[]> options = new ArrayList<>();
+        private final Set<String> flags = new LinkedHashSet<>();
+        private final List<Path> arguments = new ArrayList<>();
+
+        private CommandLine(String command) {
+            this.command = command;
+        }
+
+        /**
+         * Options are {@code --name value} or {@code --name=value}, except of {@link #FLAGS}.
+         */
+        static CommandLine parse(String[] args) {
+            if (args.length == 0 || args[0].startsWith("-")) {
+                CommandLine commandLine = new CommandLine(null);
+                if (args.length > 0 && (args[0].equals("--help") || args[0].equals("-h"))) {
+                    commandLine.flags.add("help");
+                }
+                return commandLine;
+            }
+            CommandLine commandLine = new CommandLine(args[0]);
+            for (int i = 1; i < args.length; i++) {
+                String arg = args[i];
+                if (!arg.startsWith("--")) {
+                    commandLine.arguments.add(Path.of(arg));
+                    continue;
+                }
+                int eq = arg.indexOf('=');
+                if (eq > 0) {
+                    commandLine.options.add(new String[]{arg.substring(2, eq), arg.substring(eq + 1)});
+                } else if (FLAGS.contains(arg.substring(2))) {
+                    commandLine.flags.add(arg.substring(2));
+                } else if (i + 1 < args.length) {
+                    commandLine.options.add(new String[]{arg.substring(2), args[++i]});
+                } else {
+                    throw new IllegalArgumentException("Option '" + arg + "' requires a value");
+                }
+            }
+            return commandLine;
+        }
+
+        String getCommand() {
+            return command;
+        }
+
+        boolean hasFlag(String name) {
+            return flags.contains(name);
+        }
+
+        List<Path> getArguments() {
+            return arguments;
+        }
+
+        List<Path> requireArguments() {
+            if (arguments.isEmpty()) {
+                throw new IllegalArgumentException("No directories given");
+            }
+            return arguments;
+        }
+
+        /**
+         * Fails on options the command does not have.
+         */
+        void checkOptions(Set<String> names) {
+            for (String[] option : options) {
+                if (!names.contains(option[0])) {
+                    throw new IllegalArgumentException("Unknown option '--" + option[0] + "'");
+                }
+            }
+            for (String flag : flags) {
+                if (!names.contains(flag) && !flag.equals("help")) {
+                    throw new IllegalArgumentException("Unknown option '--" + flag + "'");
+                }
+            }
+        }
+
+        String getValue(String name, String defaultValue) {
+            String value = defaultValue;
+            for (String[] option : options) {
+                if (option[0].equals(name)) {
+                    value = option[1];
+                }
+            }
+            return value;
+        }
+
+        List<String> getValues(String name) {
+            return options.stream()
+                    .filter(option -> option[0].equals(name))
+                    .map(option -> option[1])
+                    .collect(Collectors.toList());
+        }
+
+        Path getOption(String name) {
+            return getOption(name, null);
+        }
+
+        Path getOption(String name, Path defaultValue) {
+            String value = getValue(name, null);
+            return value == null ? defaultValue : Path.of(value);
+        }
+
+        Path requireOption(String name) {
+            Path value = getOption(name);
+            if (value == null) {
+                throw new IllegalArgumentException("Option '--" + name + "' is required");
+            }
+            return value;
+        }
+
+        List<Path> getOptions(String name) {
+            return options.stream()
+                    .filter(option -> option[0].equals(name))
+                    .map(option -> Path.of(option[1]))
+                    .collect(Collectors.toList());
+        }
+    }
+}
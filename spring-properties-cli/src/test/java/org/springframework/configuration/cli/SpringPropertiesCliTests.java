@@ -0,0 +1,207 @@
+package org.springframework.configuration.cli;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.rodnansol.core.generator.template.TemplateType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpringPropertiesCliTests {
+
+    @TempDir
+    Path tempDir;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    @Test
+    void docsOfXmlAndMetadataFile() throws IOException {
+        Path xmlDir = Files.createDirectories(tempDir.resolve("xml"));
+        Files.writeString(xmlDir.resolve("context.xml"), "<beans xmlns=\"http://www.springframework.org/schema/beans\">"
+                + "<bean class=\"Bean\"><property name=\"a\" value=\"${app.url:http://localhost}\"/></bean></beans>");
+        Path metadataFile = Files.createDirectories(tempDir.resolve("module/META-INF")).resolve("spring-configuration-metadata.json");
+        Files.writeString(metadataFile, "{\"groups\": [{\"name\": \"server\", \"type\": \"com.example.Server\", "
+                + "\"sourceType\": \"com.example.Server\"}], "
+                + "\"properties\": [{\"name\": \"server.port\", \"type\": \"java.lang.Integer\", "
+                + "\"sourceType\": \"com.example.Server\", \"defaultValue\": 8080}]}");
+        Path output = tempDir.resolve("docs/properties");
+
+        int exitCode = run("docs", "--name", "Test", "--type", "markdown,xml", "--output", output.toString(),
+                "--xml", xmlDir.toString(), "--timestamp", "0", metadataFile.toString());
+
+        assertThat(exitCode).as(err.toString()).isZero();
+        assertThat(tempDir.resolve("docs/META-INF/spring-configuration-metadata.json")).exists();
+        assertThat(tempDir.resolve("docs/properties.xml")).exists();
+        String markdown = Files.readString(tempDir.resolve("docs/properties.md"));
+        assertThat(markdown).contains("## module", "port", "8080", "## Test", "app.url", "http://localhost",
+                "1970-01-01T00:00");
+    }
+
+    @Test
+    void xmlMetadataOfFilesReachableFromRootContext() throws IOException {
+        String beans = "<beans xmlns=\"http://www.springframework.org/schema/beans\">";
+        Path xmlDir = Files.createDirectories(tempDir.resolve("xml"));
+        Files.writeString(xmlDir.resolve("app.xml"), beans + "<import resource=\"sub/db.xml\"/>"
+                + "<import resource=\"classpath:lib/lib.xml\"/><import resource=\"${env}.xml\"/>"
+                + "<bean class=\"App\"><property name=\"a\" value=\"${app.name}\"/></bean></beans>");
+        Files.createDirectories(xmlDir.resolve("sub"));
+        Files.writeString(xmlDir.resolve("sub/db.xml"), beans + "<import resource=\"/../app.xml\"/>"
+                + "<bean class=\"Db\"><property name=\"url\" value=\"${db.url}\"/></bean></beans>");
+        Files.writeString(xmlDir.resolve("fixture.xml"), beans
+                + "<bean class=\"Fixture\"><property name=\"a\" value=\"${fixture.value}\"/></bean></beans>");
+        Path jar = tempDir.resolve("lib.jar");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(jar))) {
+            zip.putNextEntry(new ZipEntry("lib/lib.xml"));
+            zip.write((beans + "<import resource=\"lib-db.xml\"/></beans>").getBytes(StandardCharsets.UTF_8));
+            zip.putNextEntry(new ZipEntry("lib/lib-db.xml"));
+            zip.write((beans + "<bean class=\"Lib\"><property name=\"a\" value=\"${lib.timeout:10}\"/></bean></beans>")
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        Path metadataDir = tempDir.resolve("META-INF");
+
+        int exitCode = run("xml-metadata", "--metadata-dir", metadataDir.toString(), "--root-context", "classpath:app.xml",
+                xmlDir.toString(), jar.toString());
+
+        assertThat(exitCode).as(err.toString()).isZero();
+        assertThat(Files.readString(metadataDir.resolve("spring-configuration-metadata.json")))
+                .contains("\"app.name\"", "\"db.url\"", "\"lib.timeout\"", "\"env\"", "lib-db.xml")
+                .doesNotContain("fixture.value");
+        assertThat(run("xml-metadata", "--metadata-dir", metadataDir.toString(), "--root-context", "classpath:none.xml",
+                xmlDir.toString())).isEqualTo(2);
+    }
+
+    @Test
+    void xmlMetadataOfIncludedFiles() throws IOException {
+        String beans = "<beans xmlns=\"http://www.springframework.org/schema/beans\"><bean class=\"Bean\">";
+        Path xmlDir = Files.createDirectories(tempDir.resolve("xml"));
+        Files.createDirectories(xmlDir.resolve("spring/fixtures"));
+        Files.createDirectories(xmlDir.resolve("static"));
+        Files.writeString(xmlDir.resolve("context.xml"), beans + "<property name=\"a\" value=\"${root.value}\"/></bean></beans>");
+        Files.writeString(xmlDir.resolve("spring/app.xml"), beans + "<property name=\"a\" value=\"${app.value}\"/></bean></beans>");
+        Files.writeString(xmlDir.resolve("spring/fixtures/data.xml"), beans + "<property name=\"a\" value=\"${fixture.value}\"/></bean></beans>");
+        Files.writeString(xmlDir.resolve("static/page.xml"), beans + "<property name=\"a\" value=\"${static.value}\"/></bean></beans>");
+        Path metadataDir = tempDir.resolve("META-INF");
+
+        int exitCode = run("xml-metadata", "--metadata-dir", metadataDir.toString(), "--include", "**/*.xml",
+                "--exclude", "**/fixtures/**", "--exclude", "static", xmlDir.toString());
+
+        assertThat(exitCode).as(err.toString()).isZero();
+        assertThat(Files.readString(metadataDir.resolve("spring-configuration-metadata.json")))
+                .contains("\"root.value\"", "\"app.value\"")
+                .doesNotContain("fixture.value", "static.value");
+    }
+
+    @Test
+    void docsOfXmlFilesInJar() throws IOException {
+        Path jar = tempDir.resolve("infra.jar");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(jar))) {
+            zip.putNextEntry(new ZipEntry("META-INF/infra/infra-context.xml"));
+            zip.write(("<beans xmlns=\"http://www.springframework.org/schema/beans\"><bean class=\"Pool\">"
+                    + "<!-- infra.pool.size - size of the pool -->"
+                    + "<property name=\"size\" value=\"${infra.pool.size:8}\"/></bean></beans>").getBytes(StandardCharsets.UTF_8));
+            zip.putNextEntry(new ZipEntry("META-INF/maven/infra/pom.xml"));
+            zip.write("<project><version>${revision}</version></project>".getBytes(StandardCharsets.UTF_8));
+        }
+        Path output = tempDir.resolve("docs/properties");
+
+        int exitCode = run("docs", "--name", "Test", "--output", output.toString(), "--jar-xml", "--timestamp", "0",
+                jar.toString());
+
+        assertThat(exitCode).as(err.toString()).isZero();
+        assertThat(Files.readString(tempDir.resolve("docs/properties.md")))
+                .contains("## infra", "infra.pool.size", "size of the pool", "infra-context.xml")
+                .doesNotContain("revision");
+    }
+
+    @Test
+    void docsOfClassesInJar() throws IOException {
+        Path sources = tempDir.resolve("src");
+        writeSource(sources, "org/springframework/beans/factory/annotation/Value.java",
+                "package org.springframework.beans.factory.annotation;"
+                + "@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)"
+                + "public @interface Value { String value(); }");
+        writeSource(sources, "org/springframework/context/annotation/PropertySource.java",
+                "package org.springframework.context.annotation;"
+                + "@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)"
+                + "public @interface PropertySource { String[] value(); }");
+        writeSource(sources, "com/example/Legacy.java", "package com.example;"
+                + "import org.springframework.beans.factory.annotation.Value;"
+                + "@org.springframework.context.annotation.PropertySource({\"classpath:${legacy.config:app}.properties\"})"
+                + "public class Legacy {"
+                + "  @Value(\"${legacy.timeout:30}\") int timeout;"
+                + "  public Legacy(@Value(\"${legacy.url}\") String url, long ignored) {}"
+                + "  @Value(\"${legacy.names}\") public void setNames(java.util.List<String> names) {}"
+                + "  class Inner { Inner(@Value(\"${legacy.inner.size}\") long size) {} }"
+                + "}");
+        Path classes = Files.createDirectories(tempDir.resolve("classes"));
+        List<String> files;
+        try (Stream<Path> paths = Files.walk(sources)) {
+            files = paths.filter(Files::isRegularFile).map(Path::toString).collect(Collectors.toList());
+        }
+        List<String> arguments = new ArrayList<>(List.of("-d", classes.toString()));
+        arguments.addAll(files);
+        assertThat(ToolProvider.getSystemJavaCompiler().run(null, null, null, arguments.toArray(new String[0]))).isZero();
+        Path jar = tempDir.resolve("legacy.jar");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(jar)); Stream<Path> paths = Files.walk(classes)) {
+            for (Path file : paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList())) {
+                zip.putNextEntry(new ZipEntry(classes.relativize(file).toString().replace('\\', '/')));
+                zip.write(Files.readAllBytes(file));
+            }
+        }
+        Path output = tempDir.resolve("docs/properties");
+
+        int exitCode = run("docs", "--name", "Test", "--output", output.toString(), "--type", "xml", "--jar-classes",
+                "--timestamp", "0", jar.toString());
+
+        assertThat(exitCode).as(err.toString()).isZero();
+        assertThat(Files.readString(tempDir.resolve("docs/properties.xml")))
+                .contains("<key>legacy.config</key>", "<key>legacy.timeout</key>", "<type>Integer</type>",
+                        "<key>legacy.url</key>", "<key>legacy.names</key>", "<type>List",
+                        "<key>legacy.inner.size</key>", "<type>Long</type>", "com.example.Legacy$Inner");
+    }
+
+    private static void writeSource(Path sources, String path, String source) throws IOException {
+        Path file = sources.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, source);
+    }
+
+    @Test
+    void wrongArguments() {
+        assertThat(run()).isEqualTo(2);
+        assertThat(run("docs", "--output")).isEqualTo(2);
+        assertThat(run("docs", "--unknown", "x", "input.jar")).isEqualTo(2);
+        assertThat(run("xml-metadata", tempDir.toString())).isEqualTo(2);
+        assertThat(run("docs", "--type", "PDF", "input.jar")).isEqualTo(2);
+        assertThat(err.toString()).contains("Unknown option '--unknown'", "Option '--metadata-dir' is required",
+                "Unknown document type 'PDF'");
+    }
+
+    @Test
+    void outputFileGetsExtensionOfType() {
+        assertThat(SpringPropertiesCli.outputFileOf(Path.of("out", "props.md"), TemplateType.HTML).toPath())
+                .isEqualTo(Path.of("out", "props.html"));
+        assertThat(SpringPropertiesCli.outputFileOf(Path.of("out", "props.v1"), TemplateType.ADOC).toPath())
+                .isEqualTo(Path.of("out", "props.v1.adoc"));
+    }
+
+    private int run(String... args) {
+        return SpringPropertiesCli.run(args, new PrintStream(out, true, StandardCharsets.UTF_8),
+                new PrintStream(err, true, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,118 @@
+package org.springframework.configuration.maven;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.springframework.configuration.maven.metrics.BuildMetrics;
+import org.springframework.configuration.maven.xml.MetadataProcessor;
+
+/**
+ * Same as {@code 'generate-xml-properties-metadata'} goal, but scans xml files of all modules of the reactor
+ * in one execution. Modules are scanned in parallel by a worker pool shared by all of them, every module gets its
+ * metadata in its own directory.
+ * <p>
+ * Parameters are set once, in the aggregator project. A relative path is relative to every module directory;
+ * a path inside the aggregator project, e.g. the default {@code metadataDir}, is mapped to the same path inside
+ * every module: its build output directory, build directory or base directory. A path inside a module is not mapped.
+ *
+ * @author tia
+ * @since 1.1
+ */
+@Mojo(name = AggregateXmlPropertiesMojo.GOAL_NAME, defaultPhase = LifecyclePhase.GENERATE_RESOURCES, threadSafe = true,
+        aggregator = true)
+public class AggregateXmlPropertiesMojo extends SpringXmlPropertiesMojo {
+
+    protected static final String GOAL_NAME = "aggregate-xml-properties-metadata";
+
+    private static final String POM_PACKAGING = "pom";
+
+    /**
+     * Scan modules in parallel, by as many threads as there are processors. Imports of root contexts of all modules
+     * are scanned by the same threads.
+     *
+     * @since 1.1
+     */
+    @Parameter(name = "parallel", defaultValue = "true", property = "spring.properties.xml.parallel")
+    boolean parallel;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        long start = System.currentTimeMillis();
+
+        BuildMetrics buildMetrics = new BuildMetrics();
+        Map<MavenProject, MetadataProcessor> generators = new LinkedHashMap<>();
+        for (MavenProject module : session.getProjects()) {
+            if (POM_PACKAGING.equals(module.getPackaging())) {
+                continue;
+            }
+            MetadataProcessor generator = createProcessor(module);
+            generator.setMetrics(buildMetrics);
+            generators.put(module, generator);
+        }
+        buildMetrics.count("xml.modules", "modules", generators.size());
+
+        ForkJoinPool pool = new ForkJoinPool(parallel ? Runtime.getRuntime().availableProcessors() : 1);
+        try (BuildMetrics.Timer timer = buildMetrics.start("xml.modules")) {
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(generators.size());
+            for (MetadataProcessor generator : generators.values()) {
+                tasks.add(pool.submit(generator::execute));
+            }
+            int i = 0;
+            for (MavenProject module : generators.keySet()) {
+                try {
+                    tasks.get(i++).get();
+                } catch (ExecutionException e) {
+                    throw new MojoExecutionException("Unable to extract xml files properties of module '"
+                            + module.getArtifactId() + "'. " + e.getCause().getMessage(), e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new MojoExecutionException("Interrupted", e);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        if (metrics) {
+            GoalMetrics.report(buildMetrics, project, mojoExecution, metricsSummary, getLog());
+        }
+
+        long dur = System.currentTimeMillis() - start;
+        getLog().info("Xml files properties of " + generators.size() + " modules extracted in " + dur + " ms");
+    }
+
+    @Override
+    Path modulePath(MavenProject module, String path) {
+        Path modulePath = Path.of(path);
+        if (!modulePath.isAbsolute()) {
+            return module.getBasedir().toPath().resolve(modulePath);
+        }
+        for (MavenProject reactorProject : session.getProjects()) {
+            if (reactorProject != project && modulePath.startsWith(reactorProject.getBasedir().toPath())) {
+                // A path of a module itself, e.g. a shared directory
+                return modulePath;
+            }
+        }
+        // The most specific directory first
+        Path[] aggregatorDirs = {Path.of(project.getBuild().getOutputDirectory()),
+                Path.of(project.getBuild().getDirectory()), project.getBasedir().toPath()};
+        Path[] moduleDirs = {Path.of(module.getBuild().getOutputDirectory()),
+                Path.of(module.getBuild().getDirectory()), module.getBasedir().toPath()};
+        for (int i = 0; i < aggregatorDirs.length; i++) {
+            if (modulePath.startsWith(aggregatorDirs[i])) {
+                return moduleDirs[i].resolve(aggregatorDirs[i].relativize(modulePath));
+            }
+        }
+        return modulePath;
+    }
+}
@@ -0,0 +1,135 @@
+package org.springframework.configuration.maven;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.springframework.configuration.maven.properties.PropertiesCrossReference;
+import org.springframework.configuration.maven.xml.MetadataStore;
+import org.springframework.configurationprocessor.metadata.ConfigurationMetadata;
+
+/**
+ * This goal cross-references `.properties` files of the project against `META-INF/spring-configuration-metadata.json`.
+ * It reports keys that no {@code @Value}, {@code @ConfigurationProperties} or xml placeholder uses
+ * and properties and placeholders without default value that no file defines.
+ *
+ * @author tia
+ * @since 1.1
+ */
+@Mojo(name = CrossReferencePropertiesMojo.GOAL_NAME, defaultPhase = LifecyclePhase.VERIFY, threadSafe = true)
+public class CrossReferencePropertiesMojo extends AbstractMojo {
+
+    protected static final String GOAL_NAME = "cross-reference-properties";
+
+    /**
+     * Maven project instance.
+     */
+    @Inject
+    private MavenProject project;
+
+    /**
+     * Root directories to scan for `.properties` files. All project resource directories by default.
+     */
+    @Parameter(name = "propertiesLocations")
+    List<String> propertiesLocations;
+
+    /**
+     * Glob patterns of files to skip relative to a root directory, e.g. {@code **}{@code /messages*.properties}.
+     */
+    @Parameter(name = "excludes")
+    List<String> excludes;
+
+    /**
+     * Encoding of `.properties` files.
+     */
+    @Parameter(name = "encoding", defaultValue = "ISO-8859-1", property = "spring.properties.crossref.encoding")
+    String encoding;
+
+    /**
+     * A directory with 'spring-configuration-metadata.json' file.
+     */
+    @Parameter(name = "metadataDir", defaultValue = "${project.build.outputDirectory}/META-INF", property = "spring.properties.metadata.directory")
+    String metadataDir;
+
+    /**
+     * Fail the build if anything is reported.
+     */
+    @Parameter(name = "failOnIssues", defaultValue = "false", property = "spring.properties.crossref.failOnIssues")
+    boolean failOnIssues;
+
+    @Override
+    public void execute() throws MojoFailureException {
+        long start = System.currentTimeMillis();
+
+        ConfigurationMetadata metadata = new MetadataStore(Path.of(metadataDir)).readMetadata();
+        if (metadata == null) {
+            getLog().info("No metadata found in " + metadataDir);
+            return;
+        }
+        List<Path> files = findPropertiesFiles();
+        PropertiesCrossReference.Report report = new PropertiesCrossReference(metadata).check(files, Charset.forName(encoding));
+
+        for (PropertiesCrossReference.Finding key : report.getUnusedKeys()) {
+            getLog().warn("Unused property " + key);
+        }
+        for (PropertiesCrossReference.Finding placeholder : report.getUndefinedPlaceholders()) {
+            getLog().warn("Undefined placeholder " + placeholder);
+        }
+        for (String property : report.getUndefinedProperties()) {
+            getLog().warn("Property '" + property + "' has no default value and is not defined in properties files");
+        }
+
+        long dur = System.currentTimeMillis() - start;
+        getLog().info(files.size() + " properties files cross-referenced in " + dur + " ms");
+        if (failOnIssues && !report.isEmpty()) {
+            throw new MojoFailureException("Properties files do not match configuration metadata, see warnings above");
+        }
+    }
+
+    private List<Path> findPropertiesFiles() {
+        List<Path> roots;
+        if (propertiesLocations == null || propertiesLocations.isEmpty()) {
+            roots = project.getBuild().getResources().stream()
+                    .map(r -> Path.of(r.getDirectory()))
+                    .collect(Collectors.toList());
+        } else {
+            roots = propertiesLocations.stream()
+                    .map(Path::of)
+                    .collect(Collectors.toList());
+        }
+        List<PathMatcher> excludeMatchers = excludes == null ? List.of() : excludes.stream()
+                .map(pattern -> FileSystems.getDefault().getPathMatcher("glob:" + pattern))
+                .collect(Collectors.toList());
+
+        List<Path> files = new ArrayList<>();
+        for (Path root : roots) {
+            if (!Files.isDirectory(root)) {
+                continue;
+            }
+            try (Stream<Path> pathStream = Files.find(root, Integer.MAX_VALUE,
+                    (path, fileAttributes) -> fileAttributes.isRegularFile() && path.toString().endsWith(".properties"))) {
+                pathStream.filter(path -> excludeMatchers.stream().noneMatch(m -> m.matches(root.relativize(path))))
+                        .sorted()
+                        .forEach(files::add);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return files;
+    }
+}
@@ -2,18 +2,33 @@ package org.springframework.configuration.maven;
 
 import javax.inject.Inject;
 import java.io.File;
-import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.model.building.ModelProblem;
 import org.apache.maven.model.building.ModelProblemUtils;
 import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
@@ -23,8 +38,6 @@ import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.ProjectBuilder;
 import org.apache.maven.project.ProjectBuildingException;
 import org.apache.maven.project.ProjectBuildingResult;
-import org.rodnansol.core.generator.resolver.InputFileResolutionStrategy;
-import org.rodnansol.core.generator.resolver.MetadataInputResolverContext;
 import org.rodnansol.core.generator.template.TemplateType;
 import org.rodnansol.core.generator.template.compiler.TemplateCompilerFactory;
 import org.rodnansol.core.generator.template.customization.AsciiDocTemplateCustomization;
@@ -36,11 +49,18 @@ import org.rodnansol.core.generator.template.handlebars.HandlebarsTemplateCompil
 import org.rodnansol.core.generator.writer.CombinedInput;
 import org.rodnansol.core.generator.writer.CreateAggregationCommand;
 import org.rodnansol.core.generator.writer.CustomTemplate;
-import org.rodnansol.core.generator.writer.postprocess.PropertyGroupFilterService;
 import org.rodnansol.core.project.ProjectFactory;
 import org.rodnansol.maven.AggregationMojoInput;
+import org.springframework.configuration.maven.bytecode.ClassFileScanner;
+import org.springframework.configuration.maven.metrics.BuildMetrics;
 import org.springframework.configuration.maven.patch.AggregationDocumenterPatch;
+import org.springframework.configuration.maven.patch.DocumentPages;
+import org.springframework.configuration.maven.patch.HandlebarsTemplateCompilerPatch;
+import org.springframework.configuration.maven.patch.MetadataCache;
+import org.springframework.configuration.maven.patch.MetadataDiscovery;
 import org.springframework.configuration.maven.patch.MetadataReaderPatch;
+import org.springframework.configuration.maven.patch.RenderCache;
+import org.springframework.configuration.maven.xml.XmlMetadataScanner;
 import org.springframework.configurationprocessor.helpers.StringUtils;
 
 /**
@@ -64,6 +84,11 @@ public class GenerateAndAggregateDocumentsMojo extends AbstractMojo {
 
     protected static final String GOAL_NAME = "generate-and-aggregate-documents";
 
+    /**
+     * Key of modules of aggregator roots by their pom in the plugin context of the top level project.
+     */
+    private static final String SESSION_MODULES = GenerateAndAggregateDocumentsMojo.class.getName() + ".modules";
+
     /**
      * Maven project instance.
      */
@@ -106,6 +131,34 @@ public class GenerateAndAggregateDocumentsMojo extends AbstractMojo {
     @Parameter(property = "type", defaultValue = "MARKDOWN")
     TemplateType type;
 
+    /**
+     * Types of documents to generate from the same inputs in a single pass, overrides {@code 'type'}.
+     * Metadata of the inputs is read once for all the documents. Each document gets the customization of its type
+     * and the extension of its type is appended to {@code 'outputFile'} without extension of another type.
+     *
+     * @since 1.1
+     */
+    @Parameter(property = "types")
+    List<TemplateType> types;
+
+    /**
+     * Render documents of {@code 'types'} in parallel.
+     *
+     * @since 1.1
+     */
+    @Parameter(property = "spring.properties.docs.parallel", defaultValue = "false")
+    boolean parallel;
+
+    /**
+     * If positive, the document is written as pages of the given number of sections, and {@code 'outputFile'}
+     * gets an index of the sections linking to the pages. Pages are written next to the index as
+     * {@code <name>-<page number>.<extension>}.
+     *
+     * @since 1.1
+     */
+    @Parameter(property = "spring.properties.docs.sectionsPerPage", defaultValue = "0")
+    int sectionsPerPage;
+
     /**
      * HTML template customization object to configure the template.
      *
@@ -212,6 +265,94 @@ public class GenerateAndAggregateDocumentsMojo extends AbstractMojo {
     @Parameter(property = "failOnMissingInput", defaultValue = "true")
     boolean failOnMissingInput;
 
+    /**
+     * Cache metadata of dependency jars in {@code 'metadataCacheDir'} directory.
+     * Used with {@code <inputArtifacts>DEPENDENCIES</inputArtifacts>} and {@code 'dependencyXml'} or
+     * {@code 'dependencyClasses'} only: metadata entries of jars are read as fast without the cache.
+     *
+     * @since 1.1
+     */
+    @Parameter(property = "spring.properties.cache", defaultValue = "true")
+    boolean metadataCache;
+
+    /**
+     * A directory of metadata cache of dependency jars. Entries are keyed by artifact coordinates and SHA-1 of the jar,
+     * so the directory may be shared by modules and builds.
+     *
+     * @since 1.1
+     */
+    @Parameter(property = "spring.properties.cache.directory", defaultValue = "${settings.localRepository}/.cache/spring-properties")
+    File metadataCacheDir;
+
+    /**
+     * Scan Spring xml files of dependency jars that have no {@code spring-configuration-metadata.json}
+     * and document their placeholders as metadata of the jar. Entries are read from the jars without extracting them,
+     * jars are scanned in parallel and the result is cached with metadata of the jar.
+     * Used with {@code <inputArtifacts>DEPENDENCIES</inputArtifacts>} only.
+     *
+     * @since 1.1
+     */
+    @Parameter(property = "spring.properties.docs.dependencyXml", defaultValue = "false")
+    boolean dependencyXml;
+
+    /**
+     * Scan classes of dependency jars that have no {@code spring-configuration-metadata.json}, e.g. built without
+     * the annotation processor, and document placeholders of their Spring annotations ({@code @Value},
+     * {@code @PropertySource} and others) as metadata of the jar. Class files are read without class loading, a class
+     * is parsed only if its constant pool has a placeholder. Jars are scanned in parallel and the result is cached
+     * with metadata of the jar. Used with {@code <inputArtifacts>DEPENDENCIES</inputArtifacts>} only.
+     *
+     * @since 1.1
+     */
+    @Parameter(property = "spring.properties.docs.dependencyClasses", defaultValue = "false")
+    boolean dependencyClasses;
+
+    /**
+     * Skip generation if inputs metadata, templates and parameters are not changed since the previous run
+     * and re-render only the sections of changed inputs otherwise.
+     *
+     * @since 1.1
+     */
+    @Parameter(property = "spring.properties.docs.incremental", defaultValue = "true")
+    boolean incremental;
+
+    /**
+     * A directory to keep fingerprints and rendered sections of generated documents for incremental generation.
+     *
+     * @since 1.1
+     */
+    @Parameter(property = "spring.properties.docs.cache.directory", defaultValue = "${project.build.directory}/spring-properties-docs")
+    File renderCacheDir;
+
+    /**
+     * Timestamp for reproducible output: if set, documents show it as the generation date in UTC instead of the current
+     * time, so the same inputs give byte-identical documents. ISO-8601 date-time with offset or seconds since the epoch,
+     * a single character disables it, the same as for other plugins.
+     *
+     * @since 1.1
+     */
+    @Parameter(defaultValue = "${project.build.outputTimestamp}")
+    String outputTimestamp;
+
+    /**
+     * Write durations and counts of the goal phases into '${project.build.directory}/spring-properties-metrics.json'.
+     *
+     * @since 1.1
+     */
+    @Parameter(name = "metrics", defaultValue = "true", property = "spring.properties.metrics")
+    boolean metrics;
+
+    /**
+     * Log the table of the goal phases at INFO level.
+     *
+     * @since 1.1
+     */
+    @Parameter(name = "metricsSummary", defaultValue = "false", property = "spring.properties.metrics.summary")
+    boolean metricsSummary;
+
+    @Parameter(defaultValue = "${mojoExecution}", readonly = true)
+    MojoExecution mojoExecution;
+
     @Inject
     protected ProjectBuilder projectBuilder;
 
@@ -221,17 +362,89 @@ public class GenerateAndAggregateDocumentsMojo extends AbstractMojo {
 
     @Override
     public void execute() {
-        List<AggregationMojoInput> allInputs = collectInputs();
+        BuildMetrics buildMetrics = new BuildMetrics();
+        MetadataCache cache = metadataCache && inputArtifacts == InputArtifactsKind.DEPENDENCIES && metadataCacheDir != null
+                ? new MetadataCache(metadataCacheDir.toPath()) : null;
+        MetadataDiscovery metadataDiscovery = new MetadataDiscovery(ProjectFactory.ofMavenProject(project.getBasedir(),
+                project.getName(), project.getModules()), cache);
+        metadataDiscovery.setMetrics(buildMetrics);
+        if (dependencyXml && inputArtifacts == InputArtifactsKind.DEPENDENCIES) {
+            XmlMetadataScanner jarXmlScanner = new XmlMetadataScanner(List.of());
+            jarXmlScanner.setMetrics(buildMetrics);
+            metadataDiscovery.setJarXmlScanner(jarXmlScanner);
+        }
+        if (dependencyClasses && inputArtifacts == InputArtifactsKind.DEPENDENCIES) {
+            ClassFileScanner jarClassScanner = new ClassFileScanner();
+            jarClassScanner.setMetrics(buildMetrics);
+            metadataDiscovery.setJarClassScanner(jarClassScanner);
+        }
+        List<AggregationMojoInput> allInputs;
+        try (BuildMetrics.Timer timer = buildMetrics.start("docs.inputs")) {
+            allInputs = collectInputs(metadataDiscovery);
+        }
+        buildMetrics.count("docs.inputs", "inputs", allInputs.size());
+
+        List<TemplateType> documentTypes = types != null && !types.isEmpty() ? new ArrayList<>(new LinkedHashSet<>(types)) : List.of(type);
+        List<CreateAggregationCommand> createAggregationCommands = new ArrayList<>(documentTypes.size());
+        for (TemplateType documentType : documentTypes) {
+            File documentOutputFile = documentTypes.size() > 1 ? removeFileNameExtention(outputFile) : outputFile;
+            createAggregationCommands.add(createAggregationCommand(allInputs, documentType, documentOutputFile));
+        }
+        Function<File, RenderCache> renderCacheFactory = incremental && renderCacheDir != null
+                ? output -> new RenderCache(renderCacheDir.toPath().resolve(renderCacheName(output))) : null;
+        LocalDateTime generationDate = parseOutputTimestamp(outputTimestamp);
+        // Engines of the execution, so executions of a parallel build share nothing
+        AggregationDocumenterPatch aggregationDocumenter = new AggregationDocumenterPatch(new MetadataReaderPatch(),
+                HandlebarsTemplateCompilerPatch.newCompilers(templateCompilerName), metadataDiscovery,
+                AggregationDocumenterPatch.newPropertyGroupFilterService(), renderCacheFactory,
+                generationDate == null ? templateCompilerName : templateCompilerName + '@' + generationDate);
+        aggregationDocumenter.setGenerationDate(generationDate);
+        aggregationDocumenter.setMetrics(buildMetrics);
+        ExecutorService executor = parallel && createAggregationCommands.size() > 1
+                ? Executors.newFixedThreadPool(Math.min(createAggregationCommands.size(), Runtime.getRuntime().availableProcessors()))
+                : null;
+        try {
+            if (sectionsPerPage > 0) {
+                new DocumentPages(aggregationDocumenter, sectionsPerPage).createPagesAndIndexes(createAggregationCommands, executor);
+            } else {
+                aggregationDocumenter.createDocumentsAndAggregate(createAggregationCommands, executor);
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+        if (metrics) {
+            GoalMetrics.report(buildMetrics, project, mojoExecution, metricsSummary, getLog());
+        }
+    }
 
-        AggregationDocumenterPatch aggregationDocumenter = new AggregationDocumenterPatch(MetadataReaderPatch.INSTANCE,
-                TemplateCompilerFactory.getInstance(templateCompilerName), MetadataInputResolverContext.INSTANCE,
-                PropertyGroupFilterService.INSTANCE);
-        CreateAggregationCommand createAggregationCommand = createAggregationCommand(allInputs);
-        aggregationDocumenter.createDocumentsAndAggregate(createAggregationCommand);
+    /**
+     * Returns the date of {@code 'outputTimestamp'} in UTC or {@code null} if it is not set.
+     */
+    static LocalDateTime parseOutputTimestamp(String outputTimestamp) {
+        if (outputTimestamp == null || outputTimestamp.length() < 2) {
+            return null;
+        }
+        try {
+            Instant instant = outputTimestamp.chars().allMatch(Character::isDigit)
+                    ? Instant.ofEpochSecond(Long.parseLong(outputTimestamp))
+                    : OffsetDateTime.parse(outputTimestamp).toInstant();
+            return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid project.build.outputTimestamp value '" + outputTimestamp + "'", e);
+        }
+    }
 
+    /**
+     * Cache directory name of the output: executions with different outputs do not share the cache.
+     */
+    private static String renderCacheName(File output) {
+        String path = output.getAbsolutePath();
+        return output.getName() + '-' + Integer.toHexString(path.hashCode());
     }
 
-    private List<AggregationMojoInput> collectInputs() {
+    private List<AggregationMojoInput> collectInputs(MetadataDiscovery metadataDiscovery) {
         List<AggregationMojoInput> allInputs = new ArrayList<>();
         if (inputs != null) {
             allInputs.addAll(inputs);
@@ -261,7 +474,7 @@ public class GenerateAndAggregateDocumentsMojo extends AbstractMojo {
             List<AggregationMojoInput> projectModulesInputs = modules.stream()
                     // to avoid UOE after MetadataReader.readPropertiesAsPropertyGroupList returns unmodifiable List.of()
                     //.peek(p -> System.out.println(p.getName()))
-                    .filter(p -> hasMetadata(p.getBasedir()))
+                    .filter(p -> metadataDiscovery.hasMetadata(p.getBasedir()))
                     .map(p -> {
                         AggregationMojoInput input = new AggregationMojoInput();
                         input.setInput(p.getBasedir());
@@ -273,9 +486,10 @@ public class GenerateAndAggregateDocumentsMojo extends AbstractMojo {
         }
         if (inputArtifacts != null && inputArtifacts == InputArtifactsKind.DEPENDENCIES) {
            // System.out.println("===== DEPENDENCY ===========================");
+            metadataDiscovery.resolveAll(project.getArtifacts());
             List<AggregationMojoInput> jars = project.getArtifacts().stream()
                     //.peek(p -> System.out.println(p.getArtifactId()))
-                    .filter(a -> hasMetadata(a.getFile()))
+                    .filter(a -> a.getFile() != null && metadataDiscovery.hasMetadata(a))
                     .map(a -> {
                         AggregationMojoInput input = new AggregationMojoInput();
                         input.setInput(a.getFile());
@@ -301,14 +515,78 @@ public class GenerateAndAggregateDocumentsMojo extends AbstractMojo {
         return root;
     }
 
+    /**
+     * Returns the root and all its modules recursively. Modules are taken from the reactor, only the ones missing in it
+     * (e.g. excluded by {@code -pl}) are built. The result is cached for the whole session.
+     */
     private List<MavenProject> collectChildModules(MavenProject root) {
+        if (mojoExecution == null) {
+            return resolveChildModules(normalize(root.getFile()));
+        }
+        // Plugin contexts live as long as the session, forked executions run with a clone of the session sharing them
+        MavenProject topLevelProject = session.getTopLevelProject() != null ? session.getTopLevelProject() : project;
+        Map<String, Object> pluginContext = session.getPluginContext(mojoExecution.getMojoDescriptor().getPluginDescriptor(),
+                topLevelProject);
+        @SuppressWarnings("unchecked")
+        Map<Path, List<MavenProject>> sessionModules = (Map<Path, List<MavenProject>>) pluginContext
+                .computeIfAbsent(SESSION_MODULES, key -> new ConcurrentHashMap<Path, List<MavenProject>>());
+        return sessionModules.computeIfAbsent(normalize(root.getFile()), pom -> resolveChildModules(pom));
+    }
+
+    private List<MavenProject> resolveChildModules(Path rootPom) {
+        Map<Path, MavenProject> reactorProjects = new HashMap<>();
+        for (MavenProject reactorProject : session.getProjects()) {
+            if (reactorProject.getFile() != null) {
+                reactorProjects.put(normalize(reactorProject.getFile()), reactorProject);
+            }
+        }
+
+        List<MavenProject> projects = new ArrayList<>();
+        Set<Path> visited = new HashSet<>();
+        List<Path> level = Collections.singletonList(rootPom);
+        while (!level.isEmpty()) {
+            List<MavenProject> levelProjects = new ArrayList<>(level.size());
+            List<File> missing = new ArrayList<>();
+            for (Path pom : level) {
+                if (!visited.add(pom)) {
+                    continue;
+                }
+                MavenProject reactorProject = reactorProjects.get(pom);
+                if (reactorProject != null) {
+                    levelProjects.add(reactorProject);
+                } else {
+                    missing.add(pom.toFile());
+                }
+            }
+            if (!missing.isEmpty()) {
+                getLog().debug("Building modules missing in the reactor: " + missing);
+                levelProjects.addAll(buildProjects(missing));
+            }
+
+            List<Path> nextLevel = new ArrayList<>();
+            for (MavenProject levelProject : levelProjects) {
+                projects.add(levelProject);
+                for (String module : levelProject.getModules()) {
+                    Path modulePath = levelProject.getBasedir().toPath().resolve(module);
+                    if (Files.isDirectory(modulePath)) {
+                        modulePath = modulePath.resolve("pom.xml");
+                    }
+                    nextLevel.add(normalize(modulePath.toFile()));
+                }
+            }
+            level = nextLevel;
+        }
+        return projects;
+    }
+
+    private List<MavenProject> buildProjects(List<File> poms) {
         boolean problems = false;
         List<MavenProject> projects = new ArrayList<>();
         if (projectBuilder == null) return projects;
 
         Log logger = getLog();
         try {
-            List<ProjectBuildingResult> results = projectBuilder.build(Collections.singletonList(root.getFile()), true,
+            List<ProjectBuildingResult> results = projectBuilder.build(poms, false,
                     session.getProjectBuildingRequest());
 
             for (ProjectBuildingResult result : results) {
@@ -334,18 +612,11 @@ public class GenerateAndAggregateDocumentsMojo extends AbstractMojo {
         return projects;
     }
 
-    private boolean hasMetadata(File f) {
-        try {
-            org.rodnansol.core.project.maven.MavenProject docMavenProject = ProjectFactory.ofMavenProject(project.getBasedir(),
-                    project.getName(), project.getModules());
-            return MetadataInputResolverContext.INSTANCE.getInputStreamFromFile(docMavenProject, f,
-                    InputFileResolutionStrategy.RETURN_EMPTY).available() > 0;
-        } catch (IOException e) {
-            return false;
-        }
+    private static Path normalize(File file) {
+        return file.toPath().toAbsolutePath().normalize();
     }
 
-    private CreateAggregationCommand createAggregationCommand(List<AggregationMojoInput> allInputs) {
+    private CreateAggregationCommand createAggregationCommand(List<AggregationMojoInput> allInputs, TemplateType type, File outputFile) {
         List<CombinedInput> combinedInputs = allInputs.stream()
                 .map(this::mapToCombinedInput)
                 .sorted(Comparator.comparing(combinedInput -> combinedInput.getSectionName().toLowerCase()))
@@ -356,7 +627,7 @@ public class GenerateAndAggregateDocumentsMojo extends AbstractMojo {
         File fixedOutputFile = fixFileNameExtention(outputFile, type);
 
         CreateAggregationCommand createAggregationCommand = new CreateAggregationCommand(mavenProject, name, combinedInputs, type,
-                getActualTemplateCustomization(), fixedOutputFile);
+                getActualTemplateCustomization(type), fixedOutputFile);
         createAggregationCommand.setDescription(description);
         createAggregationCommand.setCustomTemplate(new CustomTemplate(headerTemplate, contentTemplate, footerTemplate));
         createAggregationCommand.setFailOnMissingInput(failOnMissingInput);
@@ -375,16 +646,16 @@ public class GenerateAndAggregateDocumentsMojo extends AbstractMojo {
         return combinedInput;
     }
 
-    private TemplateCustomization getActualTemplateCustomization() {
+    private TemplateCustomization getActualTemplateCustomization(TemplateType type) {
         switch (type) {
         case MARKDOWN:
-            return markdownCustomization;
+            return markdownCustomization != null ? markdownCustomization : new MarkdownTemplateCustomization();
         case ADOC:
-            return asciiDocCustomization;
+            return asciiDocCustomization != null ? asciiDocCustomization : new AsciiDocTemplateCustomization();
         case HTML:
-            return htmlCustomization;
+            return htmlCustomization != null ? htmlCustomization : new HtmlTemplateCustomization();
         case XML:
-            return xmlCustomization;
+            return xmlCustomization != null ? xmlCustomization : new XmlTemplateCustomization();
         }
         throw new IllegalStateException("There is no template customization set for the current run");
     }
@@ -414,21 +685,7 @@ public class GenerateAndAggregateDocumentsMojo extends AbstractMojo {
     private static File fixFileNameExtention(File outputFile, TemplateType type) {
         File fixedOutputFile;
         Path outPath = Path.of(outputFile.toURI());
-        String ext = "";
-        switch (type){
-        case MARKDOWN:
-            ext = "md";
-            break;
-        case ADOC:
-            ext = "adoc";
-            break;
-        case HTML:
-            ext = "html";
-            break;
-        case XML:
-            ext = "xml";
-            break;
-        }
+        String ext = extentionOf(type);
 
         if (!ext.equals(StringUtils.getFilenameExtension(outPath.toString()))) {
             Path newFileName = Path.of(outPath.getFileName().toString() + '.' + ext);
@@ -439,4 +696,31 @@ public class GenerateAndAggregateDocumentsMojo extends AbstractMojo {
         return fixedOutputFile;
     }
 
+    private static String extentionOf(TemplateType type) {
+        switch (type) {
+        case MARKDOWN:
+            return "md";
+        case ADOC:
+            return "adoc";
+        case HTML:
+            return "html";
+        case XML:
+            return "xml";
+        }
+        return "";
+    }
+
+    /**
+     * Removes extension of any template type, so every type gets its own one.
+     */
+    private static File removeFileNameExtention(File outputFile) {
+        String ext = StringUtils.getFilenameExtension(outputFile.getName());
+        for (TemplateType type : TemplateType.values()) {
+            if (extentionOf(type).equals(ext)) {
+                return new File(outputFile.getParentFile(), outputFile.getName().substring(0, outputFile.getName().length() - ext.length() - 1));
+            }
+        }
+        return outputFile;
+    }
+
 }
@@ -0,0 +1,44 @@
+package org.springframework.configuration.maven;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.springframework.configuration.maven.metrics.BuildMetrics;
+
+/**
+ * Reports metrics of a goal execution: writes them into {@code spring-properties-metrics.json} of the build directory
+ * under the key {@code <goal>@<execution id>} and logs the summary table.
+ *
+ * @author tia
+ * @since 1.1
+ */
+final class GoalMetrics {
+
+    private GoalMetrics() {
+    }
+
+    /**
+     * @param summary log the summary table at INFO level, at DEBUG level otherwise.
+     */
+    static void report(BuildMetrics metrics, MavenProject project, MojoExecution execution, boolean summary, Log log) {
+        String key = execution != null ? execution.getGoal() + '@' + execution.getExecutionId() : "unknown";
+        if (summary || log.isDebugEnabled()) {
+            for (String line : metrics.summary()) {
+                if (summary) {
+                    log.info(line);
+                } else {
+                    log.debug(line);
+                }
+            }
+        }
+        Path file = Path.of(project.getBuild().getDirectory(), BuildMetrics.FILE_NAME);
+        try {
+            metrics.write(file, key);
+        } catch (IOException e) {
+            log.warn("Unable to write metrics to " + file + ": " + e.getMessage());
+        }
+    }
+}
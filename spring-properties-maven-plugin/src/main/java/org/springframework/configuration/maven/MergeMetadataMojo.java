@@ -0,0 +1,68 @@
+package org.springframework.configuration.maven;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.springframework.configuration.maven.xml.MetadataStore;
+
+/**
+ * This goal merges metadata fragments written by 'spring-properties-processor' annotation processor and
+ * {@code generate-xml-properties-metadata} goal into `META-INF/spring-configuration-metadata.json`.
+ * <p>
+ * Producers write fragments only when fragments mode is enabled for them
+ * ({@code -Aorg.springframework.configurationprocessor.metadataFragmentsDirectory} for the processor,
+ * {@code fragments} for the goal). Then none of them reads the output of another one,
+ * so the order they run in does not matter.
+ *
+ * @author tia
+ * @since 1.1
+ */
+@Mojo(name = MergeMetadataMojo.GOAL_NAME, defaultPhase = LifecyclePhase.PREPARE_PACKAGE, threadSafe = true)
+public class MergeMetadataMojo extends AbstractMojo {
+
+    protected static final String GOAL_NAME = "merge-metadata";
+
+    /**
+     * A directory with metadata fragments to merge.
+     */
+    @Parameter(name = "fragmentsDir", defaultValue = "${project.build.directory}/spring-configuration-metadata-fragments",
+            property = "spring.properties.metadata.fragments.directory")
+    String fragmentsDir;
+
+    /**
+     * A directory where the merged 'spring-configuration-metadata.json' file will be saved
+     */
+    @Parameter(name = "metadataDir", defaultValue = "${project.build.outputDirectory}/META-INF", property = "spring.properties.metadata.directory")
+    String metadataDir;
+
+    /**
+     * Write properties of the same name as one property with the list of its usage sites ('usages')
+     * instead of one property per usage.
+     */
+    @Parameter(name = "aggregateUsages", defaultValue = "false", property = "spring.properties.metadata.aggregateUsages")
+    boolean aggregateUsages;
+
+    @Override
+    public void execute() {
+        long start = System.currentTimeMillis();
+
+        int merged;
+        try {
+            merged = new MetadataStore(Path.of(metadataDir)).mergeFragments(Path.of(fragmentsDir), aggregateUsages);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        long dur = System.currentTimeMillis() - start;
+        if (merged == 0) {
+            getLog().info("No metadata fragments found in " + fragmentsDir);
+        } else {
+            getLog().info(merged + " metadata fragments merged in " + dur + " ms");
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.springframework.configuration.maven;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.springframework.configuration.index.PropertyMetadata;
+import org.springframework.configuration.index.PropertyMetadataIndex;
+import org.springframework.configuration.index.PropertyMetadataIndexWriter;
+import org.springframework.configuration.maven.xml.MetadataStore;
+
+/**
+ * This goal writes `META-INF/spring-configuration-metadata.idx` next to `META-INF/spring-configuration-metadata.json`.
+ * The index is read at runtime by {@code PropertyMetadataIndex} of 'spring-properties-metadata-index' library
+ * without parsing JSON.
+ * <p>
+ * Run it after the metadata is complete, e.g. after {@code merge-metadata} goal.
+ *
+ * @author tia
+ * @since 1.1
+ */
+@Mojo(name = MetadataIndexMojo.GOAL_NAME, defaultPhase = LifecyclePhase.PREPARE_PACKAGE, threadSafe = true)
+public class MetadataIndexMojo extends AbstractMojo {
+
+    protected static final String GOAL_NAME = "index-metadata";
+
+    /**
+     * A directory with 'spring-configuration-metadata.json' file. The index is saved in the same directory.
+     */
+    @Parameter(name = "metadataDir", defaultValue = "${project.build.outputDirectory}/META-INF", property = "spring.properties.metadata.directory")
+    String metadataDir;
+
+    @Override
+    public void execute() {
+        long start = System.currentTimeMillis();
+
+        Path metadata = Path.of(metadataDir).resolve(Path.of(PropertyMetadataIndex.METADATA_LOCATION).getFileName());
+        if (!Files.isRegularFile(metadata)) {
+            getLog().info("No metadata found in " + metadataDir);
+            return;
+        }
+        Path index = Path.of(metadataDir).resolve(Path.of(PropertyMetadataIndex.INDEX_LOCATION).getFileName());
+
+        List<PropertyMetadata> properties;
+        try (InputStream inputStream = Files.newInputStream(metadata)) {
+            properties = PropertyMetadataIndex.readProperties(inputStream);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read " + metadata, e);
+        }
+        try {
+            MetadataStore.writeIfChanged(index, outputStream -> PropertyMetadataIndexWriter.write(properties, outputStream));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write " + index, e);
+        }
+
+        long dur = System.currentTimeMillis() - start;
+        getLog().info(properties.size() + " properties indexed in " + dur + " ms");
+    }
+}
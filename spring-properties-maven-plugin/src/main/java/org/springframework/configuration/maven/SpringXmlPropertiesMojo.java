@@ -2,14 +2,24 @@ package org.springframework.configuration.maven;
 
 import javax.inject.Inject;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.apache.maven.ProjectDependenciesResolver;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.resolver.ArtifactNotFoundException;
+import org.apache.maven.artifact.resolver.ArtifactResolutionException;
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
+import org.springframework.configuration.maven.metrics.BuildMetrics;
 import org.springframework.configuration.maven.xml.MetadataProcessor;
 
 /**
@@ -26,15 +36,22 @@ public class SpringXmlPropertiesMojo extends AbstractMojo {
     protected static final String GOAL_NAME = "generate-xml-properties-metadata";
 
     // @Parameter( defaultValue = "${session}", readonly = true )
-    /*@Inject
-    private MavenSession session;*/
+    @Inject
+    MavenSession session;
+
+    /**
+     * Resolves the runtime classpath of root contexts only when they are set, so that the goal does not
+     * require dependency resolution otherwise.
+     */
+    @Inject
+    ProjectDependenciesResolver dependenciesResolver;
 
     /**
      * Maven project instance.
      */
     // @Parameter( defaultValue = "${project}", readonly = true )
     @Inject
-    private MavenProject project;
+    MavenProject project;
 
     // @Parameter( defaultValue = "${mojoExecution}", readonly = true )
     /*@Inject
@@ -46,32 +63,187 @@ public class SpringXmlPropertiesMojo extends AbstractMojo {
     @Parameter(name = "xmlLocations")
     List<String> xmlLocations;
 
+    /**
+     * Glob patterns of xml files to scan, relative to an xml location, e.g. {@code spring/**}.
+     * All xml files by default.
+     *
+     * @since 1.1
+     */
+    @Parameter(name = "includes", property = "spring.properties.xml.includes")
+    List<String> includes;
+
+    /**
+     * Glob patterns of xml files to skip, relative to an xml location, e.g. {@code **}{@code /fixtures/**}.
+     * Directories matched by a pattern, or by its part before a trailing {@code /**}, are not walked into.
+     *
+     * @since 1.1
+     */
+    @Parameter(name = "excludes", property = "spring.properties.xml.excludes")
+    List<String> excludes;
+
+    /**
+     * Root context files to start scanning from instead of scanning all xml files of {@code xmlLocations}.
+     * Only the root contexts and the files they import by {@code <import resource="..."/>} are scanned, each once.
+     * <p>
+     * Locations are {@code classpath:} and {@code classpath*:} resources, looked up in {@code xmlLocations} and then
+     * in the runtime classpath of the project, jars included, or file paths relative to the project directory.
+     * Imports without a prefix are relative to the importing file, imports with placeholders are skipped.
+     * Ant-style patterns are supported, e.g. {@code classpath*:META-INF/spring/*.xml}.
+     *
+     * @since 1.1
+     */
+    @Parameter(name = "rootContexts", property = "spring.properties.xml.rootContexts")
+    List<String> rootContexts;
+
     /**
      * A directory where the generated 'spring-configuration-metadata.json' file will be saved
      */
     @Parameter(name = "metadataDir", defaultValue = "${project.build.outputDirectory}/META-INF", property = "spring.properties.metadata.directory")
     String metadataDir;
 
+    /**
+     * Write xml properties metadata as a standalone fragment into {@code fragmentsDir} instead of merging it
+     * into 'spring-configuration-metadata.json'. Use {@code merge-metadata} goal to produce the final metadata file.
+     *
+     * @since 1.1
+     */
+    @Parameter(name = "fragments", defaultValue = "false", property = "spring.properties.metadata.fragments")
+    boolean fragments;
+
+    /**
+     * A directory to write the fragment into, the same as the one {@code merge-metadata} goal reads by default.
+     *
+     * @since 1.1
+     */
+    @Parameter(name = "fragmentsDir", defaultValue = "${project.build.directory}/spring-configuration-metadata-fragments",
+            property = "spring.properties.metadata.fragments.directory")
+    String fragmentsDir;
+
+    /**
+     * Infer groups of every xml file from property names, nested groups included.
+     * Otherwise every xml file gets one group with the empty name.
+     *
+     * @since 1.1
+     */
+    @Parameter(name = "nestedGroups", defaultValue = "false", property = "spring.properties.metadata.nestedGroups")
+    boolean nestedGroups;
+
+    /**
+     * Write properties of the same name as one property with the list of its usage sites ('usages')
+     * instead of one property per usage. Properties of the annotation processor in the same metadata file are
+     * aggregated too.
+     *
+     * @since 1.1
+     */
+    @Parameter(name = "aggregateUsages", defaultValue = "false", property = "spring.properties.metadata.aggregateUsages")
+    boolean aggregateUsages;
+
+    /**
+     * Write durations and counts of the goal phases into '${project.build.directory}/spring-properties-metrics.json'.
+     *
+     * @since 1.1
+     */
+    @Parameter(name = "metrics", defaultValue = "true", property = "spring.properties.metrics")
+    boolean metrics;
+
+    /**
+     * Log the table of the goal phases at INFO level.
+     *
+     * @since 1.1
+     */
+    @Parameter(name = "metricsSummary", defaultValue = "false", property = "spring.properties.metrics.summary")
+    boolean metricsSummary;
+
+    @Parameter(defaultValue = "${mojoExecution}", readonly = true)
+    MojoExecution mojoExecution;
+
     @Override
-    public void execute() {
+    public void execute() throws MojoExecutionException {
         long start = System.currentTimeMillis();
 
         //getLog().info("generate-xml-properties-metadata");
+        MetadataProcessor generator = createProcessor(project);
+        BuildMetrics buildMetrics = new BuildMetrics();
+        generator.setMetrics(buildMetrics);
+        generator.execute();
+        if (metrics) {
+            GoalMetrics.report(buildMetrics, project, mojoExecution, metricsSummary, getLog());
+        }
+
+        long dur = System.currentTimeMillis() - start;
+        getLog().info("Xml files properties extracted in " + dur + " ms");
+
+    }
+
+    /**
+     * Creates the generator of the module metadata configured by the goal parameters.
+     *
+     * @since 1.1
+     */
+    MetadataProcessor createProcessor(MavenProject module) throws MojoExecutionException {
         List<Path> xmlLocationPaths;
         if (xmlLocations == null || xmlLocations.isEmpty()) {
-            xmlLocationPaths = project.getBuild().getResources().stream()
+            xmlLocationPaths = module.getBuild().getResources().stream()
                     .map(r -> Path.of(r.getDirectory()))
                     .collect(Collectors.toList());
         } else {
             xmlLocationPaths = xmlLocations.stream()
-                    .map(Path::of)
+                    .map(location -> modulePath(module, location))
                     .collect(Collectors.toList());
         }
-        MetadataProcessor generator = new MetadataProcessor(xmlLocationPaths, Path.of(metadataDir));
-        generator.execute();
+        MetadataProcessor generator = new MetadataProcessor(xmlLocationPaths, modulePath(module, metadataDir),
+                fragments ? modulePath(module, fragmentsDir) : null);
+        generator.setNestedGroups(nestedGroups);
+        generator.setAggregateUsages(aggregateUsages);
+        generator.setFilePatterns(includes, excludes);
+        if (rootContexts != null && !rootContexts.isEmpty()) {
+            generator.setRootContexts(rootContexts.stream()
+                    .map(location -> resolveRootContext(module, location))
+                    .collect(Collectors.toList()));
+            generator.setClasspath(runtimeClasspath(module));
+        }
+        return generator;
+    }
 
-        long dur = System.currentTimeMillis() - start;
-        getLog().info("Xml files properties extracted in " + dur + " ms");
+    /**
+     * Resolves the runtime classpath of the module: its build output directory and its compile and runtime
+     * dependencies. The goals do not require dependency resolution, an aggregator would get it for
+     * the aggregator project only.
+     *
+     * @since 1.1
+     */
+    List<Path> runtimeClasspath(MavenProject module) throws MojoExecutionException {
+        Set<Artifact> artifacts;
+        try {
+            artifacts = dependenciesResolver.resolve(module, List.of(Artifact.SCOPE_RUNTIME), session);
+        } catch (ArtifactResolutionException | ArtifactNotFoundException e) {
+            throw new MojoExecutionException("Unable to resolve the classpath of root contexts of module '"
+                    + module.getArtifactId() + "'", e);
+        }
+        List<Path> classpath = new ArrayList<>(artifacts.size() + 1);
+        classpath.add(Path.of(module.getBuild().getOutputDirectory()));
+        for (Artifact artifact : artifacts) {
+            if (artifact.getFile() != null && artifact.getArtifactHandler().isAddedToClasspath()) {
+                classpath.add(artifact.getFile().toPath());
+            }
+        }
+        return classpath;
+    }
 
+    /**
+     * Returns the path of a parameter for the module.
+     *
+     * @since 1.1
+     */
+    Path modulePath(MavenProject module, String path) {
+        return Path.of(path);
+    }
+
+    private String resolveRootContext(MavenProject module, String location) {
+        location = location.trim();
+        if (location.startsWith("classpath:") || location.startsWith("classpath*:") || location.startsWith("file:")) {
+            return location;
+        }
+        return module.getBasedir().toPath().resolve(modulePath(module, location)).toString();
     }
 }
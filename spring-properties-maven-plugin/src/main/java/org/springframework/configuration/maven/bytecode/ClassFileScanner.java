@@ -0,0 +1,445 @@
+package org.springframework.configuration.maven.bytecode;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.configuration.maven.metrics.BuildMetrics;
+import org.springframework.configurationprocessor.helpers.PropertyPlaceholderHelper;
+import org.springframework.configurationprocessor.metadata.ItemDeprecation;
+import org.springframework.configurationprocessor.metadata.ItemMetadata;
+
+/**
+ * Finds placeholders of Spring annotations in compiled classes, for jars built without the annotation processor.
+ * <p>
+ * Class files are read as bytes, without class loading and without a bytecode library. The constant pool is indexed
+ * first: a class is skipped unless the pool has both a string with {@code ${} and a descriptor of an
+ * {@code org.springframework} annotation, so most classes are never parsed further. Otherwise string values of
+ * {@code org.springframework} annotations of the class, its fields, methods and method parameters are taken, nested
+ * annotations and arrays included, the same as the annotation processor does for sources:
+ * <ul>
+ *     <li>the type of a property is the type of the field, of the parameter, of the single parameter of a setter,
+ *     the return type of other methods or {@code java.lang.String} for a class, erased of generics;</li>
+ *     <li>the source type is the class, the default value is the one of the placeholder;</li>
+ *     <li>a property is deprecated if its element or the enclosing one is annotated by {@code @Deprecated};</li>
+ *     <li>there are no descriptions, class files have no javadoc.</li>
+ * </ul>
+ *
+ * @author tia
+ * @since 1.1
+ */
+public class ClassFileScanner {
+
+    /**
+     * Version of the metadata produced from classes of jars. It is a part of the cache entry name, so it must be
+     * incremented when the scanner finds other properties in the same jar.
+     */
+    public static final int OUTPUT_VERSION = 2;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClassFileScanner.class);
+
+    private static final String CLASS_EXTENSION = ".class";
+    private static final byte[] PLACEHOLDER_PREFIX = "${".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SPRING_ANNOTATION_PREFIX = "Lorg/springframework/".getBytes(StandardCharsets.US_ASCII);
+    private static final String DEPRECATED_ANNOTATION = "Ljava/lang/Deprecated;";
+    private static final PropertyPlaceholderHelper PROPERTY_HELPER = new PropertyPlaceholderHelper("${", "}", ":", true);
+
+    private BuildMetrics metrics = new BuildMetrics();
+
+    /**
+     * Sets metrics to record prefiltering and parsing of classes to.
+     */
+    public void setMetrics(BuildMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Scans classes of the jar. Entries are streamed from the zip without extracting them, classes of
+     * {@code META-INF/versions} and module descriptors are skipped. A class that can not be read is logged and skipped.
+     */
+    public Set<ItemMetadata> scanJar(Path jar) {
+        Set<ItemMetadata> jarMetadata = new LinkedHashSet<>();
+        try (ZipFile zipFile = new ZipFile(jar.toFile())) {
+            List<? extends ZipEntry> entries = zipFile.stream()
+                    .filter(entry -> !entry.isDirectory() && entry.getName().endsWith(CLASS_EXTENSION)
+                            && !entry.getName().startsWith("META-INF/") && !entry.getName().endsWith("module-info.class"))
+                    .sorted(Comparator.comparing(ZipEntry::getName))
+                    .collect(Collectors.toList());
+            metrics.count("classes.prefilter", "jars", 1);
+            for (ZipEntry entry : entries) {
+                byte[] content;
+                try (InputStream inputStream = zipFile.getInputStream(entry)) {
+                    content = inputStream.readAllBytes();
+                }
+                try {
+                    jarMetadata.addAll(scanClass(content));
+                } catch (RuntimeException e) {
+                    // A broken class of a dependency must not fail the build of the project
+                    LOGGER.warn("Unable to read class:[{}] of:[{}], it is skipped. {}", entry.getName(), jar, e.toString());
+                    metrics.count("classes.parse", "skipped", 1);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return jarMetadata;
+    }
+
+    /**
+     * Returns properties of placeholders of the class file.
+     *
+     * @throws RuntimeException if the class file is corrupt
+     */
+    public List<ItemMetadata> scanClass(byte[] classFile) {
+        ClassFile parsed;
+        try (BuildMetrics.Timer timer = metrics.start("classes.prefilter")) {
+            parsed = ClassFile.index(classFile);
+        }
+        metrics.count("classes.prefilter", "classes", 1);
+        metrics.count("classes.prefilter", "bytes", classFile.length);
+        if (parsed == null) {
+            metrics.count("classes.prefilter", "skipped", 1);
+            return List.of();
+        }
+        List<ItemMetadata> properties = new ArrayList<>();
+        try (BuildMetrics.Timer timer = metrics.start("classes.parse")) {
+            parsed.parse(properties);
+        }
+        metrics.count("classes.parse", "classes", 1);
+        metrics.count("classes.parse", "items", properties.size());
+        return properties;
+    }
+
+    /**
+     * Returns the Java type of a field descriptor, primitives boxed as the annotation processor does.
+     */
+    static String typeOf(String descriptor) {
+        int dimensions = 0;
+        while (descriptor.charAt(dimensions) == '[') {
+            dimensions++;
+        }
+        String component;
+        char tag = descriptor.charAt(dimensions);
+        switch (tag) {
+        case 'B': component = "java.lang.Byte"; break;
+        case 'C': component = "java.lang.Character"; break;
+        case 'D': component = "java.lang.Double"; break;
+        case 'F': component = "java.lang.Float"; break;
+        case 'I': component = "java.lang.Integer"; break;
+        case 'J': component = "java.lang.Long"; break;
+        case 'S': component = "java.lang.Short"; break;
+        case 'Z': component = "java.lang.Boolean"; break;
+        case 'V': component = "void"; break;
+        case 'L': component = descriptor.substring(dimensions + 1, descriptor.indexOf(';', dimensions)).replace('/', '.'); break;
+        default: throw new IllegalArgumentException("Invalid descriptor '" + descriptor + "'");
+        }
+        return component + "[]".repeat(dimensions);
+    }
+
+    /**
+     * Returns the Java types of the parameters of a method descriptor followed by the return type.
+     */
+    static List<String> typesOf(String methodDescriptor) {
+        List<String> types = new ArrayList<>();
+        int i = 1;
+        while (methodDescriptor.charAt(i) != ')') {
+            int start = i;
+            while (methodDescriptor.charAt(i) == '[') {
+                i++;
+            }
+            i = methodDescriptor.charAt(i) == 'L' ? methodDescriptor.indexOf(';', i) + 1 : i + 1;
+            types.add(typeOf(methodDescriptor.substring(start, i)));
+        }
+        types.add(typeOf(methodDescriptor.substring(i + 1)));
+        return types;
+    }
+
+    /**
+     * A class file with an indexed constant pool.
+     *
+     * @see <a href="https://docs.oracle.com/javase/specs/jvms/se17/html/jvms-4.html">The class file format</a>
+     */
+    private static final class ClassFile {
+        private final byte[] bytes;
+        private final int[] offsets;
+        private final String[] strings;
+        private int position;
+
+        private ClassFile(byte[] bytes, int[] offsets, int position) {
+            this.bytes = bytes;
+            this.offsets = offsets;
+            this.strings = new String[offsets.length];
+            this.position = position;
+        }
+
+        /**
+         * Indexes the constant pool, returns {@code null} if the class can not have placeholders of Spring annotations.
+         */
+        static ClassFile index(byte[] bytes) {
+            if (bytes.length < 10 || u4(bytes, 0) != 0xCAFEBABE) {
+                throw new IllegalArgumentException("Not a class file");
+            }
+            int count = u2(bytes, 8);
+            int[] offsets = new int[count];
+            boolean placeholder = false;
+            boolean spring = false;
+            int position = 10;
+            for (int i = 1; i < count; i++) {
+                offsets[i] = position;
+                int tag = bytes[position++] & 0xFF;
+                switch (tag) {
+                case 1: // Utf8
+                    int length = u2(bytes, position);
+                    position += 2;
+                    placeholder = placeholder || indexOf(bytes, position, position + length, PLACEHOLDER_PREFIX) >= 0;
+                    spring = spring || startsWith(bytes, position, length, SPRING_ANNOTATION_PREFIX);
+                    position += length;
+                    break;
+                case 7: case 8: case 16: case 19: case 20: // Class, String, MethodType, Module, Package
+                    position += 2;
+                    break;
+                case 15: // MethodHandle
+                    position += 3;
+                    break;
+                case 3: case 4: case 9: case 10: case 11: case 12: case 17: case 18: // Integer, Float, refs, dynamic
+                    position += 4;
+                    break;
+                case 5: case 6: // Long, Double take two entries
+                    position += 8;
+                    i++;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown constant pool tag " + tag + " at " + (position - 1));
+                }
+            }
+            return placeholder && spring ? new ClassFile(bytes, offsets, position) : null;
+        }
+
+        void parse(List<ItemMetadata> properties) {
+            position += 2; // access flags
+            String className = utf8(u2(bytes, offsets[u2()] + 1)).replace('/', '.');
+            position += 2; // super class
+            int interfaces = u2();
+            position += 2 * interfaces;
+
+            List<Element> fields = new ArrayList<>();
+            int fieldCount = u2();
+            for (int i = 0; i < fieldCount; i++) {
+                position += 2;
+                Element field = new Element(utf8(u2()), utf8(u2()));
+                readAttributes(field);
+                fields.add(field);
+            }
+            List<Element> methods = new ArrayList<>();
+            int methodCount = u2();
+            for (int i = 0; i < methodCount; i++) {
+                position += 2;
+                Element method = new Element(utf8(u2()), utf8(u2()));
+                readAttributes(method);
+                methods.add(method);
+            }
+            Element type = new Element(className, null);
+            readAttributes(type);
+
+            String stringType = String.class.getName();
+            addProperties(properties, type.values, stringType, className, type.deprecated);
+            for (Element field : fields) {
+                addProperties(properties, field.values, typeOf(field.descriptor), className,
+                        field.deprecated || type.deprecated);
+            }
+            for (Element method : methods) {
+                List<String> types = typesOf(method.descriptor);
+                int parameters = types.size() - 1;
+                String methodType = method.name.startsWith("set") && parameters == 1 ? types.get(0) : types.get(parameters);
+                addProperties(properties, method.values, methodType, className, method.deprecated || type.deprecated);
+                // Synthetic leading parameters, e.g. of inner class constructors, may have no annotations
+                int shift = Math.max(0, parameters - method.parameterValues.size());
+                for (int p = 0; p < method.parameterValues.size() && shift + p < parameters; p++) {
+                    addProperties(properties, method.parameterValues.get(p), types.get(shift + p), className,
+                            method.parameterDeprecated.get(p) || method.deprecated);
+                }
+            }
+        }
+
+        private static void addProperties(List<ItemMetadata> properties, List<String> values, String type,
+                                          String sourceType, boolean deprecated) {
+            for (String value : values) {
+                for (Map.Entry<String, String> placeholder : PROPERTY_HELPER.extractPlaceholders(value).entrySet()) {
+                    properties.add(ItemMetadata.newProperty("", placeholder.getKey(), type, sourceType, null, null,
+                            placeholder.getValue(), deprecated ? new ItemDeprecation(null, null) : null));
+                }
+            }
+        }
+
+        private void readAttributes(Element element) {
+            int count = u2();
+            for (int i = 0; i < count; i++) {
+                String name = utf8(u2());
+                int length = u4(bytes, position);
+                position += 4;
+                int end = position + length;
+                switch (name) {
+                case "RuntimeVisibleAnnotations":
+                case "RuntimeInvisibleAnnotations":
+                    element.deprecated |= readAnnotations(element.values);
+                    break;
+                case "RuntimeVisibleParameterAnnotations":
+                case "RuntimeInvisibleParameterAnnotations":
+                    int parameters = bytes[position++] & 0xFF;
+                    for (int p = 0; p < parameters; p++) {
+                        while (element.parameterValues.size() <= p) {
+                            element.parameterValues.add(new ArrayList<>());
+                            element.parameterDeprecated.add(false);
+                        }
+                        if (readAnnotations(element.parameterValues.get(p))) {
+                            element.parameterDeprecated.set(p, true);
+                        }
+                    }
+                    break;
+                case "Deprecated":
+                    element.deprecated = true;
+                    break;
+                default:
+                    break;
+                }
+                position = end;
+            }
+        }
+
+        /**
+         * Adds string values of Spring annotations, returns {@code true} if there is {@code @Deprecated}.
+         */
+        private boolean readAnnotations(List<String> values) {
+            boolean deprecated = false;
+            int count = u2();
+            for (int i = 0; i < count; i++) {
+                String type = utf8(u2());
+                deprecated |= type.equals(DEPRECATED_ANNOTATION);
+                readElementValuePairs(type.startsWith("Lorg/springframework/") ? values : null);
+            }
+            return deprecated;
+        }
+
+        /**
+         * Reads values of an annotation, strings are added to the values if they are not {@code null}.
+         */
+        private void readElementValuePairs(List<String> values) {
+            int pairs = u2();
+            for (int i = 0; i < pairs; i++) {
+                position += 2; // element name
+                readElementValue(values);
+            }
+        }
+
+        private void readElementValue(List<String> values) {
+            char tag = (char) (bytes[position++] & 0xFF);
+            switch (tag) {
+            case 's':
+                int index = u2();
+                if (values != null) {
+                    values.add(utf8(index));
+                }
+                break;
+            case 'e':
+                position += 4;
+                break;
+            case '@':
+                position += 2;
+                readElementValuePairs(values);
+                break;
+            case '[':
+                int count = u2();
+                for (int i = 0; i < count; i++) {
+                    readElementValue(values);
+                }
+                break;
+            default: // constants and classes
+                position += 2;
+                break;
+            }
+        }
+
+        private String utf8(int index) {
+            String value = strings[index];
+            if (value == null) {
+                int offset = offsets[index] + 1;
+                try {
+                    // Modified UTF-8 with the length before, as DataInput reads it
+                    value = new DataInputStream(new ByteArrayInputStream(bytes, offset, u2(bytes, offset) + 2)).readUTF();
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("Invalid constant " + index, e);
+                }
+                strings[index] = value;
+            }
+            return value;
+        }
+
+        private int u2() {
+            int value = u2(bytes, position);
+            position += 2;
+            return value;
+        }
+
+        private static int u2(byte[] bytes, int offset) {
+            return ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+        }
+
+        private static int u4(byte[] bytes, int offset) {
+            return (u2(bytes, offset) << 16) | u2(bytes, offset + 2);
+        }
+
+        private static boolean startsWith(byte[] bytes, int offset, int length, byte[] prefix) {
+            if (length < prefix.length) {
+                return false;
+            }
+            for (int i = 0; i < prefix.length; i++) {
+                if (bytes[offset + i] != prefix[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int indexOf(byte[] bytes, int from, int to, byte[] pattern) {
+            int last = to - pattern.length;
+            for (int i = from; i <= last; i++) {
+                if (bytes[i] == pattern[0] && startsWith(bytes, i, pattern.length, pattern)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * A class, field or method with string values of its Spring annotations.
+     */
+    private static final class Element {
+        private final String name;
+        private final String descriptor;
+        private final List<String> values = new ArrayList<>();
+        private final List<List<String>> parameterValues = new ArrayList<>();
+        private final List<Boolean> parameterDeprecated = new ArrayList<>();
+        private boolean deprecated;
+
+        Element(String name, String descriptor) {
+            this.name = name;
+            this.descriptor = descriptor;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package org.springframework.configuration.maven.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.configurationprocessor.json_shade.json.JSONException;
+import org.springframework.configurationprocessor.json_shade.json.JSONObject;
+
+/**
+ * Durations and counts of the phases of a goal, e.g. parsing of xml files or rendering of document sections.
+ * <p>
+ * A phase is timed by {@link #start(String)} as many times as it runs and counts anything it processes by
+ * {@link #count(String, String, long)}: files, bytes, items, sections. Phases may nest, e.g. probing of inputs is
+ * a part of input discovery, so durations of phases are not to be summed up. Phases are kept in the order they
+ * started first. Metrics are collected from any thread.
+ * <p>
+ * Metrics of every goal are written into one json file, the entry of a goal replaces the one of its previous run:
+ * <pre>
+ * {
+ *   "generate-xml-properties-metadata": {
+ *     "durationMs": 42.1,
+ *     "phases": {
+ *       "xml.parse": {"calls": 3, "durationMs": 20.5, "files": 3, "bytes": 10240},
+ *       ...
+ *     }
+ *   }
+ * }
+ * </pre>
+ *
+ * @author tia
+ * @since 1.1
+ */
+public class BuildMetrics {
+
+    /**
+     * Default metrics file in the build directory.
+     */
+    public static final String FILE_NAME = "spring-properties-metrics.json";
+
+    private static final String CALLS = "calls";
+    private static final String DURATION = "durationMs";
+
+    private final Map<String, Phase> phases = new LinkedHashMap<>();
+    private final long start = System.nanoTime();
+
+    /**
+     * Starts timing of one run of the phase. The run ends when the timer is closed.
+     */
+    public Timer start(String phase) {
+        return new Timer(phase(phase));
+    }
+
+    /**
+     * Adds the amount to the counter of the phase.
+     */
+    public void count(String phase, String counter, long amount) {
+        phase(phase).counters.computeIfAbsent(counter, key -> new LongAdder()).add(amount);
+    }
+
+    private Phase phase(String name) {
+        synchronized (phases) {
+            return phases.computeIfAbsent(name, key -> new Phase());
+        }
+    }
+
+    /**
+     * Writes the metrics as the entry of the goal into the file, keeping entries of other goals.
+     */
+    public void write(Path file, String goal) throws IOException {
+        JSONObject document = null;
+        if (Files.isRegularFile(file)) {
+            try {
+                document = new JSONObject(Files.readString(file, StandardCharsets.UTF_8));
+            } catch (JSONException e) {
+                // Not ours or truncated, start again
+            }
+        }
+        try {
+            if (document == null) {
+                document = new JSONObject();
+            }
+            document.put(goal, toJson());
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Files.writeString(file, document.toString(2), StandardCharsets.UTF_8);
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    JSONObject toJson() throws JSONException {
+        JSONObject goal = new JSONObject();
+        goal.put(DURATION, millis(System.nanoTime() - start));
+        JSONObject phasesJson = new JSONObject();
+        for (Map.Entry<String, Phase> entry : snapshot().entrySet()) {
+            Phase phase = entry.getValue();
+            JSONObject phaseJson = new JSONObject();
+            phaseJson.put(CALLS, phase.calls.sum());
+            phaseJson.put(DURATION, millis(phase.nanos.sum()));
+            for (Map.Entry<String, Long> counter : phase.getCounters().entrySet()) {
+                phaseJson.put(counter.getKey(), counter.getValue().longValue());
+            }
+            phasesJson.put(entry.getKey(), phaseJson);
+        }
+        goal.put("phases", phasesJson);
+        return goal;
+    }
+
+    /**
+     * Returns lines of a table of the phases: name, calls, duration and counters.
+     */
+    public List<String> summary() {
+        Map<String, Phase> snapshot = snapshot();
+        int width = "phase".length();
+        for (String name : snapshot.keySet()) {
+            width = Math.max(width, name.length());
+        }
+        String format = "%-" + width + "s %8s %12s  %s";
+        List<String> lines = new ArrayList<>(snapshot.size() + 2);
+        lines.add(String.format(Locale.ROOT, format, "phase", CALLS, "ms", "counts"));
+        for (Map.Entry<String, Phase> entry : snapshot.entrySet()) {
+            Phase phase = entry.getValue();
+            StringBuilder counters = new StringBuilder();
+            for (Map.Entry<String, Long> counter : phase.getCounters().entrySet()) {
+                if (counters.length() > 0) {
+                    counters.append(", ");
+                }
+                counters.append(counter.getKey()).append('=').append(counter.getValue());
+            }
+            lines.add(String.format(Locale.ROOT, format, entry.getKey(), phase.calls.sum(),
+                    String.format(Locale.ROOT, "%.1f", millis(phase.nanos.sum())), counters));
+        }
+        lines.add(String.format(Locale.ROOT, format, "total", "",
+                String.format(Locale.ROOT, "%.1f", millis(System.nanoTime() - start)), ""));
+        return lines;
+    }
+
+    private Map<String, Phase> snapshot() {
+        synchronized (phases) {
+            return new LinkedHashMap<>(phases);
+        }
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 100_000.0) / 10.0;
+    }
+
+    private static final class Phase {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final Map<String, LongAdder> counters = Collections.synchronizedMap(new LinkedHashMap<>());
+
+        Map<String, Long> getCounters() {
+            Map<String, Long> values = new LinkedHashMap<>();
+            synchronized (counters) {
+                counters.forEach((name, counter) -> values.put(name, counter.sum()));
+            }
+            return values;
+        }
+    }
+
+    /**
+     * One run of a phase.
+     */
+    public static final class Timer implements AutoCloseable {
+        private final Phase phase;
+        private final long start = System.nanoTime();
+
+        private Timer(Phase phase) {
+            this.phase = phase;
+        }
+
+        @Override
+        public void close() {
+            phase.nanos.add(System.nanoTime() - start);
+            phase.calls.increment();
+        }
+    }
+}
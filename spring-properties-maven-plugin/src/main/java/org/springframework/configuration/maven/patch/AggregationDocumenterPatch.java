@@ -1,28 +1,44 @@
 package org.springframework.configuration.maven.patch;
 
-import java.io.FileWriter;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.reflect.Constructor;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import com.github.jknack.handlebars.internal.lang3.StringUtils;
-import com.github.jknack.handlebars.internal.lang3.tuple.ImmutablePair;
-import com.github.jknack.handlebars.internal.lang3.tuple.Pair;
 import org.rodnansol.core.generator.DocumentGenerationException;
-import org.rodnansol.core.generator.resolver.InputFileResolutionStrategy;
-import org.rodnansol.core.generator.resolver.MetadataInputResolverContext;
 import org.rodnansol.core.generator.template.TemplateMode;
 import org.rodnansol.core.generator.template.TemplateType;
 import org.rodnansol.core.generator.template.compiler.TemplateCompiler;
 import org.rodnansol.core.generator.template.compiler.TemplateCompilerMemoryStoreConstants;
 import org.rodnansol.core.generator.template.customization.TemplateCustomization;
 import org.rodnansol.core.generator.template.data.MainTemplateData;
+import org.rodnansol.core.generator.template.data.Property;
 import org.rodnansol.core.generator.template.data.PropertyGroup;
 import org.rodnansol.core.generator.template.data.SubTemplateData;
+import org.rodnansol.core.generator.template.data.TemplateData;
 import org.rodnansol.core.generator.writer.AggregationDocumenter;
 import org.rodnansol.core.generator.writer.CombinedInput;
 import org.rodnansol.core.generator.writer.CreateAggregationCommand;
@@ -32,122 +48,384 @@ import org.rodnansol.core.generator.writer.postprocess.PropertyGroupFilterServic
 import org.rodnansol.core.util.CoreFileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.configurationprocessor.metadata.ConfigurationMetadata;
+import org.springframework.configuration.maven.metrics.BuildMetrics;
+import org.springframework.configuration.maven.patch.MetadataDiscovery.DiscoveredMetadata;
 
 public class AggregationDocumenterPatch {
     private static final Logger LOGGER = LoggerFactory.getLogger(AggregationDocumenter.class);
+    private static final String GENERATOR_FINGERPRINT = new Fingerprint()
+            .add(codeSourceOf(AggregationDocumenterPatch.class))
+            .add(codeSourceOf(TemplateCompiler.class))
+            .toString();
+
     private final MetadataReaderPatch metadataReader;
-    private final TemplateCompiler templateCompiler;
-    private final MetadataInputResolverContext metadataInputResolverContext;
+    private final Supplier<TemplateCompiler> templateCompilerSupplier;
+    private final MetadataDiscovery metadataDiscovery;
     private final PropertyGroupFilterService propertyGroupFilterService;
+    private final Function<File, RenderCache> renderCacheFactory;
+    private final String settingsFingerprint;
+    private LocalDateTime generationDate;
+    private BuildMetrics metrics = new BuildMetrics();
+
+    public AggregationDocumenterPatch(MetadataReaderPatch metadataReader, TemplateCompiler templateCompiler, MetadataDiscovery metadataDiscovery, PropertyGroupFilterService propertyGroupFilterService) {
+        this(metadataReader, () -> templateCompiler, metadataDiscovery, propertyGroupFilterService, null, null);
+    }
 
-    public AggregationDocumenterPatch(MetadataReaderPatch metadataReader, TemplateCompiler templateCompiler, MetadataInputResolverContext metadataInputResolverContext, PropertyGroupFilterService propertyGroupFilterService) {
+    /**
+     * @param templateCompilerSupplier supplies template compiler of a document when something is to be rendered.
+     * @param renderCacheFactory returns cache of the previous generation of the given output used to skip it or
+     *                           re-render changed sections only, may be {@code null}.
+     * @param settingsFingerprint fingerprint of settings affecting the output which are not in the command, e.g. the compiler name.
+     * @since 1.1
+     */
+    public AggregationDocumenterPatch(MetadataReaderPatch metadataReader, Supplier<TemplateCompiler> templateCompilerSupplier, MetadataDiscovery metadataDiscovery,
+                                      PropertyGroupFilterService propertyGroupFilterService, Function<File, RenderCache> renderCacheFactory, String settingsFingerprint) {
         this.metadataReader = metadataReader;
-        this.templateCompiler = templateCompiler;
-        this.metadataInputResolverContext = metadataInputResolverContext;
+        this.templateCompilerSupplier = templateCompilerSupplier;
+        this.metadataDiscovery = metadataDiscovery;
         this.propertyGroupFilterService = propertyGroupFilterService;
+        this.renderCacheFactory = renderCacheFactory;
+        this.settingsFingerprint = settingsFingerprint;
+    }
+
+    /**
+     * Returns a new filter service with the default post processors, for one execution. Its post processors are not
+     * public, so the service is created by its private constructor, {@link PropertyGroupFilterService#INSTANCE}
+     * is returned if it is not accessible.
+     *
+     * @since 1.1
+     */
+    public static PropertyGroupFilterService newPropertyGroupFilterService() {
+        try {
+            Constructor<PropertyGroupFilterService> constructor = PropertyGroupFilterService.class.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return constructor.newInstance();
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.debug("Unable to create:[{}]", PropertyGroupFilterService.class.getName(), e);
+            return PropertyGroupFilterService.INSTANCE;
+        }
+    }
+
+    /**
+     * Sets the generation date shown by the documents, e.g. for reproducible builds. The current time by default.
+     *
+     * @since 1.1
+     */
+    public void setGenerationDate(LocalDateTime generationDate) {
+        this.generationDate = generationDate;
+    }
+
+    /**
+     * Sets metrics to record phases of the generation to: reading of metadata, rendering of sections and writing
+     * of every document type.
+     *
+     * @since 1.1
+     */
+    public void setMetrics(BuildMetrics metrics) {
+        this.metrics = metrics;
     }
 
     /**
      * Aggregates the incoming inputs into one big file and writes it to the disk.
+     * <p>
+     * In {@link TemplateMode#COMPACT} mode all the properties are rendered at once. In other modes sections are
+     * rendered and written one by one into a temporary file and released, then header, sections and footer are copied
+     * to the output. So only the data of the header and footer are kept in memory: they get the groups of every section
+     * without properties.
+     * <p>
+     * If a render cache is given, generation is skipped when the output was generated from the same inputs, templates
+     * and settings, and in non-{@link TemplateMode#COMPACT} modes only the sections with changed inputs are rendered.
      *
      * @param createAggregationCommand command contains necessary information for the aggregation.
      * @throws DocumentGenerationException if the output can not be written to disk or during the template compilation any error occurs.
      */
     public void createDocumentsAndAggregate(CreateAggregationCommand createAggregationCommand) {
         Objects.requireNonNull(createAggregationCommand, "createAggregationCommand is NULL");
-        LOGGER.debug("Creating documents and aggregating them based on the incoming command:[{}]", createAggregationCommand);
-        Pair<List<SubTemplateData>, List<PropertyGroup>> result = createSubTemplateDataAndPropertyGroupList(createAggregationCommand);
+        createDocumentsAndAggregate(List.of(createAggregationCommand), null);
+    }
+
+    /**
+     * Aggregates the same inputs into several documents, e.g. of different {@link TemplateType}s, in a single pass.
+     * <p>
+     * Metadata of every input is read and converted to property groups once. Each document gets its own copy of
+     * the groups, because filtering of groups and properties depends on the template customization of the document.
+     * Otherwise every document is generated as by {@link #createDocumentsAndAggregate(CreateAggregationCommand)}.
+     *
+     * @param createAggregationCommands commands with the same inputs in the same order.
+     * @param executor renders the documents in parallel, section by section. {@code null} to render them in the current thread.
+     * @throws DocumentGenerationException if an output can not be written to disk or during the template compilation any error occurs.
+     * @since 1.1
+     */
+    public void createDocumentsAndAggregate(List<CreateAggregationCommand> createAggregationCommands, Executor executor) {
+        Objects.requireNonNull(createAggregationCommands, "createAggregationCommands is NULL");
+        List<CombinedInput> combinedInputs = createAggregationCommands.isEmpty() ? List.of()
+                : createAggregationCommands.get(0).getCombinedInputs();
+        List<Document> documents = new ArrayList<>(createAggregationCommands.size());
+        for (CreateAggregationCommand createAggregationCommand : createAggregationCommands) {
+            LOGGER.debug("Creating documents and aggregating them based on the incoming command:[{}]", createAggregationCommand);
+            if (!sameInputs(combinedInputs, createAggregationCommand.getCombinedInputs())) {
+                throw new IllegalArgumentException("Commands of documents have different inputs:[" + createAggregationCommand.getOutput() + "]");
+            }
+            Document document;
+            boolean upToDate;
+            try (BuildMetrics.Timer timer = metrics.start("docs.check")) {
+                document = new Document(createAggregationCommand);
+                upToDate = document.isUpToDate();
+            }
+            metrics.count("docs.check", "documents", 1);
+            metrics.count("docs.check", "upToDate", upToDate ? 1 : 0);
+            if (upToDate) {
+                LOGGER.info("Document:[{}] is up to date", createAggregationCommand.getOutput());
+            } else {
+                documents.add(document);
+            }
+        }
+        if (documents.isEmpty()) {
+            return;
+        }
+
         try {
-            templateCompiler.getMemoryStore().addItemToMemory(TemplateCompilerMemoryStoreConstants.TEMPLATE_CUSTOMIZATION, createAggregationCommand.getTemplateCustomization());
-            createAndWriteContent(createAggregationCommand, result.getLeft(), result.getRight());
+            forEach(documents, null, Document::open);
+            for (int i = 0; i < combinedInputs.size(); i++) {
+                CombinedInput entry = combinedInputs.get(i);
+                LOGGER.debug("Processing entry:[{}]", entry);
+                try {
+                    List<Document> toRender = new ArrayList<>(documents.size());
+                    for (Document document : documents) {
+                        if (!document.takeCachedSection(i)) {
+                            toRender.add(document);
+                        }
+                    }
+                    if (toRender.isEmpty()) {
+                        continue;
+                    }
+                    List<PropertyGroup> groups = readPropertyGroups(entry, toRender);
+                    if (groups == null) {
+                        toRender.forEach(Document::setStale);
+                        continue;
+                    }
+                    int section = i;
+                    boolean shared = toRender.size() > 1;
+                    forEach(toRender, executor, document -> document.renderSection(section, shared ? copyOf(groups) : groups));
+                } finally {
+                    metadataDiscovery.release(entry.getInput());
+                }
+            }
+            forEach(documents, executor, Document::write);
+        } catch (IOException e) {
+            throw new DocumentGenerationException("Error during writing content to file...", e);
         } finally {
-            templateCompiler.getMemoryStore().resetMemory();
+            for (Document document : documents) {
+                document.close();
+            }
+        }
+
+        for (Document document : documents) {
+            document.setUpToDate();
         }
     }
 
-    private Pair<List<SubTemplateData>, List<PropertyGroup>> createSubTemplateDataAndPropertyGroupList(CreateAggregationCommand createAggregationCommand) {
-        List<SubTemplateData> subTemplateDataList = new ArrayList<>(createAggregationCommand.getCombinedInputs().size());
-        List<PropertyGroup> propertyGroups = new ArrayList<>(createAggregationCommand.getCombinedInputs().size());
-        for (CombinedInput entry : createAggregationCommand.getCombinedInputs()) {
-            LOGGER.debug("Processing entry:[{}]", entry);
-            try (InputStream inputStream = getInputStreamFromFile(createAggregationCommand, entry)) {
-                List<PropertyGroup> groups = metadataReader.readPropertiesAsPropertyGroupList(inputStream);
-                filterGroupsAndProperties(createAggregationCommand.getTemplateCustomization(), entry, groups);
-                propertyGroups.addAll(groups);
-                subTemplateDataList.add(createModuleTemplateData(createAggregationCommand.getTemplateCustomization(), entry.getSectionName(), groups, entry.getDescription()));
-            } catch (DocumentGenerationException e) {
-                // [#68] Generate an empty file if the spring-configuration-metadata.json is missing
-                // Because of the introduction of the "failOnMissingInput" attribute this exception must be propagated
-                // Other exceptions can be just logged out
-                throw e;
-            } catch (Exception e) {
-                LOGGER.warn("Error during reading an entry:[" + entry.getInput() + "]", e);
+    private static boolean sameInputs(List<CombinedInput> combinedInputs, List<CombinedInput> other) {
+        if (combinedInputs.size() != other.size()) {
+            return false;
+        }
+        for (int i = 0; i < combinedInputs.size(); i++) {
+            if (!combinedInputs.get(i).getInput().getAbsoluteFile().equals(other.get(i).getInput().getAbsoluteFile())) {
+                return false;
             }
         }
-        return new ImmutablePair<>(subTemplateDataList, propertyGroups);
+        return true;
     }
 
-    private InputStream getInputStreamFromFile(CreateAggregationCommand createAggregationCommand, CombinedInput entry) {
-        return metadataInputResolverContext.getInputStreamFromFile(createAggregationCommand.getProject(),
-                entry.getInput(),
-                InputFileResolutionStrategy.ofBooleanValue(createAggregationCommand.isFailOnMissingInput()));
+    /**
+     * Runs the task for every document, in parallel if an executor is given, and waits for all of them.
+     */
+    private static void forEach(List<Document> documents, Executor executor, DocumentTask task) throws IOException {
+        if (executor == null || documents.size() < 2) {
+            for (Document document : documents) {
+                task.run(document);
+            }
+            return;
+        }
+        List<CompletableFuture<Void>> futures = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                try {
+                    task.run(document);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, executor));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
     }
 
-    void filterGroupsAndProperties(TemplateCustomization templateCustomization, CombinedInput entry, List<PropertyGroup> groups) {
-        propertyGroupFilterService.postProcessPropertyGroups(new PostProcessPropertyGroupsCommand(templateCustomization, groups, entry.getExcludedGroups(), entry.getIncludedGroups(), entry.getExcludedProperties(), entry.getIncludedProperties()));
+    private interface DocumentTask {
+        void run(Document document) throws IOException;
     }
 
-    private void createAndWriteContent(CreateAggregationCommand createAggregationCommand, List<SubTemplateData> subTemplateDataList, List<PropertyGroup> propertyGroups) {
-        MainTemplateData mainTemplateData = createMainTemplateData(createAggregationCommand, propertyGroups);
-        mainTemplateData.setSubTemplateDataList(subTemplateDataList);
-        ResolvedTemplate resolvedTemplate = new ResolvedTemplate(createAggregationCommand);
-        ImmutablePair<String, String> renderedHeaderAndFooter = renderHeaderAndFooter(resolvedTemplate, mainTemplateData);
-
-        TemplateMode templateMode = createAggregationCommand.getTemplateCustomization().getTemplateMode();
-        String aggregatedContent;
-        if (templateMode == TemplateMode.COMPACT){
-            aggregatedContent = renderContent(resolvedTemplate, mainTemplateData);
-        } else {
-            aggregatedContent = renderContent(resolvedTemplate, subTemplateDataList);
-        }
+    /**
+     * Fingerprint of everything but inputs affecting the output.
+     */
+    private String commandFingerprint(CreateAggregationCommand createAggregationCommand, ResolvedTemplate resolvedTemplate) {
+        TemplateCustomization templateCustomization = createAggregationCommand.getTemplateCustomization();
+        return new Fingerprint()
+                .add(GENERATOR_FINGERPRINT)
+                .add(settingsFingerprint)
+                .add(createAggregationCommand.getTemplateType().name())
+                .add(templateCustomization instanceof Serializable ? (Serializable) templateCustomization : String.valueOf(templateCustomization))
+                .add(templateSource(resolvedTemplate.getHeaderTemplate()))
+                .add(templateSource(resolvedTemplate.getContentTemplate()))
+                .add(templateSource(resolvedTemplate.getFooterTemplate()))
+                .add(createAggregationCommand.getAggregatedDocumentHeader())
+                .add(createAggregationCommand.getDescription())
+                .add(String.valueOf(createAggregationCommand.isFailOnMissingInput()))
+                .add(navigationOf(createAggregationCommand))
+                .toString();
+    }
 
-        writeRenderedSectionsToFile(createAggregationCommand, renderedHeaderAndFooter, aggregatedContent);
+    /**
+     * Links to other pages if the command is of a page of the document.
+     */
+    private static String navigationOf(CreateAggregationCommand createAggregationCommand) {
+        return createAggregationCommand instanceof DocumentPages.PageCommand
+                ? ((DocumentPages.PageCommand) createAggregationCommand).getNavigation() : null;
     }
 
-    private ImmutablePair<String, String> renderHeaderAndFooter(ResolvedTemplate resolvedTemplate, MainTemplateData mainTemplateData) {
-        String header = templateCompiler.compileTemplate(resolvedTemplate.getHeaderTemplate(), mainTemplateData);
-        String footer = templateCompiler.compileTemplate(resolvedTemplate.getFooterTemplate(), mainTemplateData);
-        return new ImmutablePair<>(header, footer);
+    private String sectionFingerprint(String commandFingerprint, CombinedInput entry) {
+        DiscoveredMetadata discoveredMetadata = metadataDiscovery.resolve(entry.getInput());
+        return new Fingerprint()
+                .add(commandFingerprint)
+                .add(entry.getSectionName())
+                .add(entry.getDescription())
+                .add(String.valueOf(entry.getIncludedGroups()))
+                .add(String.valueOf(entry.getExcludedGroups()))
+                .add(String.valueOf(entry.getIncludedProperties()))
+                .add(String.valueOf(entry.getExcludedProperties()))
+                .add(discoveredMetadata.getDigest())
+                .toString();
     }
 
-    private String renderContent(ResolvedTemplate resolvedTemplate, List<SubTemplateData> subTemplateDataList) {
-        return subTemplateDataList
-                .stream()
-                .map(templateData -> templateCompiler.compileTemplate(resolvedTemplate.getContentTemplate(), templateData))
-                .reduce("", String::concat);
+    /**
+     * Template name and the content if it is a file, templates of the documenter are covered by its jar.
+     */
+    private static String templateSource(String template) {
+        File file = new File(template);
+        if (file.isFile()) {
+            try {
+                return template + ':' + Fingerprint.of(Files.readAllBytes(file.toPath()));
+            } catch (IOException e) {
+                LOGGER.debug("Unable to read template:[{}]", file, e);
+            }
+        }
+        return template;
     }
 
-    private String renderContent(ResolvedTemplate resolvedTemplate, MainTemplateData mainTemplateData) {
-        return templateCompiler.compileTemplate(resolvedTemplate.getContentTemplate(), mainTemplateData);
+    /**
+     * Location, size and modification time of the jar containing the class.
+     */
+    private static String codeSourceOf(Class<?> type) {
+        try {
+            File location = new File(type.getProtectionDomain().getCodeSource().getLocation().toURI());
+            return location + ":" + location.length() + ":" + location.lastModified();
+        } catch (Exception e) {
+            return type.getName();
+        }
     }
 
-    private void writeRenderedSectionsToFile(CreateAggregationCommand createAggregationCommand, ImmutablePair<String, String> renderedHeaderAndFooter, String aggregatedContent) {
+    /**
+     * Returns groups of the input or {@code null} if the metadata can not be read.
+     */
+    private List<PropertyGroup> readPropertyGroups(CombinedInput entry, List<Document> documents) {
+        DiscoveredMetadata discoveredMetadata = metadataDiscovery.resolve(entry.getInput());
+        if (!discoveredMetadata.isFound()) {
+            for (Document document : documents) {
+                if (document.createAggregationCommand.isFailOnMissingInput()) {
+                    throw new DocumentGenerationException("Unable to locate the spring-configuration-metadata.json file from the given input:[" + entry.getInput() + "]");
+                }
+            }
+            return new ArrayList<>(); //must be modifiable
+        }
         try {
-            try (FileWriter fileWriter = new FileWriter(CoreFileUtils.initializeFileWithPath(createAggregationCommand.getOutput()))) {
-                LOGGER.debug("Writing aggregated content to file:[{}]", createAggregationCommand.getOutput());
-                fileWriter.append(renderedHeaderAndFooter.getLeft())
-                        .append(aggregatedContent)
-                        .append(renderedHeaderAndFooter.getRight());
+            ConfigurationMetadata metadata;
+            try (BuildMetrics.Timer timer = metrics.start("docs.parse")) {
+                metadata = discoveredMetadata.getMetadata();
             }
-        } catch (IOException e) {
-            throw new DocumentGenerationException("Error during writing content to file...", e);
+            metrics.count("docs.parse", "inputs", 1);
+            metrics.count("docs.parse", "bytes", discoveredMetadata.getSize());
+            metrics.count("docs.parse", "items", metadata.getItems().size());
+            List<PropertyGroup> groups;
+            try (BuildMetrics.Timer timer = metrics.start("docs.groups")) {
+                groups = metadataReader.readPropertiesAsPropertyGroupList(metadata);
+            }
+            metrics.count("docs.groups", "groups", groups.size());
+            return groups;
+        } catch (Exception e) {
+            LOGGER.warn("Error during reading an entry:[" + entry.getInput() + "]", e);
+            return null;
         }
     }
 
+    void filterGroupsAndProperties(TemplateCustomization templateCustomization, CombinedInput entry, List<PropertyGroup> groups) {
+        propertyGroupFilterService.postProcessPropertyGroups(new PostProcessPropertyGroupsCommand(templateCustomization, groups, entry.getExcludedGroups(), entry.getIncludedGroups(), entry.getExcludedProperties(), entry.getIncludedProperties()));
+    }
+
+    /**
+     * Copy of groups and their properties which filters of a document may change.
+     * Parent and children links are not copied: neither filters nor templates use them.
+     */
+    private static List<PropertyGroup> copyOf(List<PropertyGroup> propertyGroups) {
+        List<PropertyGroup> copy = new ArrayList<>(propertyGroups.size());
+        for (PropertyGroup propertyGroup : propertyGroups) {
+            List<Property> properties = new ArrayList<>(propertyGroup.getProperties().size());
+            for (Property property : propertyGroup.getProperties()) {
+                properties.add(new Property(property.getFqName(), property.getType(), property.getKey(), property.getDescription(),
+                        property.getDefaultValue(), property.getPropertyDeprecation()));
+            }
+            PropertyGroup groupCopy = new PropertyGroup(propertyGroup.getGroupName(), propertyGroup.getType(), propertyGroup.getSourceType(), properties);
+            groupCopy.setNested(propertyGroup.isNested());
+            groupCopy.setUnknownGroup(propertyGroup.isUnknownGroup());
+            copy.add(groupCopy);
+        }
+        return copy;
+    }
+
+    /**
+     * Copy of the group without properties, enough for the table of contents.
+     */
+    private static PropertyGroup outlineOf(PropertyGroup propertyGroup) {
+        PropertyGroup outline = new PropertyGroup(propertyGroup.getGroupName(), propertyGroup.getType(), propertyGroup.getSourceType(), List.of());
+        outline.setNested(propertyGroup.isNested());
+        outline.setUnknownGroup(propertyGroup.isUnknownGroup());
+        return outline;
+    }
+
+    private LocalDateTime getGenerationDate() {
+        return generationDate != null ? generationDate : LocalDateTime.now();
+    }
+
+    private static Writer newWriter(OutputStream outputStream) {
+        return new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    }
+
     private SubTemplateData createModuleTemplateData(TemplateCustomization templateCustomization, String sectionName, List<PropertyGroup> propertyGroups, String moduleDescription) {
         SubTemplateData subTemplateData = new SubTemplateDataPatch(sectionName, propertyGroups);
         subTemplateData.setTemplateCustomization(templateCustomization);
-        subTemplateData.setGenerationDate(LocalDateTime.now());
+        subTemplateData.setGenerationDate(getGenerationDate());
         subTemplateData.setModuleDescription(moduleDescription);
         return subTemplateData;
     }
@@ -156,11 +434,225 @@ public class AggregationDocumenterPatch {
         MainTemplateData mainTemplateData = new MainTemplateDataPatch(createAggregationCommand.getAggregatedDocumentHeader(), propertyGroups);
 
         mainTemplateData.setMainDescription(createAggregationCommand.getDescription());
-        mainTemplateData.setGenerationDate(LocalDateTime.now());
+        mainTemplateData.setGenerationDate(getGenerationDate());
         mainTemplateData.setTemplateCustomization(createAggregationCommand.getTemplateCustomization());
         return mainTemplateData;
     }
 
+    /**
+     * Generation state of one output document. It is used by one thread at a time.
+     */
+    private final class Document implements Closeable {
+        private final CreateAggregationCommand createAggregationCommand;
+        private final String renderPhase;
+        private final String writePhase;
+        private final ResolvedTemplate resolvedTemplate;
+        private final boolean compact;
+        private final RenderCache renderCache;
+        private final List<String> sectionFingerprints;
+        private final String documentFingerprint;
+        private final List<SubTemplateData> subTemplateDataList;
+        private final List<PropertyGroup> propertyGroups = new ArrayList<>();
+        private TemplateCompiler templateCompiler;
+        private File output;
+        private Path sectionsFile;
+        private OutputStream sectionsStream;
+        private Writer sectionsWriter;
+        private int rendered;
+        private boolean stale;
+
+        Document(CreateAggregationCommand createAggregationCommand) {
+            this.createAggregationCommand = createAggregationCommand;
+            String type = createAggregationCommand.getTemplateType().name().toLowerCase(Locale.ROOT);
+            this.renderPhase = "docs.render." + type;
+            this.writePhase = "docs.write." + type;
+            this.resolvedTemplate = new ResolvedTemplate(createAggregationCommand);
+            this.compact = createAggregationCommand.getTemplateCustomization().getTemplateMode() == TemplateMode.COMPACT;
+            this.renderCache = renderCacheFactory != null ? renderCacheFactory.apply(createAggregationCommand.getOutput()) : null;
+            this.subTemplateDataList = new ArrayList<>(createAggregationCommand.getCombinedInputs().size());
+            if (renderCache != null) {
+                String commandFingerprint = commandFingerprint(createAggregationCommand, resolvedTemplate);
+                sectionFingerprints = new ArrayList<>(createAggregationCommand.getCombinedInputs().size());
+                Fingerprint document = new Fingerprint().add(commandFingerprint);
+                for (CombinedInput entry : createAggregationCommand.getCombinedInputs()) {
+                    String sectionFingerprint = sectionFingerprint(commandFingerprint, entry);
+                    sectionFingerprints.add(sectionFingerprint);
+                    document.add(sectionFingerprint);
+                }
+                documentFingerprint = document.toString();
+            } else {
+                sectionFingerprints = null;
+                documentFingerprint = null;
+            }
+        }
+
+        boolean isUpToDate() {
+            return renderCache != null && renderCache.isUpToDate(documentFingerprint, createAggregationCommand.getOutput());
+        }
+
+        void open() throws IOException {
+            if (renderCache != null) {
+                renderCache.invalidate();
+            }
+            output = CoreFileUtils.initializeFileWithPath(createAggregationCommand.getOutput());
+            if (!compact) {
+                sectionsFile = Files.createTempFile(output.getAbsoluteFile().getParentFile().toPath(), output.getName(), ".sections");
+                sectionsStream = new BufferedOutputStream(Files.newOutputStream(sectionsFile));
+                sectionsWriter = newWriter(sectionsStream);
+            }
+        }
+
+        /**
+         * Copies the rendered section from the cache. Returns {@code false} if the section is to be rendered.
+         */
+        boolean takeCachedSection(int index) throws IOException {
+            String sectionFingerprint = sectionFingerprints != null && !compact ? sectionFingerprints.get(index) : null;
+            Path cachedSection = sectionFingerprint != null ? renderCache.getSection(sectionFingerprint) : null;
+            List<PropertyGroup> outlines = cachedSection != null ? renderCache.getOutlines(sectionFingerprint) : null;
+            if (outlines == null) {
+                return false;
+            }
+            CombinedInput entry = createAggregationCommand.getCombinedInputs().get(index);
+            LOGGER.debug("Section of entry:[{}] is taken from the cache", entry.getInput());
+            metrics.count(renderPhase, "cachedSections", 1);
+            sectionsWriter.flush();
+            Files.copy(cachedSection, sectionsStream);
+            addSection(entry, outlines);
+            return true;
+        }
+
+        void renderSection(int index, List<PropertyGroup> groups) throws IOException {
+            try (BuildMetrics.Timer timer = metrics.start(renderPhase)) {
+                renderSectionContent(index, groups);
+            }
+            metrics.count(renderPhase, "sections", 1);
+        }
+
+        private void renderSectionContent(int index, List<PropertyGroup> groups) throws IOException {
+            CombinedInput entry = createAggregationCommand.getCombinedInputs().get(index);
+            SubTemplateData subTemplateData;
+            try {
+                filterGroupsAndProperties(createAggregationCommand.getTemplateCustomization(), entry, groups);
+                subTemplateData = createModuleTemplateData(createAggregationCommand.getTemplateCustomization(), entry.getSectionName(), groups, entry.getDescription());
+            } catch (Exception e) {
+                LOGGER.warn("Error during reading an entry:[" + entry.getInput() + "]", e);
+                setStale();
+                return;
+            }
+            if (compact) {
+                propertyGroups.addAll(subTemplateData.getPropertyGroups());
+                subTemplateDataList.add(subTemplateData);
+                return;
+            }
+            String content = compileTemplate(resolvedTemplate.getContentTemplate(), subTemplateData);
+            sectionsWriter.write(content);
+            rendered++;
+
+            List<PropertyGroup> outlines = new ArrayList<>(subTemplateData.getPropertyGroups().size());
+            for (PropertyGroup propertyGroup : subTemplateData.getPropertyGroups()) {
+                outlines.add(outlineOf(propertyGroup));
+            }
+            if (sectionFingerprints != null) {
+                renderCache.putSection(sectionFingerprints.get(index), content, outlines);
+            }
+            addSection(entry, outlines);
+        }
+
+        private void addSection(CombinedInput entry, List<PropertyGroup> outlines) {
+            propertyGroups.addAll(outlines);
+            subTemplateDataList.add(createModuleTemplateData(createAggregationCommand.getTemplateCustomization(), entry.getSectionName(), outlines, entry.getDescription()));
+        }
+
+        /**
+         * Writes header, sections and footer to the output.
+         */
+        void write() throws IOException {
+            try (BuildMetrics.Timer timer = metrics.start(writePhase)) {
+                writeContent();
+            }
+            metrics.count(writePhase, "documents", 1);
+            metrics.count(writePhase, "bytes", output.length());
+        }
+
+        private void writeContent() throws IOException {
+            MainTemplateData mainTemplateData = createMainTemplateData(createAggregationCommand, propertyGroups);
+            mainTemplateData.setSubTemplateDataList(subTemplateDataList);
+
+            LOGGER.debug("Writing aggregated content to file:[{}]", output);
+            try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(output.toPath()));
+                 Writer writer = newWriter(outputStream)) {
+                String header = compileTemplate(resolvedTemplate.getHeaderTemplate(), mainTemplateData);
+                String footer = compileTemplate(resolvedTemplate.getFooterTemplate(), mainTemplateData);
+                if (createAggregationCommand instanceof DocumentPages.PageCommand) {
+                    header = ((DocumentPages.PageCommand) createAggregationCommand).decorateHeader(header, compact);
+                    footer = ((DocumentPages.PageCommand) createAggregationCommand).decorateFooter(footer, compact);
+                }
+                writer.write(header);
+                if (compact) {
+                    writer.write(compileTemplate(resolvedTemplate.getContentTemplate(), mainTemplateData));
+                } else {
+                    LOGGER.debug("Sections rendered:[{}], taken from the cache:[{}]", rendered, subTemplateDataList.size() - rendered);
+                    sectionsWriter.close();
+                    writer.flush();
+                    Files.copy(sectionsFile, outputStream);
+                }
+                writer.write(footer);
+            }
+        }
+
+        /**
+         * Marks the document as written without some of its sections, so the next run generates it again.
+         */
+        void setStale() {
+            stale = true;
+        }
+
+        /**
+         * Records the fingerprint of the document unless a section failed to be read or rendered.
+         */
+        void setUpToDate() {
+            if (stale) {
+                LOGGER.debug("Document:[{}] misses sections, it is generated again next time", output);
+                return;
+            }
+            if (renderCache != null) {
+                if (!compact) {
+                    renderCache.retainSections(new HashSet<>(sectionFingerprints));
+                }
+                renderCache.setUpToDate(documentFingerprint);
+            }
+        }
+
+        /**
+         * Compiles the template in the current thread: the memory store of the compiler is thread bound.
+         */
+        private String compileTemplate(String template, TemplateData templateData) {
+            if (templateCompiler == null) {
+                templateCompiler = templateCompilerSupplier.get();
+            }
+            try {
+                templateCompiler.getMemoryStore().addItemToMemory(TemplateCompilerMemoryStoreConstants.TEMPLATE_CUSTOMIZATION, createAggregationCommand.getTemplateCustomization());
+                return templateCompiler.compileTemplate(template, templateData);
+            } finally {
+                templateCompiler.getMemoryStore().resetMemory();
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                if (sectionsWriter != null) {
+                    sectionsWriter.close();
+                }
+                if (sectionsFile != null) {
+                    Files.deleteIfExists(sectionsFile);
+                }
+            } catch (IOException e) {
+                LOGGER.warn("Unable to delete:[{}]", sectionsFile, e);
+            }
+        }
+    }
+
     static class ResolvedTemplate {
         private final String headerTemplate;
         private final String contentTemplate;
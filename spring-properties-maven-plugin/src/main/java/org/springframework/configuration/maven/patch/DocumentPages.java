@@ -0,0 +1,302 @@
+package org.springframework.configuration.maven.patch;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import org.rodnansol.core.generator.DocumentGenerationException;
+import org.rodnansol.core.generator.template.TemplateType;
+import org.rodnansol.core.generator.writer.CombinedInput;
+import org.rodnansol.core.generator.writer.CreateAggregationCommand;
+import org.rodnansol.core.util.CoreFileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes an aggregated document as pages of a given number of sections and an index linking them.
+ * <p>
+ * Every page is a complete document rendered by {@link AggregationDocumenterPatch} with links to the index and
+ * the neighbour pages, so pages are generated and skipped as up-to-date independently. The index is written to
+ * the output of the document, pages are written next to it as {@code <name>-<page number>.<extension>}. The pages
+ * written are recorded in a manifest next to the index, so pages no longer written are deleted by the next generation.
+ *
+ * @author tia
+ * @since 1.1
+ */
+public class DocumentPages {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DocumentPages.class);
+
+    private final AggregationDocumenterPatch aggregationDocumenter;
+    private final int sectionsPerPage;
+
+    public DocumentPages(AggregationDocumenterPatch aggregationDocumenter, int sectionsPerPage) {
+        if (sectionsPerPage < 1) {
+            throw new IllegalArgumentException("sectionsPerPage must be positive: " + sectionsPerPage);
+        }
+        this.aggregationDocumenter = Objects.requireNonNull(aggregationDocumenter, "aggregationDocumenter is NULL");
+        this.sectionsPerPage = sectionsPerPage;
+    }
+
+    /**
+     * Writes pages and indexes of documents.
+     *
+     * @param createAggregationCommands commands with the same inputs in the same order, e.g. of different types.
+     * @param executor renders the documents of a page in parallel, may be {@code null}.
+     * @see AggregationDocumenterPatch#createDocumentsAndAggregate(List, Executor)
+     */
+    public void createPagesAndIndexes(List<CreateAggregationCommand> createAggregationCommands, Executor executor) {
+        if (createAggregationCommands.isEmpty()) {
+            return;
+        }
+        int sections = createAggregationCommands.get(0).getCombinedInputs().size();
+        int pageCount = Math.max(1, (sections + sectionsPerPage - 1) / sectionsPerPage);
+        for (int page = 0; page < pageCount; page++) {
+            List<CreateAggregationCommand> pageCommands = new ArrayList<>(createAggregationCommands.size());
+            for (CreateAggregationCommand createAggregationCommand : createAggregationCommands) {
+                pageCommands.add(new PageCommand(createAggregationCommand, page, pageCount, sectionsPerPage));
+            }
+            aggregationDocumenter.createDocumentsAndAggregate(pageCommands, executor);
+        }
+        for (CreateAggregationCommand createAggregationCommand : createAggregationCommands) {
+            writeIndex(createAggregationCommand, pageCount);
+            deleteStalePages(createAggregationCommand.getOutput(), pageCount);
+        }
+    }
+
+    private void writeIndex(CreateAggregationCommand createAggregationCommand, int pageCount) {
+        TemplateType type = createAggregationCommand.getTemplateType();
+        File output = createAggregationCommand.getOutput();
+        StringBuilder index = new StringBuilder();
+        switch (type) {
+        case MARKDOWN:
+            index.append("# ").append(createAggregationCommand.getAggregatedDocumentHeader()).append("\n\n");
+            appendIfNotEmpty(index, createAggregationCommand.getDescription(), "\n\n");
+            break;
+        case ADOC:
+            index.append("= ").append(createAggregationCommand.getAggregatedDocumentHeader()).append("\n\n");
+            appendIfNotEmpty(index, createAggregationCommand.getDescription(), "\n\n");
+            break;
+        case HTML:
+            index.append("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"UTF-8\">\n<title>")
+                    .append(escape(createAggregationCommand.getAggregatedDocumentHeader())).append("</title>\n</head>\n<body>\n<h1>")
+                    .append(escape(createAggregationCommand.getAggregatedDocumentHeader())).append("</h1>\n");
+            if (createAggregationCommand.getDescription() != null && !createAggregationCommand.getDescription().isEmpty()) {
+                index.append("<p>").append(escape(createAggregationCommand.getDescription())).append("</p>\n");
+            }
+            index.append("<ul>\n");
+            break;
+        case XML:
+            index.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<pages name=\"")
+                    .append(escape(createAggregationCommand.getAggregatedDocumentHeader())).append("\">\n");
+            break;
+        }
+        List<CombinedInput> combinedInputs = createAggregationCommand.getCombinedInputs();
+        for (int i = 0; i < combinedInputs.size(); i++) {
+            String sectionName = combinedInputs.get(i).getSectionName();
+            String page = pageFile(output, i / sectionsPerPage).getName();
+            switch (type) {
+            case MARKDOWN:
+                index.append("- [").append(sectionName.replace("]", "\\]")).append("](").append(page).append(")\n");
+                break;
+            case ADOC:
+                index.append("* link:").append(page).append('[').append(sectionName.replace("]", "\\]")).append("]\n");
+                break;
+            case HTML:
+                index.append("<li><a href=\"").append(escape(page)).append("\">").append(escape(sectionName)).append("</a></li>\n");
+                break;
+            case XML:
+                index.append("    <section name=\"").append(escape(sectionName)).append("\" page=\"").append(escape(page)).append("\"/>\n");
+                break;
+            }
+        }
+        if (type == TemplateType.HTML) {
+            index.append("</ul>\n</body>\n</html>\n");
+        } else if (type == TemplateType.XML) {
+            index.append("</pages>\n");
+        }
+        write(output, index.toString());
+        LOGGER.debug("Index of:[{}] pages is written to:[{}]", pageCount, output);
+    }
+
+    /**
+     * Links to the index and the neighbour pages.
+     */
+    static String navigation(TemplateType type, File output, int page, int pageCount) {
+        List<String[]> links = new ArrayList<>(3);
+        links.add(new String[]{output.getName(), "Index"});
+        if (page > 0) {
+            links.add(new String[]{pageFile(output, page - 1).getName(), "Previous"});
+        }
+        if (page < pageCount - 1) {
+            links.add(new String[]{pageFile(output, page + 1).getName(), "Next"});
+        }
+        StringBuilder navigation = new StringBuilder();
+        for (String[] link : links) {
+            if (navigation.length() > 0) {
+                navigation.append(type == TemplateType.XML ? ", " : " | ");
+            }
+            switch (type) {
+            case MARKDOWN:
+                navigation.append('[').append(link[1]).append("](").append(link[0]).append(')');
+                break;
+            case ADOC:
+                navigation.append("link:").append(link[0]).append('[').append(link[1]).append(']');
+                break;
+            case HTML:
+                navigation.append("<a href=\"").append(escape(link[0])).append("\">").append(link[1]).append("</a>");
+                break;
+            case XML:
+                navigation.append(link[1].toLowerCase()).append(": ").append(link[0].replace("--", "- -"));
+                break;
+            }
+        }
+        switch (type) {
+        case HTML:
+            return "<nav>" + navigation + "</nav>\n";
+        case XML:
+            return "<!-- " + navigation + " -->\n";
+        default:
+            return navigation + "\n\n";
+        }
+    }
+
+    /**
+     * Page file of the document: {@code <name>-<page number>.<extension>} next to the index.
+     */
+    static File pageFile(File output, int page) {
+        String name = output.getName();
+        int dot = name.lastIndexOf('.');
+        String baseName = dot > 0 ? name.substring(0, dot) : name;
+        String extension = dot > 0 ? name.substring(dot) : "";
+        return new File(output.getAbsoluteFile().getParentFile(), baseName + '-' + (page + 1) + extension);
+    }
+
+    /**
+     * Manifest of the pages written for the document: {@code .<name>.pages} next to the index, a page file name
+     * per line.
+     */
+    static File manifestFile(File output) {
+        return new File(output.getAbsoluteFile().getParentFile(), '.' + output.getName() + ".pages");
+    }
+
+    /**
+     * Deletes pages listed in the manifest of the previous generation that are not written any more, then records
+     * the pages written now. Only files written as pages of the document are deleted, other files next to it are
+     * kept even if their names look like page names.
+     */
+    static void deleteStalePages(File output, int pageCount) {
+        File manifest = manifestFile(output);
+        Set<String> pages = new LinkedHashSet<>();
+        for (int page = 0; page < pageCount; page++) {
+            pages.add(pageFile(output, page).getName());
+        }
+        if (manifest.isFile()) {
+            Path directory = manifest.toPath().getParent();
+            try {
+                for (String name : Files.readAllLines(manifest.toPath(), StandardCharsets.UTF_8)) {
+                    Path file = directory.resolve(name).normalize();
+                    if (!name.isEmpty() && !pages.contains(name) && directory.equals(file.getParent())) {
+                        LOGGER.debug("Deleting stale page:[{}]", file);
+                        Files.deleteIfExists(file);
+                    }
+                }
+            } catch (IOException | InvalidPathException e) {
+                LOGGER.warn("Unable to delete stale pages of:[{}]", output, e);
+            }
+        }
+        write(manifest, String.join("\n", pages) + "\n");
+    }
+
+    /**
+     * Writes the file if its content is changed, so an unchanged index keeps its modification time.
+     */
+    private static void write(File output, String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        try {
+            Path path = CoreFileUtils.initializeFileWithPath(output).toPath();
+            if (!Files.isRegularFile(path) || !Arrays.equals(bytes, Files.readAllBytes(path))) {
+                Files.write(path, bytes);
+            }
+        } catch (IOException e) {
+            throw new DocumentGenerationException("Error during writing content to file...", e);
+        }
+    }
+
+    private static void appendIfNotEmpty(StringBuilder builder, String text, String suffix) {
+        if (text != null && !text.isEmpty()) {
+            builder.append(text).append(suffix);
+        }
+    }
+
+    private static String escape(String text) {
+        if (text == null) {
+            return null;
+        }
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    /**
+     * Command of one page: a subset of sections of the document and navigation links.
+     */
+    static final class PageCommand extends CreateAggregationCommand {
+        private final String navigation;
+
+        PageCommand(CreateAggregationCommand document, int page, int pageCount, int sectionsPerPage) {
+            super(document.getProject(), document.getAggregatedDocumentHeader(),
+                    document.getCombinedInputs().subList(Math.min(page * sectionsPerPage, document.getCombinedInputs().size()),
+                            Math.min((page + 1) * sectionsPerPage, document.getCombinedInputs().size())),
+                    document.getTemplateType(), document.getTemplateCustomization(), pageFile(document.getOutput(), page));
+            setDescription(document.getDescription());
+            setCustomTemplate(document.getCustomTemplate());
+            setFailOnMissingInput(document.isFailOnMissingInput());
+            this.navigation = navigation(document.getTemplateType(), document.getOutput(), page, pageCount);
+        }
+
+        String getNavigation() {
+            return navigation;
+        }
+
+        /**
+         * Adds the navigation to the rendered header where it does not break the document: Markdown gets it on
+         * top, AsciiDoc after the document header unless the header opens the table of compact mode.
+         */
+        String decorateHeader(String header, boolean compact) {
+            switch (getTemplateType()) {
+            case MARKDOWN:
+                return navigation + header;
+            case ADOC:
+                return compact ? header : header + '\n' + navigation;
+            default:
+                return header;
+            }
+        }
+
+        /**
+         * Adds the navigation to the rendered footer: HTML gets it before the end of the body, other types at the end.
+         */
+        String decorateFooter(String footer, boolean compact) {
+            switch (getTemplateType()) {
+            case HTML:
+                int body = footer.lastIndexOf("</body>");
+                return body < 0 ? footer + navigation : footer.substring(0, body) + navigation + footer.substring(body);
+            case ADOC:
+                return compact ? footer + '\n' + navigation : footer;
+            case XML:
+                return footer + '\n' + navigation;
+            default:
+                return footer;
+            }
+        }
+    }
+}
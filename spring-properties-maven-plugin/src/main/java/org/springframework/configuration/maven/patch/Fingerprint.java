@@ -0,0 +1,83 @@
+package org.springframework.configuration.maven.patch;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 of a sequence of values. Every value is length-prefixed, so different sequences do not collide.
+ *
+ * @author tia
+ * @since 1.1
+ */
+final class Fingerprint {
+
+    private final MessageDigest digest;
+
+    Fingerprint() {
+        this.digest = newDigest("SHA-256");
+    }
+
+    static String of(byte[] content) {
+        return toHex(newDigest("SHA-256").digest(content));
+    }
+
+    Fingerprint add(String value) {
+        if (value == null) {
+            digest.update((byte) 0);
+        } else {
+            digest.update((byte) 1);
+            add(value.getBytes(StandardCharsets.UTF_8));
+        }
+        return this;
+    }
+
+    Fingerprint add(byte[] value) {
+        int length = value.length;
+        digest.update(new byte[]{(byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length});
+        digest.update(value);
+        return this;
+    }
+
+    /**
+     * Adds serialized form of the value, e.g. a template customization.
+     */
+    Fingerprint add(Serializable value) {
+        if (value == null) {
+            return add((String) null);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream outputStream = new ObjectOutputStream(bytes)) {
+            outputStream.writeObject(value);
+        } catch (IOException e) {
+            // Not serializable in fact, fall back to its text
+            return add(value.getClass().getName() + ':' + value);
+        }
+        return add(bytes.toByteArray());
+    }
+
+    @Override
+    public String toString() {
+        return toHex(digest.digest());
+    }
+
+    static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    static MessageDigest newDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
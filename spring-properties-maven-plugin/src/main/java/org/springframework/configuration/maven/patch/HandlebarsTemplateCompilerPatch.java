@@ -0,0 +1,185 @@
+package org.springframework.configuration.maven.patch;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import com.github.jknack.handlebars.Handlebars;
+import com.github.jknack.handlebars.Options;
+import com.github.jknack.handlebars.Parser;
+import com.github.jknack.handlebars.Template;
+import com.github.jknack.handlebars.cache.TemplateCache;
+import com.github.jknack.handlebars.helper.I18nHelper;
+import com.github.jknack.handlebars.io.TemplateSource;
+import org.rodnansol.core.generator.DocumentGenerationException;
+import org.rodnansol.core.generator.template.compiler.TemplateCompiler;
+import org.rodnansol.core.generator.template.compiler.TemplateCompilerFactory;
+import org.rodnansol.core.generator.template.customization.TemplateCustomization;
+import org.rodnansol.core.generator.template.data.TemplateData;
+import org.rodnansol.core.generator.template.handlebars.HandlebarsTemplateCompiler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link HandlebarsTemplateCompiler} which parses a template once.
+ * <p>
+ * The original compiler parses the template on every call. Here compiled templates are kept in a cache of
+ * the execution keyed by the template name, shared by all sections and documents of the execution. On a miss the
+ * template is looked up by its name and content in a cache shared by all executions, e.g. modules of a reactor, so
+ * a template is parsed once per build. Compiled templates are immutable, so executions of a parallel build share
+ * them without locks.
+ * <p>
+ * Documents of an execution may be rendered in parallel, so the locale of the document is bound to the current thread
+ * instead of being set globally to the {@code i18n} helper.
+ *
+ * @author tia
+ * @since 1.1
+ */
+public class HandlebarsTemplateCompilerPatch implements TemplateCompiler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HandlebarsTemplateCompilerPatch.class);
+    private static final ThreadLocal<String> LOCALE = new ThreadLocal<>();
+
+    private final Handlebars handlebars;
+
+    private HandlebarsTemplateCompilerPatch(Handlebars handlebars) {
+        this.handlebars = handlebars;
+    }
+
+    /**
+     * Returns compilers of one execution. If the name is of the default {@link HandlebarsTemplateCompiler}, the
+     * compilers share Handlebars and compiled templates of the execution, otherwise every compiler is created by
+     * {@link TemplateCompilerFactory}.
+     */
+    public static Supplier<TemplateCompiler> newCompilers(String templateCompilerName) {
+        if (HandlebarsTemplateCompiler.class.getName().equals(templateCompilerName)) {
+            Handlebars handlebars = newHandlebars();
+            if (handlebars != null) {
+                return () -> new HandlebarsTemplateCompilerPatch(handlebars);
+            }
+            LOGGER.warn("Templates are not cached and the locale of documents rendered concurrently is not isolated");
+        }
+        return () -> TemplateCompilerFactory.getInstance(templateCompilerName);
+    }
+
+    /**
+     * Takes Handlebars configured by a new original compiler: its helpers and template loaders are not public.
+     * Returns {@code null} if it is not accessible.
+     */
+    private static Handlebars newHandlebars() {
+        try {
+            Field field = HandlebarsTemplateCompiler.class.getDeclaredField("handlebars");
+            field.setAccessible(true);
+            Handlebars handlebars = (Handlebars) field.get(new HandlebarsTemplateCompiler());
+            handlebars.with(new FilenameTemplateCache(handlebars.getCharset()));
+            handlebars.registerHelper(I18nHelper.i18n.name(), HandlebarsTemplateCompilerPatch::i18n);
+            return handlebars;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.debug("Unable to access Handlebars of:[{}]", HandlebarsTemplateCompiler.class.getName(), e);
+            return null;
+        }
+    }
+
+    @Override
+    public String compileTemplate(String templatePath, TemplateData templateData) throws DocumentGenerationException {
+        LOGGER.debug("Compiling template:[{}] with data:[{}]", templatePath, templateData);
+        Objects.requireNonNull(templatePath, "templatePath is NULL");
+        Objects.requireNonNull(templateData, "templateData is NULL");
+        TemplateCustomization templateCustomization = templateData.getTemplateCustomization();
+        if (templateCustomization != null && templateCustomization.getLocale() != null) {
+            LOCALE.set(Locale.forLanguageTag(templateCustomization.getLocale()).toString());
+        }
+        try {
+            return handlebars.compile(templatePath).apply(templateData);
+        } catch (IOException e) {
+            throw new DocumentGenerationException("Error during compiling the template with Handlebars engine", e);
+        } finally {
+            LOCALE.remove();
+        }
+    }
+
+    /**
+     * The {@code i18n} helper with the locale of the current thread, unless the template sets it.
+     */
+    private static Object i18n(String key, Options options) throws IOException {
+        String locale = LOCALE.get();
+        if (locale == null || options.hash.containsKey("locale")) {
+            return I18nHelper.i18n.apply(key, options);
+        }
+        Map<String, Object> hash = new HashMap<>(options.hash);
+        hash.put("locale", locale);
+        Options localized = new Options.Builder(options.handlebars, options.helperName, options.tagType, options.context, options.fn)
+                .setInverse(options.inverse)
+                .setParams(options.params)
+                .setHash(hash)
+                .setBlockParams(options.blockParams)
+                .build();
+        return I18nHelper.i18n.apply(key, localized);
+    }
+
+    /**
+     * Compiled templates of an execution keyed by template name: templates do not change during an execution, so a
+     * lookup neither reads nor hashes the template source. On a miss the source is read and hashed once and the
+     * template is taken from {@link #SHARED_TEMPLATES}, so an edited template is parsed again by the next execution.
+     * There are a few templates per document type, so the caches are not bounded.
+     */
+    private static final class FilenameTemplateCache implements TemplateCache {
+        /**
+         * Compiled templates of all executions keyed by fingerprint of the template name and content. Handlebars of
+         * every execution is configured the same way, so a template does not depend on the execution that parsed it.
+         */
+        private static final ConcurrentMap<String, Template> SHARED_TEMPLATES = new ConcurrentHashMap<>();
+
+        private final ConcurrentMap<String, Template> templates = new ConcurrentHashMap<>();
+        private final Charset charset;
+
+        FilenameTemplateCache(Charset charset) {
+            this.charset = charset;
+        }
+
+        @Override
+        public Template get(TemplateSource source, Parser parser) throws IOException {
+            Template template = templates.get(source.filename());
+            if (template == null) {
+                String key = new Fingerprint().add(source.filename()).add(source.content(charset)).toString();
+                template = SHARED_TEMPLATES.get(key);
+                if (template == null) {
+                    LOGGER.debug("Parsing template:[{}]", source.filename());
+                    template = parser.parse(source);
+                    Template previous = SHARED_TEMPLATES.putIfAbsent(key, template);
+                    if (previous != null) {
+                        template = previous;
+                    }
+                }
+                Template previous = templates.putIfAbsent(source.filename(), template);
+                if (previous != null) {
+                    template = previous;
+                }
+            }
+            return template;
+        }
+
+        @Override
+        public void evict(TemplateSource source) {
+            templates.remove(source.filename());
+        }
+
+        @Override
+        public void clear() {
+            templates.clear();
+        }
+
+        @Override
+        public TemplateCache setReload(boolean reload) {
+            // Templates do not change during an execution
+            return this;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package org.springframework.configuration.maven.patch;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.Objects;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.maven.artifact.Artifact;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persistent cache of `spring-configuration-metadata.json` found in dependency jars.
+ * <p>
+ * An entry is keyed by artifact coordinates, SHA-1, size and modification time of the jar, so it is shared by modules
+ * and builds on the machine, and a rewritten jar gets a new entry even if its checksum file is left stale.
+ * The metadata is stored gzipped as it is in the jar. A jar without metadata gets an empty entry,
+ * so it is not opened again.
+ * <p>
+ * The cache is best effort: errors are logged and the jar is read as if there is no cache.
+ *
+ * @author tia
+ * @since 1.1
+ */
+public class MetadataCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetadataCache.class);
+    private static final Pattern SHA1 = Pattern.compile("[0-9a-fA-F]{40}");
+
+    /**
+     * Metadata of a jar which has no `spring-configuration-metadata.json`.
+     */
+    static final byte[] NO_METADATA = new byte[0];
+
+    private final Path directory;
+
+    /**
+     * @param directory root directory of the cache. It is created on demand.
+     */
+    public MetadataCache(Path directory) {
+        this.directory = Objects.requireNonNull(directory, "directory is NULL");
+    }
+
+    /**
+     * Returns cached metadata, {@link #NO_METADATA} if the jar has no metadata or {@code null} if the
+     * artifact is not cached yet.
+     *
+     * @param entry path returned by {@link #entryOf(Artifact)}.
+     */
+    byte[] get(Path entry) {
+        try {
+            if (Files.size(entry) == 0) {
+                return NO_METADATA;
+            }
+            try (InputStream inputStream = new GZIPInputStream(Files.newInputStream(entry))) {
+                return inputStream.readAllBytes();
+            }
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            LOGGER.warn("Unable to read cached metadata:[{}], it is dropped", entry, e);
+            deleteQuietly(entry);
+            return null;
+        }
+    }
+
+    /**
+     * Stores metadata of the artifact. Use {@link #NO_METADATA} if the jar has no metadata.
+     *
+     * @param entry path returned by {@link #entryOf(Artifact)}.
+     */
+    void put(Path entry, byte[] metadata) {
+        Path tmp = null;
+        try {
+            Files.createDirectories(entry.getParent());
+            tmp = Files.createTempFile(entry.getParent(), entry.getFileName().toString(), ".tmp");
+            if (metadata.length > 0) {
+                try (OutputStream outputStream = new GZIPOutputStream(Files.newOutputStream(tmp))) {
+                    outputStream.write(metadata);
+                }
+            }
+            try {
+                Files.move(tmp, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, entry, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Unable to write cached metadata:[{}]", entry, e);
+            if (tmp != null) {
+                deleteQuietly(tmp);
+            }
+        }
+    }
+
+    /**
+     * Returns path of the cache entry or {@code null} if the artifact can not be cached.
+     */
+    Path entryOf(Artifact artifact) {
+        return entryOf(artifact, null);
+    }
+
+    /**
+     * Returns path of the cache entry of a variant of metadata, e.g. with metadata of xml files of the jar,
+     * or {@code null} if the artifact can not be cached.
+     *
+     * @param variant suffix of the entry name, {@code null} for metadata as it is in the jar
+     */
+    Path entryOf(Artifact artifact, String variant) {
+        if (artifact.getFile() == null || !artifact.getFile().isFile()) {
+            return null;
+        }
+        Path jar = artifact.getFile().toPath();
+        String sha1;
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(jar, BasicFileAttributes.class);
+            sha1 = sha1(jar);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to calculate SHA-1 of:[{}]", artifact.getFile(), e);
+            return null;
+        }
+        StringBuilder name = new StringBuilder(artifact.getArtifactId()).append('-').append(artifact.getVersion());
+        if (artifact.getClassifier() != null && !artifact.getClassifier().isEmpty()) {
+            name.append('-').append(artifact.getClassifier());
+        }
+        // The checksum file is not rewritten when the jar is, e.g. by 'install' or resolution of a snapshot
+        name.append('-').append(sha1)
+                .append('-').append(Long.toHexString(attributes.size()))
+                .append('-').append(Long.toHexString(attributes.lastModifiedTime().toMillis()));
+        if (variant != null) {
+            name.append('-').append(variant);
+        }
+        name.append(".json.gz");
+        return directory.resolve(artifact.getGroupId()).resolve(name.toString());
+    }
+
+    /**
+     * Takes SHA-1 from the checksum file the local repository keeps next to the jar, calculates it if there is none.
+     */
+    private static String sha1(Path jar) throws IOException {
+        Path checksum = jar.resolveSibling(jar.getFileName() + ".sha1");
+        if (Files.isRegularFile(checksum)) {
+            try (BufferedReader reader = Files.newBufferedReader(checksum, StandardCharsets.US_ASCII)) {
+                String line = reader.readLine();
+                if (line != null && line.length() >= 40 && SHA1.matcher(line.substring(0, 40)).matches()) {
+                    return line.substring(0, 40).toLowerCase();
+                }
+            }
+        }
+        MessageDigest digest = Fingerprint.newDigest("SHA-1");
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream inputStream = Files.newInputStream(jar)) {
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return Fingerprint.toHex(digest.digest());
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            LOGGER.debug("Unable to delete:[{}]", path, e);
+        }
+    }
+}
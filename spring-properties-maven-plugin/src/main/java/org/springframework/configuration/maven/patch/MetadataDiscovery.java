@@ -0,0 +1,373 @@
+package org.springframework.configuration.maven.patch;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.maven.artifact.Artifact;
+import org.rodnansol.core.generator.DocumentGenerationException;
+import org.rodnansol.core.generator.reader.MetadataConversionException;
+import org.rodnansol.core.project.Project;
+import org.rodnansol.core.util.CoreFileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.configuration.maven.bytecode.ClassFileScanner;
+import org.springframework.configuration.maven.metrics.BuildMetrics;
+import org.springframework.configuration.maven.xml.MetadataStore;
+import org.springframework.configuration.maven.xml.XmlMetadataScanner;
+import org.springframework.boot.configurationprocessor.metadata.ConfigurationMetadata;
+import org.springframework.boot.configurationprocessor.metadata.JsonMarshaller;
+import org.springframework.configurationprocessor.metadata.ItemMetadata;
+
+/**
+ * Resolves `spring-configuration-metadata.json` of documentation inputs (module directories, jars, plain files).
+ * <p>
+ * Every input is resolved once: a jar is opened once and the metadata entry is looked up in its central directory,
+ * a directory is probed with {@link Project#getPossibleMetadataFilePaths()}. The found metadata is kept, so the
+ * documenter does not read it again, and parsed when the documenter needs it.
+ *
+ * @author tia
+ * @since 1.1
+ */
+public class MetadataDiscovery {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetadataDiscovery.class);
+    private static final String PATH_IN_JAR_FILE = "META-INF/spring-configuration-metadata.json";
+
+    private final Project project;
+    private final MetadataCache cache;
+    private final Map<File, DiscoveredMetadata> discovered = new HashMap<>();
+    private BuildMetrics metrics = new BuildMetrics();
+    private XmlMetadataScanner jarXmlScanner;
+    private ClassFileScanner jarClassScanner;
+
+    /**
+     * @param project project used to resolve metadata paths inside of module directories.
+     */
+    public MetadataDiscovery(Project project) {
+        this(project, null);
+    }
+
+    /**
+     * @param project project used to resolve metadata paths inside of module directories.
+     * @param cache persistent cache of dependency jars metadata, may be {@code null}.
+     * @since 1.1
+     */
+    public MetadataDiscovery(Project project, MetadataCache cache) {
+        this.project = Objects.requireNonNull(project, "project is NULL");
+        this.cache = cache;
+    }
+
+    /**
+     * Sets metrics to record probing of inputs to.
+     *
+     * @since 1.1
+     */
+    public void setMetrics(BuildMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * If set, Spring xml files of jars without `spring-configuration-metadata.json` are scanned by the scanner
+     * and their properties become metadata of the jar.
+     *
+     * @since 1.1
+     */
+    public void setJarXmlScanner(XmlMetadataScanner jarXmlScanner) {
+        this.jarXmlScanner = jarXmlScanner;
+    }
+
+    /**
+     * If set, classes of jars without `spring-configuration-metadata.json` are scanned by the scanner
+     * and placeholders of their Spring annotations become metadata of the jar.
+     *
+     * @since 1.1
+     */
+    public void setJarClassScanner(ClassFileScanner jarClassScanner) {
+        this.jarClassScanner = jarClassScanner;
+    }
+
+    /**
+     * Resolves metadata of jar artifacts that are not resolved yet, several jars in parallel.
+     *
+     * @since 1.1
+     */
+    public void resolveAll(Collection<Artifact> artifacts) {
+        Map<File, Artifact> jars = new LinkedHashMap<>();
+        for (Artifact artifact : artifacts) {
+            File file = artifact.getFile();
+            if (file != null && CoreFileUtils.isJarOrZipFile(file) && !discovered.containsKey(file.getAbsoluteFile())) {
+                jars.putIfAbsent(file.getAbsoluteFile(), artifact);
+            }
+        }
+        Map<File, DiscoveredMetadata> resolved;
+        try (BuildMetrics.Timer timer = metrics.start("docs.jars")) {
+            resolved = jars.entrySet().parallelStream()
+                    .collect(Collectors.toMap(Map.Entry::getKey, entry -> isCached()
+                            ? discoverCached(entry.getValue(), entry.getKey())
+                            : discover(entry.getKey())));
+        }
+        metrics.count("docs.jars", "jars", resolved.size());
+        discovered.putAll(resolved);
+    }
+
+    /**
+     * Returns {@code true} if the input contains non-empty metadata.
+     */
+    public boolean hasMetadata(File input) {
+        DiscoveredMetadata metadata;
+        try (BuildMetrics.Timer timer = metrics.start("docs.probe")) {
+            metadata = resolve(input);
+        }
+        return countProbe(metadata);
+    }
+
+    /**
+     * Returns {@code true} if the artifact contains non-empty metadata. Jar artifacts are looked up in the cache first
+     * if jars are scanned.
+     */
+    public boolean hasMetadata(Artifact artifact) {
+        DiscoveredMetadata metadata;
+        try (BuildMetrics.Timer timer = metrics.start("docs.probe")) {
+            metadata = resolve(artifact);
+        }
+        return countProbe(metadata);
+    }
+
+    private boolean countProbe(DiscoveredMetadata metadata) {
+        boolean found = metadata.isFound() && metadata.getSize() > 0;
+        metrics.count("docs.probe", "inputs", 1);
+        metrics.count("docs.probe", "found", found ? 1 : 0);
+        metrics.count("docs.probe", "bytes", found ? metadata.getSize() : 0);
+        return found;
+    }
+
+    /**
+     * Returns resolved metadata of the artifact. Jar artifacts are looked up in the cache first if jars are scanned.
+     */
+    public DiscoveredMetadata resolve(Artifact artifact) {
+        File input = Objects.requireNonNull(artifact.getFile(), "artifact file is NULL");
+        if (!isCached() || !CoreFileUtils.isJarOrZipFile(input)) {
+            return resolve(input);
+        }
+        return discovered.computeIfAbsent(input.getAbsoluteFile(), file -> discoverCached(artifact, file));
+    }
+
+    /**
+     * Returns resolved metadata of the input. The input is read only on the first call.
+     */
+    public DiscoveredMetadata resolve(File input) {
+        Objects.requireNonNull(input, "input is NULL");
+        return discovered.computeIfAbsent(input.getAbsoluteFile(), this::discover);
+    }
+
+    /**
+     * Forgets parsed metadata of the input after it has been documented.
+     */
+    public void release(File input) {
+        discovered.remove(input.getAbsoluteFile());
+    }
+
+    private DiscoveredMetadata discover(File input) {
+        try {
+            if (CoreFileUtils.isJarOrZipFile(input)) {
+                return discoverInJar(input);
+            }
+            if (input.isDirectory()) {
+                for (String path : project.getPossibleMetadataFilePaths()) {
+                    File file = new File(input + path);
+                    if (file.isFile()) {
+                        return discoverInFile(input, file);
+                    }
+                    LOGGER.debug("Unable to locate spring-configuration-metadata.json in the following path:[{}]", file);
+                }
+                return DiscoveredMetadata.notFound(input);
+            }
+            if (input.isFile()) {
+                return discoverInFile(input, input);
+            }
+            return DiscoveredMetadata.notFound(input);
+        } catch (IOException e) {
+            throw new DocumentGenerationException("Unable to read the spring-configuration-metadata.json from the given input:[" + input + "]", e);
+        }
+    }
+
+    private DiscoveredMetadata discoverCached(Artifact artifact, File jar) {
+        Path entry = cache.entryOf(artifact, cacheVariant());
+        byte[] metadata = entry != null ? cache.get(entry) : null;
+        if (metadata == null) {
+            try {
+                metadata = readJarEntry(jar);
+            } catch (IOException e) {
+                throw new DocumentGenerationException("Unable to read the spring-configuration-metadata.json from the given input:[" + jar + "]", e);
+            }
+            if (entry != null) {
+                cache.put(entry, metadata == null ? MetadataCache.NO_METADATA : metadata);
+            }
+        } else {
+            LOGGER.debug("Metadata of:[{}] is taken from the cache:[{}]", jar, entry);
+            metrics.count("docs.probe", "cacheHits", 1);
+        }
+        if (metadata == null || metadata.length == 0) {
+            return DiscoveredMetadata.notFound(jar);
+        }
+        return new DiscoveredMetadata(jar, jar, metadata);
+    }
+
+    private DiscoveredMetadata discoverInJar(File jar) throws IOException {
+        byte[] metadata = readJarEntry(jar);
+        if (metadata == null) {
+            return DiscoveredMetadata.notFound(jar);
+        }
+        return new DiscoveredMetadata(jar, jar, metadata);
+    }
+
+    /**
+     * The cache is used only if jars without metadata entry are scanned: scanning of 245 jars takes 1.4 s, reading
+     * them from the cache 24 ms. Metadata entries of jars are read as fast as they are from the cache: 21 ms for 249
+     * jars of which 4 have metadata, 24 ms from the cache.
+     */
+    private boolean isCached() {
+        return cache != null && cacheVariant() != null;
+    }
+
+    /**
+     * Returns the name of metadata variant of jars without metadata entry, {@code null} if they are not scanned.
+     * The name includes output versions of the scanners, so entries of an older scanner are not used.
+     */
+    private String cacheVariant() {
+        String xml = "xml" + XmlMetadataScanner.OUTPUT_VERSION;
+        String classes = "classes" + ClassFileScanner.OUTPUT_VERSION;
+        if (jarXmlScanner == null) {
+            return jarClassScanner == null ? null : classes;
+        }
+        return jarClassScanner == null ? xml : xml + '-' + classes;
+    }
+
+    /**
+     * Returns content of the metadata entry or {@code null} if the jar does not have it.
+     * If the jar has no metadata entry, metadata of its Spring xml files and classes is returned if they are scanned.
+     */
+    private byte[] readJarEntry(File jar) throws IOException {
+        try (ZipFile zipFile = new ZipFile(jar)) {
+            ZipEntry entry = zipFile.getEntry(PATH_IN_JAR_FILE);
+            if (entry != null) {
+                try (InputStream inputStream = zipFile.getInputStream(entry)) {
+                    return inputStream.readAllBytes();
+                }
+            }
+        }
+        if (jarXmlScanner == null && jarClassScanner == null) {
+            return null;
+        }
+        Set<ItemMetadata> properties = new LinkedHashSet<>();
+        if (jarXmlScanner != null) {
+            properties.addAll(jarXmlScanner.scanJar(jar.toPath()));
+        }
+        if (jarClassScanner != null) {
+            properties.addAll(jarClassScanner.scanJar(jar.toPath()));
+        }
+        LOGGER.debug("Found {} properties in xml files and classes of:[{}]", properties.size(), jar);
+        return properties.isEmpty() ? null : MetadataStore.toJson(properties);
+    }
+
+    private DiscoveredMetadata discoverInFile(File input, File file) throws IOException {
+        return new DiscoveredMetadata(input, file, Files.readAllBytes(file.toPath()));
+    }
+
+    /**
+     * Metadata found for a documentation input. The content is parsed on the first {@link #getMetadata()} call.
+     */
+    public static final class DiscoveredMetadata {
+        private static final byte[] NOT_FOUND = new byte[0];
+
+        private final File input;
+        private final File location;
+        private final long size;
+        private final String digest;
+        private byte[] content;
+        private ConfigurationMetadata metadata;
+        private RuntimeException error;
+
+        DiscoveredMetadata(File input, File location, byte[] content) {
+            this.input = input;
+            this.location = location;
+            this.size = location != null ? content.length : -1;
+            this.digest = location != null ? Fingerprint.of(content) : null;
+            this.content = content;
+        }
+
+        static DiscoveredMetadata notFound(File input) {
+            return new DiscoveredMetadata(input, null, NOT_FOUND);
+        }
+
+        public File getInput() {
+            return input;
+        }
+
+        /**
+         * Metadata file or jar containing it. {@code null} if metadata is not found.
+         */
+        public File getLocation() {
+            return location;
+        }
+
+        /**
+         * Size of metadata in bytes, -1 if metadata is not found.
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * SHA-256 of metadata content, {@code null} if metadata is not found.
+         *
+         * @since 1.1
+         */
+        public String getDigest() {
+            return digest;
+        }
+
+        public boolean isFound() {
+            return location != null;
+        }
+
+        /**
+         * Returns parsed metadata.
+         *
+         * @throws MetadataConversionException if the metadata can not be parsed.
+         * @throws IllegalStateException if the metadata is not found.
+         */
+        public synchronized ConfigurationMetadata getMetadata() {
+            if (!isFound()) {
+                throw new IllegalStateException("Metadata is not found in " + input);
+            }
+            if (metadata == null && error == null) {
+                try {
+                    metadata = content.length == 0 ? new ConfigurationMetadata()
+                            : new JsonMarshaller().read(new ByteArrayInputStream(content));
+                } catch (Exception e) {
+                    error = new MetadataConversionException("Error during reading metadata from:[" + location + "]", e);
+                }
+                content = null;
+            }
+            if (error != null) {
+                throw error;
+            }
+            return metadata;
+        }
+    }
+}
@@ -2,8 +2,10 @@ package org.springframework.configuration.maven.patch;
 
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -31,13 +33,11 @@ import org.springframework.boot.configurationprocessor.metadata.JsonMarshaller;
  */
 public class MetadataReaderPatch {
 
-    public static final MetadataReaderPatch INSTANCE = new MetadataReaderPatch();
-
     private static final Logger LOGGER = LoggerFactory.getLogger(org.rodnansol.core.generator.reader.MetadataReader.class);
     private static final String PACKAGE_JAVA_LANG = "java.lang.";
     private static final String PACKAGE_JAVA_UTIL = "java.util.";
 
-    private MetadataReaderPatch() {
+    public MetadataReaderPatch() {
     }
 
     /**
@@ -75,6 +75,24 @@ public class MetadataReaderPatch {
                 return new ArrayList<>(); //must be modifiable
             }
             ConfigurationMetadata configurationMetadata = new JsonMarshaller().read(metadataStream);
+            return readPropertiesAsPropertyGroupList(configurationMetadata);
+        } catch (MetadataConversionException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new MetadataConversionException("Error during converting properties to list of ProperyGroups", e);
+        }
+    }
+
+    /**
+     * Returns a list of {@link PropertyGroup} instances from the already parsed metadata.
+     *
+     * @param configurationMetadata content of the <code>spring-configuration-metadata.json</code>.
+     * @return groups and properties converted to a List of {@link PropertyGroup}.
+     * @since 1.1
+     */
+    public List<PropertyGroup> readPropertiesAsPropertyGroupList(ConfigurationMetadata configurationMetadata) {
+        Objects.requireNonNull(configurationMetadata, "configurationMetadata is NULL");
+        try {
             Map<String, List<Property>> propertyMap = getPropertyMap(configurationMetadata);
             Map<String, List<PropertyGroup>> propertyGroupsByType = getPropertyGroups(configurationMetadata);
             updateGroupsWithPropertiesAndAssociations(propertyMap, propertyGroupsByType);
@@ -107,43 +125,57 @@ public class MetadataReaderPatch {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Assigns every property to the groups of its source type with the longest matching name and links nested groups
+     * to their parents. Group names of every type are indexed by a trie of name segments, so it takes one pass over
+     * properties and groups.
+     */
     private void updateGroupsWithPropertiesAndAssociations(Map<String, List<Property>> propertyMap, Map<String, List<PropertyGroup>> propertyGroupsByType) {
-        for (Map.Entry<String, List<PropertyGroup>> entry : propertyGroupsByType.entrySet()) {
-            List<PropertyGroup> nestedProperties = updatePropertiesAndReturnNestedGroups(propertyMap, entry);
-            for (PropertyGroup nestedProperty : nestedProperties) {
-                List<PropertyGroup> parentList = propertyGroupsByType.get(nestedProperty.getSourceType());
-                parentList.stream().filter(propertyGroup -> propertyGroup.getType().equals(nestedProperty.getSourceType())).findFirst().ifPresent(parent -> {
-                    parent.addChildGroup(nestedProperty);
-                    nestedProperty.setParentGroup(parent);
-                });
+        Map<String, GroupTrie> groupTriesByType = new HashMap<>();
+        Map<String, PropertyGroup> parentsBySourceType = new HashMap<>();
+        for (List<PropertyGroup> propertyGroups : propertyGroupsByType.values()) {
+            for (PropertyGroup propertyGroup : propertyGroups) {
+                if (Objects.equals(propertyGroup.getType(), propertyGroup.getSourceType())) {
+                    parentsBySourceType.putIfAbsent(propertyGroup.getSourceType(), propertyGroup);
+                }
+                List<Property> properties = propertyMap.get(propertyGroup.getType());
+                if (properties == null || properties.isEmpty()) {
+                    if (!propertyGroup.isUnknownGroup()) {
+                        LOGGER.warn(
+                                "Property group with name:[{}] is having no properties, please check if you provided the getter/setter methods. If your class is empty intentionally, please forget this warning here.",
+                                propertyGroup.getGroupName());
+                    }
+                } else if (propertyGroup.isUnknownGroup()) {
+                    propertyGroup.setProperties(properties.stream()
+                            .map(property -> updateProperty(propertyGroup, property))
+                            .collect(Collectors.toList()));
+                } else {
+                    propertyGroup.setProperties(new ArrayList<>());
+                    groupTriesByType.computeIfAbsent(propertyGroup.getType(), type -> new GroupTrie()).add(propertyGroup);
+                }
             }
         }
-    }
 
-    private List<PropertyGroup> updatePropertiesAndReturnNestedGroups(Map<String, List<Property>> propertyMap, Map.Entry<String, List<PropertyGroup>> propertyEntry) {
-        return propertyEntry.getValue()
-                .stream()
-                .map(propertyGroup -> setProperties(propertyMap, propertyGroup))
-                .filter(PropertyGroup::isNested)
-                .collect(Collectors.toList());
-    }
+        for (Map.Entry<String, GroupTrie> entry : groupTriesByType.entrySet()) {
+            for (Property property : propertyMap.get(entry.getKey())) {
+                for (PropertyGroup propertyGroup : entry.getValue().findLongestMatch(property.getFqName())) {
+                    propertyGroup.getProperties().add(updateProperty(propertyGroup, property));
+                }
+            }
+        }
 
-    private PropertyGroup setProperties(Map<String, List<Property>> propertyMap, PropertyGroup propertyGroup) {
-        List<Property> properties = propertyMap.get(propertyGroup.getType());
-        if ((properties == null || properties.isEmpty())) {
-            if (!propertyGroup.isUnknownGroup()) {
-                LOGGER.warn(
-                        "Property group with name:[{}] is having no properties, please check if you provided the getter/setter methods. If your class is empty intentionally, please forget this warning here.",
-                        propertyGroup.getGroupName());
+        for (List<PropertyGroup> propertyGroups : propertyGroupsByType.values()) {
+            for (PropertyGroup propertyGroup : propertyGroups) {
+                if (!propertyGroup.isNested()) {
+                    continue;
+                }
+                PropertyGroup parent = parentsBySourceType.get(propertyGroup.getSourceType());
+                if (parent != null) {
+                    parent.addChildGroup(propertyGroup);
+                    propertyGroup.setParentGroup(parent);
+                }
             }
-            return propertyGroup;
         }
-        List<Property> collectedProperties = properties.stream()
-                .filter(property -> property.getFqName().startsWith(propertyGroup.getGroupName()) || propertyGroup.isUnknownGroup())
-                .map(property -> updateProperty(propertyGroup, property))
-                .collect(Collectors.toList());
-        propertyGroup.setProperties(collectedProperties);
-        return propertyGroup;
     }
 
     private Map<String, List<PropertyGroup>> getPropertyGroups(ConfigurationMetadata configurationMetadata) {
@@ -178,7 +210,7 @@ public class MetadataReaderPatch {
         Property property = new Property(itemMetadata.getName(), type);
         property.setDescription(itemMetadata.getDescription());
         if (itemMetadata.getDefaultValue() != null) {
-            property.setDefaultValue(itemMetadata.getDefaultValue().toString());
+            property.setDefaultValue(toText(itemMetadata.getDefaultValue()));
         }
         ItemDeprecation deprecation = itemMetadata.getDeprecation();
         if (deprecation != null) {
@@ -190,6 +222,16 @@ public class MetadataReaderPatch {
         return property;
     }
 
+    /**
+     * Elements of an array value are separated by comma, as in properties files.
+     */
+    private static String toText(Object value) {
+        if (value instanceof Object[]) {
+            return Arrays.stream((Object[]) value).map(String::valueOf).collect(Collectors.joining(","));
+        }
+        return value.toString();
+    }
+
     private String simplifyType(String type) {
         if (type == null) {
             type = "";
@@ -199,4 +241,44 @@ public class MetadataReaderPatch {
 
         return type;
     }
+
+    /**
+     * Groups of one type indexed by segments of their dotted names.
+     */
+    private static final class GroupTrie {
+        private final Map<String, GroupTrie> children = new HashMap<>();
+        private final List<PropertyGroup> groups = new ArrayList<>(1);
+
+        void add(PropertyGroup propertyGroup) {
+            GroupTrie node = this;
+            String groupName = propertyGroup.getGroupName();
+            if (groupName != null && !groupName.isBlank()) {
+                for (String segment : groupName.split("\\.")) {
+                    node = node.children.computeIfAbsent(segment, key -> new GroupTrie());
+                }
+            }
+            node.groups.add(propertyGroup);
+        }
+
+        /**
+         * Returns the groups with the longest name the property name starts with, the property name itself excluded.
+         */
+        List<PropertyGroup> findLongestMatch(String propertyName) {
+            List<PropertyGroup> match = groups;
+            GroupTrie node = this;
+            int start = 0;
+            int end;
+            while ((end = propertyName.indexOf('.', start)) >= 0) {
+                node = node.children.get(propertyName.substring(start, end));
+                if (node == null) {
+                    break;
+                }
+                if (!node.groups.isEmpty()) {
+                    match = node.groups;
+                }
+                start = end + 1;
+            }
+            return match;
+        }
+    }
 }
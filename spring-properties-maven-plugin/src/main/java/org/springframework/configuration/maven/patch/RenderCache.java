@@ -0,0 +1,172 @@
+package org.springframework.configuration.maven.patch;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import org.rodnansol.core.generator.template.data.PropertyGroup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.configurationprocessor.json.JSONArray;
+import org.springframework.boot.configurationprocessor.json.JSONException;
+import org.springframework.boot.configurationprocessor.json.JSONObject;
+
+/**
+ * State of the previous generation of an aggregated document: fingerprint of the whole document and rendered sections
+ * with their groups outlines, keyed by section fingerprint.
+ * <p>
+ * The cache is best effort: errors are logged and the document is rendered as if there is no cache.
+ *
+ * @author tia
+ * @since 1.1
+ */
+public class RenderCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RenderCache.class);
+    private static final String DOCUMENT_FINGERPRINT = "document.sha256";
+    private static final String SECTION_EXTENSION = ".section";
+    private static final String OUTLINE_EXTENSION = ".outline.json";
+
+    private final Path directory;
+
+    /**
+     * @param directory directory of the cache, one per output document. It is created on demand.
+     */
+    public RenderCache(Path directory) {
+        this.directory = Objects.requireNonNull(directory, "directory is NULL");
+    }
+
+    /**
+     * Returns {@code true} if the output exists and was generated with the same fingerprint.
+     */
+    boolean isUpToDate(String documentFingerprint, File output) {
+        Path fingerprint = directory.resolve(DOCUMENT_FINGERPRINT);
+        if (!output.isFile() || !Files.isRegularFile(fingerprint)) {
+            return false;
+        }
+        try {
+            return documentFingerprint.equals(Files.readString(fingerprint, StandardCharsets.US_ASCII).trim());
+        } catch (IOException e) {
+            LOGGER.debug("Unable to read:[{}]", fingerprint, e);
+            return false;
+        }
+    }
+
+    /**
+     * Forgets the fingerprint of the document, so an incomplete output is not taken for up-to-date.
+     */
+    void invalidate() {
+        try {
+            Files.deleteIfExists(directory.resolve(DOCUMENT_FINGERPRINT));
+        } catch (IOException e) {
+            LOGGER.warn("Unable to delete:[{}]", directory.resolve(DOCUMENT_FINGERPRINT), e);
+        }
+    }
+
+    void setUpToDate(String documentFingerprint) {
+        write(directory.resolve(DOCUMENT_FINGERPRINT), documentFingerprint);
+    }
+
+    /**
+     * Returns rendered section file or {@code null} if the section is not cached.
+     */
+    Path getSection(String sectionFingerprint) {
+        Path section = directory.resolve(sectionFingerprint + SECTION_EXTENSION);
+        return Files.isRegularFile(section) && Files.isRegularFile(directory.resolve(sectionFingerprint + OUTLINE_EXTENSION))
+                ? section : null;
+    }
+
+    /**
+     * Returns groups of the cached section without properties or {@code null} if they can not be read.
+     */
+    List<PropertyGroup> getOutlines(String sectionFingerprint) {
+        Path outline = directory.resolve(sectionFingerprint + OUTLINE_EXTENSION);
+        try {
+            JSONArray array = new JSONArray(Files.readString(outline, StandardCharsets.UTF_8));
+            List<PropertyGroup> outlines = new ArrayList<>(array.length());
+            for (int i = 0; i < array.length(); i++) {
+                JSONObject object = array.getJSONObject(i);
+                PropertyGroup group = new PropertyGroup(stringOrNull(object, "groupName"), stringOrNull(object, "type"),
+                        stringOrNull(object, "sourceType"), List.of());
+                group.setNested(object.optBoolean("nested"));
+                group.setUnknownGroup(object.optBoolean("unknownGroup"));
+                outlines.add(group);
+            }
+            return outlines;
+        } catch (IOException | JSONException e) {
+            LOGGER.debug("Unable to read:[{}]", outline, e);
+            return null;
+        }
+    }
+
+    void putSection(String sectionFingerprint, String content, List<PropertyGroup> outlines) {
+        try {
+            JSONArray array = new JSONArray();
+            for (PropertyGroup group : outlines) {
+                JSONObject object = new JSONObject();
+                object.putOpt("groupName", group.getGroupName());
+                object.putOpt("type", group.getType());
+                object.putOpt("sourceType", group.getSourceType());
+                object.put("nested", group.isNested());
+                object.put("unknownGroup", group.isUnknownGroup());
+                array.put(object);
+            }
+            write(directory.resolve(sectionFingerprint + SECTION_EXTENSION), content);
+            write(directory.resolve(sectionFingerprint + OUTLINE_EXTENSION), array.toString());
+        } catch (JSONException e) {
+            LOGGER.warn("Unable to cache section:[{}]", sectionFingerprint, e);
+        }
+    }
+
+    /**
+     * Deletes sections which are not in the given set.
+     */
+    void retainSections(Set<String> sectionFingerprints) {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                int end = name.endsWith(SECTION_EXTENSION) ? name.length() - SECTION_EXTENSION.length()
+                        : name.endsWith(OUTLINE_EXTENSION) ? name.length() - OUTLINE_EXTENSION.length() : -1;
+                if (end > 0 && !sectionFingerprints.contains(name.substring(0, end))) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Unable to clean up:[{}]", directory, e);
+        }
+    }
+
+    private void write(Path file, String content) {
+        Path tmp = null;
+        try {
+            Files.createDirectories(directory);
+            tmp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            Files.writeString(tmp, content, StandardCharsets.UTF_8);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to write:[{}]", file, e);
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ex) {
+                    LOGGER.debug("Unable to delete:[{}]", tmp, ex);
+                }
+            }
+        }
+    }
+
+    private static String stringOrNull(JSONObject object, String key) throws JSONException {
+        return object.isNull(key) ? null : object.getString(key);
+    }
+}
@@ -0,0 +1,273 @@
+package org.springframework.configuration.maven.properties;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.springframework.configurationprocessor.helpers.PropertyPlaceholderHelper;
+import org.springframework.configurationprocessor.metadata.ConfigurationMetadata;
+import org.springframework.configurationprocessor.metadata.ItemMetadata;
+
+/**
+ * Cross-references `.properties` files against configuration metadata.
+ * <p>
+ * Reports keys of the files that are not described by the metadata, i.e. used by no {@code @Value},
+ * {@code @ConfigurationProperties} or xml placeholder, and properties that no file defines although
+ * they have no default value. Placeholders in values of the files are checked the same way: a placeholder
+ * with a default value, e.g. {@code ${a:x}}, marks the key as used but is never reported as undefined.
+ * <p>
+ * Metadata is indexed once by property name, including the relaxed form of names ({@code my-prop},
+ * {@code my_prop} and {@code myProp} are the same) and prefixes of {@code Map} and collection properties.
+ * Files are streamed line by line in parallel, so memory does not depend on the size of the files.
+ *
+ * @author tia
+ * @since 1.1
+ */
+public class PropertiesCrossReference {
+
+    private static final PropertyPlaceholderHelper PROPERTY_HELPER = new PropertyPlaceholderHelper("${", "}", ":", true);
+
+    private final Map<String, ItemMetadata> properties = new HashMap<>();
+    private final Map<String, String> relaxedNames = new HashMap<>();
+    private final Set<String> containers = new HashSet<>();
+
+    public PropertiesCrossReference(ConfigurationMetadata metadata) {
+        for (ItemMetadata item : metadata.getItems()) {
+            if (!item.isOfItemType(ItemMetadata.ItemType.PROPERTY) || properties.putIfAbsent(item.getName(), item) != null) {
+                continue;
+            }
+            String relaxedName = relaxed(item.getName());
+            relaxedNames.putIfAbsent(relaxedName, item.getName());
+            if (isContainer(item.getType())) {
+                containers.add(relaxedName);
+            }
+        }
+    }
+
+    /**
+     * Reads the files in parallel.
+     */
+    public Report check(List<Path> files, Charset charset) {
+        Set<String> defined = ConcurrentHashMap.newKeySet();
+        List<FileResult> results = files.parallelStream()
+                .map(file -> checkFile(file, charset, defined))
+                .collect(Collectors.toList());
+
+        // Keys and placeholders not described by the metadata are matched by relaxed names too
+        Set<String> unknownKeys = new HashSet<>();
+        for (FileResult result : results) {
+            for (Finding finding : result.unknownKeys) {
+                unknownKeys.add(relaxed(finding.getName()));
+            }
+        }
+        Set<String> referenced = new HashSet<>();
+        for (FileResult result : results) {
+            for (String placeholder : result.placeholders.keySet()) {
+                referenced.add(relaxed(placeholder));
+            }
+        }
+        Set<String> reported = new HashSet<>();
+        List<Finding> undefinedPlaceholders = new ArrayList<>();
+        for (FileResult result : results) {
+            for (Finding placeholder : result.placeholders.values()) {
+                if (placeholder == null || !reported.add(placeholder.getName())) {
+                    continue;
+                }
+                String name = resolve(placeholder.getName());
+                if (!(name == null ? unknownKeys.contains(relaxed(placeholder.getName())) : defined.contains(name))) {
+                    undefinedPlaceholders.add(placeholder);
+                }
+            }
+        }
+
+        List<Finding> unusedKeys = new ArrayList<>();
+        for (FileResult result : results) {
+            for (Finding finding : result.unknownKeys) {
+                if (!referenced.contains(relaxed(finding.getName()))) {
+                    unusedKeys.add(finding);
+                }
+            }
+        }
+        List<String> undefinedProperties = properties.values().stream()
+                .filter(item -> item.getDefaultValue() == null && !defined.contains(item.getName()))
+                .map(ItemMetadata::getName)
+                .sorted()
+                .collect(Collectors.toList());
+        return new Report(unusedKeys, undefinedPlaceholders, undefinedProperties);
+    }
+
+    private FileResult checkFile(Path file, Charset charset, Set<String> defined) {
+        FileResult result = new FileResult();
+        try (BufferedReader reader = Files.newBufferedReader(file, charset)) {
+            PropertiesFileReader.read(reader, (key, value, line) -> {
+                String name = resolve(key);
+                if (name == null) {
+                    result.unknownKeys.add(new Finding(key, file, line));
+                } else {
+                    defined.add(name);
+                }
+                if (value.contains("${")) {
+                    for (Map.Entry<String, String> placeholder : extractPlaceholders(value).entrySet()) {
+                        result.addPlaceholder(placeholder.getKey(), placeholder.getValue() != null, file, line);
+                    }
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read '" + file + "'", e);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the name of the metadata property the key binds to, the name of the {@code Map} or collection property
+     * for its elements, or {@code null} if no property matches.
+     */
+    private String resolve(String key) {
+        if (properties.containsKey(key)) {
+            return key;
+        }
+        String relaxedKey = relaxed(key);
+        String name = relaxedNames.get(relaxedKey);
+        if (name != null) {
+            return name;
+        }
+        for (int dot = relaxedKey.lastIndexOf('.'); dot > 0; dot = relaxedKey.lastIndexOf('.', dot - 1)) {
+            if (containers.contains(relaxedKey.substring(0, dot))) {
+                return relaxedNames.get(relaxedKey.substring(0, dot));
+            }
+        }
+        return null;
+    }
+
+    private static Map<String, String> extractPlaceholders(String value) {
+        try {
+            return new TreeMap<>(PROPERTY_HELPER.extractPlaceholders(value));
+        } catch (IllegalArgumentException e) {
+            // Circular placeholder reference, it is reported by Spring at runtime
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * Lower case name without dashes and underscores, indexes converted to name segments: {@code a.my-list[0]} is
+     * {@code a.mylist.0}.
+     */
+    private static String relaxed(String name) {
+        StringBuilder result = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '[') {
+                result.append('.');
+            } else if (c != '-' && c != '_' && c != ']') {
+                result.append(Character.toLowerCase(c));
+            }
+        }
+        return result.toString();
+    }
+
+    private static boolean isContainer(String type) {
+        return type != null && (type.endsWith("[]") || type.startsWith("java.util.Map") || type.startsWith("java.util.List")
+                || type.startsWith("java.util.Set") || type.startsWith("java.util.Collection")
+                || type.equals("java.util.Properties"));
+    }
+
+    private static final class FileResult {
+        final List<Finding> unknownKeys = new ArrayList<>();
+        /**
+         * Every placeholder name with its first occurrence without a default value, {@code null} if all its
+         * occurrences have one. The result grows with the number of distinct placeholders only.
+         */
+        final Map<String, Finding> placeholders = new LinkedHashMap<>();
+
+        void addPlaceholder(String name, boolean hasDefault, Path file, int line) {
+            if (hasDefault) {
+                placeholders.putIfAbsent(name, null);
+            } else if (placeholders.get(name) == null) {
+                placeholders.put(name, new Finding(name, file, line));
+            }
+        }
+    }
+
+    /**
+     * A key or placeholder at a line of a file.
+     */
+    public static final class Finding {
+        private final String name;
+        private final Path file;
+        private final int line;
+
+        Finding(String name, Path file, int line) {
+            this.name = name;
+            this.file = file;
+            this.line = line;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Path getFile() {
+            return file;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        @Override
+        public String toString() {
+            return "'" + name + "' at " + file + ":" + line;
+        }
+    }
+
+    public static final class Report {
+        private final List<Finding> unusedKeys;
+        private final List<Finding> undefinedPlaceholders;
+        private final List<String> undefinedProperties;
+
+        Report(List<Finding> unusedKeys, List<Finding> undefinedPlaceholders, List<String> undefinedProperties) {
+            this.unusedKeys = unusedKeys;
+            this.undefinedPlaceholders = undefinedPlaceholders;
+            this.undefinedProperties = undefinedProperties;
+        }
+
+        /**
+         * Keys of the files that no metadata property and no placeholder of the files uses.
+         */
+        public List<Finding> getUnusedKeys() {
+            return unusedKeys;
+        }
+
+        /**
+         * Placeholders without default value in values of the files that no file defines.
+         */
+        public List<Finding> getUndefinedPlaceholders() {
+            return undefinedPlaceholders;
+        }
+
+        /**
+         * Metadata properties without default value that no file defines.
+         */
+        public List<String> getUndefinedProperties() {
+            return undefinedProperties;
+        }
+
+        public boolean isEmpty() {
+            return unusedKeys.isEmpty() && undefinedPlaceholders.isEmpty() && undefinedProperties.isEmpty();
+        }
+    }
+}
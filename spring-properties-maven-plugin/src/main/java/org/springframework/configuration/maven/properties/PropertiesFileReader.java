@@ -0,0 +1,142 @@
+package org.springframework.configuration.maven.properties;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Streams entries of a `.properties` file one logical line at a time, following the format of
+ * {@link java.util.Properties#load(Reader)}. Only the current entry is kept in memory.
+ *
+ * @author tia
+ * @since 1.1
+ */
+final class PropertiesFileReader {
+
+    @FunctionalInterface
+    interface EntryConsumer {
+        /**
+         * @param line number of the first physical line of the entry
+         */
+        void accept(String key, String value, int line);
+    }
+
+    private PropertiesFileReader() {
+    }
+
+    static void read(BufferedReader reader, EntryConsumer consumer) throws IOException {
+        StringBuilder logicalLine = new StringBuilder();
+        int lineNumber = 0;
+        int entryLine = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            String trimmed = stripLeading(line);
+            if (logicalLine.length() == 0) {
+                if (trimmed.isEmpty() || trimmed.charAt(0) == '#' || trimmed.charAt(0) == '!') {
+                    continue;
+                }
+                entryLine = lineNumber;
+            }
+            if (endsWithContinuation(trimmed)) {
+                logicalLine.append(trimmed, 0, trimmed.length() - 1);
+                continue;
+            }
+            logicalLine.append(trimmed);
+            accept(logicalLine, entryLine, consumer);
+            logicalLine.setLength(0);
+        }
+        if (logicalLine.length() > 0) {
+            accept(logicalLine, entryLine, consumer);
+        }
+    }
+
+    private static void accept(CharSequence line, int lineNumber, EntryConsumer consumer) {
+        int length = line.length();
+        int keyEnd = 0;
+        boolean escaped = false;
+        while (keyEnd < length) {
+            char c = line.charAt(keyEnd);
+            if (escaped) {
+                escaped = false;
+            } else if (c == '\\') {
+                escaped = true;
+            } else if (c == '=' || c == ':' || isWhitespace(c)) {
+                break;
+            }
+            keyEnd++;
+        }
+        int valueStart = keyEnd;
+        while (valueStart < length && isWhitespace(line.charAt(valueStart))) {
+            valueStart++;
+        }
+        if (valueStart < length && (line.charAt(valueStart) == '=' || line.charAt(valueStart) == ':')) {
+            valueStart++;
+            while (valueStart < length && isWhitespace(line.charAt(valueStart))) {
+                valueStart++;
+            }
+        }
+        consumer.accept(unescape(line, 0, keyEnd), unescape(line, valueStart, length), lineNumber);
+    }
+
+    private static String unescape(CharSequence text, int start, int end) {
+        StringBuilder result = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c != '\\' || i + 1 == end) {
+                result.append(c);
+                continue;
+            }
+            c = text.charAt(++i);
+            switch (c) {
+            case 't':
+                result.append('\t');
+                break;
+            case 'n':
+                result.append('\n');
+                break;
+            case 'r':
+                result.append('\r');
+                break;
+            case 'f':
+                result.append('\f');
+                break;
+            case 'u':
+                if (i + 4 < end) {
+                    try {
+                        result.append((char) Integer.parseInt(text.subSequence(i + 1, i + 5).toString(), 16));
+                        i += 4;
+                        break;
+                    } catch (NumberFormatException e) {
+                        // Malformed escape, keep it as is
+                    }
+                }
+                result.append(c);
+                break;
+            default:
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    private static boolean endsWithContinuation(String line) {
+        int backslashes = 0;
+        for (int i = line.length() - 1; i >= 0 && line.charAt(i) == '\\'; i--) {
+            backslashes++;
+        }
+        return backslashes % 2 == 1;
+    }
+
+    private static String stripLeading(String line) {
+        int start = 0;
+        while (start < line.length() && isWhitespace(line.charAt(start))) {
+            start++;
+        }
+        return line.substring(start);
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\f';
+    }
+}
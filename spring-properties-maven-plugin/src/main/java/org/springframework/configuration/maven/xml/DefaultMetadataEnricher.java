@@ -8,14 +8,17 @@ import org.springframework.configurationprocessor.helpers.StringUtils;
 import org.springframework.configurationprocessor.metadata.ItemDeprecation;
 import org.springframework.configurationprocessor.metadata.ItemMetadata;
 
+/**
+ * Takes descriptions and deprecations of properties from the comment before their xml tag.
+ * <p>
+ * Stateless, so an instance may be shared by files scanned in parallel.
+ */
 public class DefaultMetadataEnricher implements MetadataEnricher {
 
     private static final Pattern PATTERN_CRLF = Pattern.compile("[\\n\\r]");
     private static final Pattern PATTERN_REMAINING = Pattern.compile("[\\s-:]+(.*)");
     public static final String DEPRECATED = "@deprecated";
 
-    private final StringBuilder builder = new StringBuilder(2048);
-
     @Override
     public void enrich(ItemMetadata metadata, Xpp3DomEx node) {
         String comment = node.getComment();
@@ -23,7 +26,7 @@ public class DefaultMetadataEnricher implements MetadataEnricher {
             return;
         }
 
-        builder.setLength(0);
+        StringBuilder builder = new StringBuilder(comment.length());
         boolean isInDescription = false;
         String name = metadata.getName();
         String[] lines = PATTERN_CRLF.split(comment);
@@ -16,17 +16,16 @@
 
 package org.springframework.configuration.maven.xml;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import org.springframework.configurationprocessor.metadata.ConfigurationMetadata;
 import org.springframework.configurationprocessor.metadata.ItemMetadata;
+import org.springframework.configurationprocessor.metadata.PropertyGroupTrie;
+import org.springframework.configurationprocessor.metadata.PropertyUsages;
 
 /**
  * Used by {@ link ConfigurationMetadataAnnotationProcessor} to collect
@@ -81,35 +80,30 @@ public class MetadataCollector {
 		if (this.previousMetadata != null) {
 			List<ItemMetadata> items = this.previousMetadata.getItems();
 			for (ItemMetadata item : items) {
-				if (shouldBeMerged(item)) {
-					metadata.addIfMissing(item);
+				// Usages of an aggregated property are merged one by one
+				ItemMetadata retained = PropertyUsages.retainUsages(item, this::shouldBeMerged);
+				if (retained != null) {
+					metadata.addIfMissing(retained);
 				}
 			}
 		}
 		return metadata;
 	}
 
+	/**
+	 * Infers groups of every source type from property names, nested groups included.
+	 * @see PropertyGroupTrie
+	 */
 	public Set<ItemMetadata> generateGroups(){
-		Map<String,Set<ItemMetadata>> byClass = new HashMap<>(32);
+		PropertyGroupTrie trie = new PropertyGroupTrie();
 		for (ItemMetadata metadata : this.metadataItems) {
-			if (metadata.isOfItemType(ItemMetadata.ItemType.PROPERTY)) {
-				byClass.computeIfAbsent(metadata.getSourceType(), k -> new HashSet<>()).add(metadata);
-			}
-		}
-		Set<ItemMetadata> groupsMetadata = new HashSet<>();
-		for (Set<ItemMetadata> byClassItems : byClass.values()) {
-			String sourceType = byClassItems.iterator().next().getSourceType();
-			Set<String> commonPrefixes = calculateCommonPrefixes(byClassItems);
-			for (String prefix : commonPrefixes) {
-				ItemMetadata group = ItemMetadata.newGroup(prefix, sourceType, sourceType, null);
-				groupsMetadata.add(group);
-			}
+			trie.add(metadata);
 		}
-		return groupsMetadata;
+		return trie.getGroups();
 	}
 
 	public Set<ItemMetadata> generateBlankGroups(){
-		Set<ItemMetadata> groupsMetadata = new HashSet<>();
+		Set<ItemMetadata> groupsMetadata = new LinkedHashSet<>();
 		Set<String> seenGroups = new HashSet<>(32);
 		for (ItemMetadata metadata : this.metadataItems) {
 			if (metadata.isOfItemType(ItemMetadata.ItemType.PROPERTY)) {
@@ -124,7 +118,7 @@ public class MetadataCollector {
 	}
 
 	public Set<ItemMetadata> generateUntypedGroups(){
-		Set<ItemMetadata> groupsMetadata = new HashSet<>();
+		Set<ItemMetadata> groupsMetadata = new LinkedHashSet<>();
 		Set<String> seenGroups = new HashSet<>(32);
 		for (ItemMetadata metadata : this.metadataItems) {
 			if (metadata.isOfItemType(ItemMetadata.ItemType.PROPERTY)) {
@@ -138,52 +132,7 @@ public class MetadataCollector {
 		return groupsMetadata;
 	}
 
-	private Set<String> calculateCommonPrefixes(Set<ItemMetadata> byClassItems) {
-		Set<String> commonPrefixes = new HashSet<>();
-		Map<String, List<String>> by1lvl = new HashMap<>(4);
-		for (ItemMetadata item : byClassItems) {
-			String lelev1Group = item.getName();
-			int idx = lelev1Group.indexOf('.');
-            if (idx < 0) {
-                lelev1Group = "";
-            } else {
-                lelev1Group = lelev1Group.substring(0, idx);
-            }
-            by1lvl.computeIfAbsent(lelev1Group, k -> new ArrayList<>()).add(item.getName());
-		}
-		for (Map.Entry<String, List<String>> entry : by1lvl.entrySet()) {
-			commonPrefixes.add(collapse(entry.getValue()));
-		}
-
-		return commonPrefixes;
-	}
-
-	private String collapse(List<String> prefixes) {
-		String longestPefix = prefixes.get(0);
-        for (int i = 1; i < prefixes.size(); i++) {
-            longestPefix = intersect(longestPefix, prefixes.get(i));
-        }
-		return longestPefix;
-	}
-
-	private String intersect(String s1, String s2) {
-		s1 += '.';
-		s2 += '.';
-		int len = Math.min(s1.length(), s2.length());
-		int lastDotIdx = 0;
-		for (int i = 0; i < len; i++) {
-			if (s1.charAt(i) != s2.charAt(i)) {
-				break;
-			}
-			if (s1.charAt(i) == '.') {
-				lastDotIdx = i;
-			}
-		}
-		return s1.substring(0, lastDotIdx);
-	}
-
-	private boolean shouldBeMerged(ItemMetadata itemMetadata) {
-		String sourceType = itemMetadata.getSourceType();
+	private boolean shouldBeMerged(String sourceType) {
 		//return (sourceType != null && !deletedInCurrentBuild(sourceType) && !processedInCurrentBuild(sourceType));
 		return !sourceType.endsWith(".xml");
 	}
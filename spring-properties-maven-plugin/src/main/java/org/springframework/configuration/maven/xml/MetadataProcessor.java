@@ -5,8 +5,10 @@ import java.nio.file.Path;
 import java.util.List;
 import java.util.Set;
 
+import org.springframework.configuration.maven.metrics.BuildMetrics;
 import org.springframework.configurationprocessor.metadata.ConfigurationMetadata;
 import org.springframework.configurationprocessor.metadata.ItemMetadata;
+import org.springframework.configurationprocessor.metadata.PropertyUsages;
 
 public class MetadataProcessor {
     private MetadataStore metadataStore;
@@ -14,24 +16,115 @@ public class MetadataProcessor {
     private MetadataCollector metadataCollector;
     List<Path> xmlLocations;
     private final Path metadataDirectory;
+    private final Path fragmentsDirectory;
+    private boolean nestedGroups;
+    private boolean aggregateUsages;
+    private List<String> rootContexts = List.of();
+    private List<Path> classpath = List.of();
+    private List<String> includes = List.of();
+    private List<String> excludes = List.of();
+    private BuildMetrics metrics = new BuildMetrics();
 
     public MetadataProcessor(List<Path> xmlLocations, Path metadataDirectory) {
+        this(xmlLocations, metadataDirectory, null);
+    }
+
+    /**
+     * @param fragmentsDirectory if not {@code null}, xml metadata is written as a standalone fragment into the directory
+     *                           instead of being merged into the metadata file of {@code metadataDirectory}
+     */
+    public MetadataProcessor(List<Path> xmlLocations, Path metadataDirectory, Path fragmentsDirectory) {
 
         this.xmlLocations = xmlLocations;
         this.metadataDirectory = metadataDirectory;
+        this.fragmentsDirectory = fragmentsDirectory;
+    }
+
+    /**
+     * If {@code true}, groups are inferred from property names, nested groups included.
+     * Otherwise every xml file gets one group with the empty name.
+     */
+    public void setNestedGroups(boolean nestedGroups) {
+        this.nestedGroups = nestedGroups;
+    }
+
+    /**
+     * If {@code true}, properties of the same name are written as one property with the list of its usage sites.
+     *
+     * @see PropertyUsages
+     */
+    public void setAggregateUsages(boolean aggregateUsages) {
+        this.aggregateUsages = aggregateUsages;
+    }
+
+    /**
+     * Scans only the root context files and the files they import instead of all xml files of the locations.
+     *
+     * @see XmlMetadataScanner#setRootContexts(List)
+     * @since 1.1
+     */
+    public void setRootContexts(List<String> rootContexts) {
+        this.rootContexts = rootContexts == null ? List.of() : rootContexts;
+    }
+
+    /**
+     * Sets glob patterns of xml files to scan and to skip, relative to an xml location.
+     *
+     * @see XmlMetadataScanner#setFilePatterns(List, List)
+     * @since 1.1
+     */
+    public void setFilePatterns(List<String> includes, List<String> excludes) {
+        this.includes = includes;
+        this.excludes = excludes;
+    }
+
+    /**
+     * Sets classpath entries to look {@code classpath:} resources of root contexts up in after the xml locations.
+     *
+     * @since 1.1
+     */
+    public void setClasspath(List<Path> classpath) {
+        this.classpath = classpath == null ? List.of() : classpath;
+    }
+
+    /**
+     * Sets metrics to record phases of the generation to.
+     *
+     * @since 1.1
+     */
+    public void setMetrics(BuildMetrics metrics) {
+        this.metrics = metrics;
     }
 
     public void execute() {
-        this.metadataStore = new MetadataStore(metadataDirectory);
-        this.metadataCollector = new MetadataCollector(this.metadataStore.readMetadata());
+        if (fragmentsDirectory != null) {
+            this.metadataStore = new MetadataStore(fragmentsDirectory, MetadataStore.XML_FRAGMENT_PATH);
+            this.metadataCollector = new MetadataCollector(null);
+        } else {
+            this.metadataStore = new MetadataStore(metadataDirectory);
+            ConfigurationMetadata previousMetadata;
+            try (BuildMetrics.Timer timer = metrics.start("metadata.read")) {
+                previousMetadata = this.metadataStore.readMetadata();
+            }
+            metrics.count("metadata.read", "items", previousMetadata != null ? previousMetadata.getItems().size() : 0);
+            this.metadataCollector = new MetadataCollector(previousMetadata);
+        }
         processXml();
-        Set<ItemMetadata> groups = metadataCollector.generateBlankGroups();
+        Set<ItemMetadata> groups;
+        try (BuildMetrics.Timer timer = metrics.start("metadata.groups")) {
+            groups = nestedGroups ? metadataCollector.generateGroups() : metadataCollector.generateBlankGroups();
+        }
+        metrics.count("metadata.groups", "items", groups.size());
         metadataCollector.add(groups);
         writeMetadata();
     }
 
     private void processXml() {
         XmlMetadataScanner xmlMetadataScanner = new XmlMetadataScanner(xmlLocations);
+        xmlMetadataScanner.setRootContexts(rootContexts);
+        xmlMetadataScanner.setClasspath(classpath);
+        xmlMetadataScanner.setFilePatterns(includes, excludes);
+        xmlMetadataScanner.setMetrics(metrics);
         Set<ItemMetadata> metadataSet = xmlMetadataScanner.scan();
         metadataCollector.add(metadataSet);
     }
@@ -39,12 +132,24 @@ public class MetadataProcessor {
 
     protected ConfigurationMetadata writeMetadata() {
         try {
-            ConfigurationMetadata metadata = this.metadataCollector.getMetadata();
-            //metadata = mergeAdditionalMetadata(metadata);
+            ConfigurationMetadata metadata;
+            try (BuildMetrics.Timer timer = metrics.start("metadata.merge")) {
+                metadata = this.metadataCollector.getMetadata();
+                //metadata = mergeAdditionalMetadata(metadata);
+                if (aggregateUsages) {
+                    metadata = PropertyUsages.aggregate(metadata);
+                }
+            }
+            metrics.count("metadata.merge", "items", metadata.getItems().size());
             if (!metadata.getItems().isEmpty()) {
-                this.metadataStore.writeMetadata(metadata);
+                try (BuildMetrics.Timer timer = metrics.start("metadata.write")) {
+                    this.metadataStore.writeMetadata(metadata);
+                }
                 return metadata;
             }
+            if (fragmentsDirectory != null) {
+                this.metadataStore.deleteMetadata();
+            }
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -19,15 +19,28 @@ package org.springframework.configuration.maven.xml;
 import javax.tools.Diagnostic;
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 import org.springframework.configurationprocessor.metadata.ConfigurationMetadata;
 import org.springframework.configurationprocessor.metadata.InvalidConfigurationMetadataException;
+import org.springframework.configurationprocessor.metadata.ItemMetadata;
 import org.springframework.configurationprocessor.metadata.JsonMarshaller;
+import org.springframework.configurationprocessor.metadata.MetadataFragmentMerger;
 
 /**
  * A {@code MetadataStore} is responsible for the storage of metadata on the filesystem.
@@ -39,10 +52,19 @@ public class MetadataStore {
 
 	static final String METADATA_PATH = "spring-configuration-metadata.json";
 
+	static final String XML_FRAGMENT_PATH = "xml.json";
+
     private final Path outputDir;
 
+    private final String fileName;
+
     public MetadataStore(Path outputDir) {
+        this(outputDir, METADATA_PATH);
+	}
+
+    public MetadataStore(Path outputDir, String fileName) {
         this.outputDir = outputDir;
+        this.fileName = fileName;
 	}
 
 	public ConfigurationMetadata readMetadata() {
@@ -57,14 +79,109 @@ public class MetadataStore {
 
 	public void writeMetadata(ConfigurationMetadata metadata) throws IOException {
 		if (!metadata.getItems().isEmpty()) {
-			Path path = getMetadataResource();
-			path.getParent().toFile().mkdirs();
-			try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(path))) {
-				new JsonMarshaller().write(metadata, outputStream);
+			writeIfChanged(getMetadataResource(), (outputStream) -> new JsonMarshaller().write(metadata, outputStream));
+		}
+	}
+
+	/**
+	 * Deletes the metadata file, e.g. a fragment of a producer that found no items, so a fragment of a previous
+	 * build is not merged.
+	 * @since 1.1
+	 */
+	public void deleteMetadata() throws IOException {
+		Files.deleteIfExists(getMetadataResource());
+	}
+
+	/**
+	 * Writes a file through a temporary file in the same directory. The temporary file replaces the file atomically
+	 * only if their SHA-256 differ, so the file keeps its modification time when a build produces the same content
+	 * and downstream steps (jar, war, documents) see it unchanged.
+	 * @return {@code true} if the file was replaced
+	 */
+	public static boolean writeIfChanged(Path path, ContentWriter writer) throws IOException {
+		Files.createDirectories(path.getParent());
+		Path tmp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+		try {
+			MessageDigest digest = newDigest();
+			try (OutputStream outputStream = new DigestOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)), digest)) {
+				writer.write(outputStream);
+			}
+			if (Files.isRegularFile(path) && Files.size(path) == Files.size(tmp)
+					&& MessageDigest.isEqual(digest.digest(), digestOf(path))) {
+				return false;
 			}
+			try {
+				Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			}
+			catch (AtomicMoveNotSupportedException ex) {
+				Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+			}
+			return true;
+		}
+		finally {
+			Files.deleteIfExists(tmp);
 		}
 	}
 
+	/**
+	 * Merges all {@code *.json} fragments of {@code fragmentsDir} into the metadata file of this store.
+	 * Fragments are taken in file name order, so the result does not depend on which producer ran first.
+	 *
+	 * @param aggregateUsages whether properties of the same name are merged into one property with its usage sites
+	 * @return number of merged fragments
+	 */
+	public int mergeFragments(Path fragmentsDir, boolean aggregateUsages) throws IOException {
+		List<Path> fragments = new ArrayList<>();
+		if (Files.isDirectory(fragmentsDir)) {
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(fragmentsDir, "*.json")) {
+				stream.forEach(fragments::add);
+			}
+		}
+		if (fragments.isEmpty()) {
+			return 0;
+		}
+		fragments.sort(null);
+
+		List<InputStream> inputs = new ArrayList<>(fragments.size());
+		try {
+			for (Path fragment : fragments) {
+				inputs.add(new BufferedInputStream(Files.newInputStream(fragment)));
+			}
+			writeIfChanged(getMetadataResource(), (outputStream) -> {
+				try {
+					MetadataFragmentMerger merger = new MetadataFragmentMerger();
+					merger.setAggregateUsages(aggregateUsages);
+					merger.merge(inputs, outputStream);
+				}
+				catch (Exception ex) {
+					throw new InvalidConfigurationMetadataException(
+							"Invalid meta-data fragment in '" + fragmentsDir + "': " + ex.getMessage(),
+							Diagnostic.Kind.ERROR);
+				}
+			});
+		}
+		finally {
+			for (InputStream input : inputs) {
+				input.close();
+			}
+		}
+		return fragments.size();
+	}
+
+	/**
+	 * Returns json of metadata of xml properties found outside of a build, e.g. in a jar: the properties and a group
+	 * with the empty name for every source type.
+	 * @since 1.1
+	 */
+	public static byte[] toJson(Collection<ItemMetadata> properties) throws IOException {
+		MetadataCollector collector = new MetadataCollector(null);
+		collector.add(properties);
+		collector.add(collector.generateBlankGroups());
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		new JsonMarshaller().write(collector.getMetadata(), outputStream);
+		return outputStream.toByteArray();
+	}
+
 	private ConfigurationMetadata readMetadata(InputStream in) throws IOException {
 		try {
 			return new JsonMarshaller().read(in);
@@ -83,6 +200,33 @@ public class MetadataStore {
 	}
 
 	private Path getMetadataResource() throws IOException {
-		return outputDir.resolve(METADATA_PATH);
+		return outputDir.resolve(fileName);
+	}
+
+	private static byte[] digestOf(Path path) throws IOException {
+		MessageDigest digest = newDigest();
+		try (InputStream inputStream = new DigestInputStream(Files.newInputStream(path), digest)) {
+			inputStream.transferTo(OutputStream.nullOutputStream());
+		}
+		return digest.digest();
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	/**
+	 * Writes content of a file.
+	 */
+	@FunctionalInterface
+	public interface ContentWriter {
+
+		void write(OutputStream outputStream) throws IOException;
+
 	}
 }
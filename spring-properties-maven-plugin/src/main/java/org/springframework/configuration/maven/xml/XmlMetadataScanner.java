@@ -1,20 +1,39 @@
 package org.springframework.configuration.maven.xml;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RecursiveAction;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.configuration.maven.metrics.BuildMetrics;
 import org.springframework.configuration.maven.xpp3.Xpp3DomBuilderEx;
 import org.springframework.configuration.maven.xpp3.Xpp3DomEx;
 import org.springframework.configurationprocessor.helpers.PropertyPlaceholderHelper;
@@ -23,14 +42,35 @@ import org.springframework.configurationprocessor.metadata.ItemMetadata;
 
 public class XmlMetadataScanner {
 
+    /**
+     * Version of the metadata produced from xml files of jars. It is a part of the cache entry name, so it must be
+     * incremented when the scanner finds other properties in the same jar.
+     */
+    public static final int OUTPUT_VERSION = 2;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(XmlMetadataScanner.class);
+
     private static final String NAMESPACE_SPRING = "http://www.springframework.org/schema/";
     private static final String VALUE_SEPARATOR = ":";
     private static final PropertyPlaceholderHelper PROPERTY_HELPER = new PropertyPlaceholderHelper("${", "}", VALUE_SEPARATOR, true);
+    private static final byte[] NAMESPACE_SPRING_BYTES = NAMESPACE_SPRING.getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PLACEHOLDER_PREFIX_BYTES = "${".getBytes(StandardCharsets.US_ASCII);
+    private static final String IMPORT = "import";
+    private static final String IMPORT_RESOURCE = "resource";
+
     private static final MetadataEnricher DEFAULT_DESCRIPTION_EXTRACTOR = new DefaultMetadataEnricher();
 
     private final List<Path> locations;
     private final MetadataEnricher metadataEnricher;
+    private List<String> rootContexts = List.of();
+    private List<Path> classpath = List.of();
+    private XmlPathFilter pathFilter = new XmlPathFilter(FileSystems.getDefault(), null, null);
+    private BuildMetrics metrics = new BuildMetrics();
 
+    /**
+     * @param metadataEnricher shared by all files, so it must be thread-safe: files of root contexts and of jars are
+     *                         scanned in parallel
+     */
     public XmlMetadataScanner(List<Path> locations, MetadataEnricher metadataEnricher){
         this.locations = locations;
         this.metadataEnricher = metadataEnricher;
@@ -40,95 +80,353 @@ public class XmlMetadataScanner {
         this(locations, DEFAULT_DESCRIPTION_EXTRACTOR);
     }
 
-    public Set<ItemMetadata> scan() {
+    /**
+     * Scans only the root context files and the files they import by {@code <import resource="..."/>} instead of
+     * all xml files of the locations. Every reachable file is scanned once, files are scanned in parallel.
+     * <p>
+     * Locations are {@code classpath:} and {@code classpath*:} resources, looked up in the locations and then in the
+     * {@link #setClasspath(List) classpath}, or file paths. Imports without a prefix are relative to the importing
+     * file, imports with placeholders are skipped. Ant-style patterns are supported.
+     *
+     * @param rootContexts locations of root context files, all xml files of the locations are scanned if empty
+     * @since 1.1
+     */
+    public void setRootContexts(List<String> rootContexts) {
+        this.rootContexts = rootContexts == null ? List.of() : rootContexts;
+    }
 
+    /**
+     * Sets glob patterns of xml files to scan and to skip, relative to a location, e.g. {@code spring/**} or
+     * {@code **}{@code /fixtures/**}. A directory matched by an exclude pattern is not walked into. Patterns do not
+     * apply to root contexts and their imports.
+     *
+     * @param includes all xml files are included if empty or {@code null}
+     * @param excludes nothing is excluded if empty or {@code null}
+     * @since 1.1
+     */
+    public void setFilePatterns(List<String> includes, List<String> excludes) {
+        this.pathFilter = new XmlPathFilter(FileSystems.getDefault(), includes, excludes);
+    }
+
+    /**
+     * Sets classpath entries to look {@code classpath:} resources up in after the locations: directories and jars.
+     *
+     * @since 1.1
+     */
+    public void setClasspath(List<Path> classpath) {
+        this.classpath = classpath == null ? List.of() : classpath;
+    }
+
+    /**
+     * Sets metrics to record phases of the scan to: discovery, sniffing, parsing, extraction and enrichment.
+     *
+     * @since 1.1
+     */
+    public void setMetrics(BuildMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public Set<ItemMetadata> scan() {
+        if (!rootContexts.isEmpty()) {
+            return scanReachable();
+        }
         return locations.stream()
-                .flatMap(root -> getRootMetadata(root).stream())
-                .collect(Collectors.toSet());
+                .flatMap(root -> getRootMetadata(root, metadataEnricher).stream())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+    }
+
+    private Set<ItemMetadata> scanReachable() {
+        List<Path> searchPath = new ArrayList<>(locations);
+        searchPath.addAll(classpath);
+        try (XmlResources resources = new XmlResources(searchPath)) {
+            Map<String, Set<ItemMetadata>> metadataByFile = new ConcurrentHashMap<>();
+            Set<String> visited = ConcurrentHashMap.newKeySet();
+            List<ImportTask> roots = new ArrayList<>();
+            try (BuildMetrics.Timer timer = metrics.start("xml.discovery")) {
+                for (String location : rootContexts) {
+                    for (XmlResources.Resource resource : resources.resolve(location.trim())) {
+                        if (visited.add(resource.getKey())) {
+                            roots.add(new ImportTask(resource, resources, visited, metadataByFile));
+                        }
+                    }
+                }
+            }
+            metrics.count("xml.discovery", "roots", roots.size());
+            RecursiveAction scan = new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(roots);
+                }
+            };
+            if (ForkJoinTask.inForkJoinPool()) {
+                // Imports share the pool of the caller, e.g. the pool of modules scanned in parallel
+                scan.invoke();
+            } else {
+                ForkJoinPool.commonPool().invoke(scan);
+            }
+            metrics.count("xml.discovery", "files", visited.size());
+            // Order of a sequential scan does not depend on the order files were reached in
+            return new TreeMap<>(metadataByFile).values().stream()
+                    .flatMap(Set::stream)
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Scans a file and then the files it imports that are not visited yet.
+     */
+    private final class ImportTask extends RecursiveAction {
+        private final XmlResources.Resource resource;
+        private final XmlResources resources;
+        private final Set<String> visited;
+        private final Map<String, Set<ItemMetadata>> metadataByFile;
+
+        ImportTask(XmlResources.Resource resource, XmlResources resources, Set<String> visited,
+                   Map<String, Set<ItemMetadata>> metadataByFile) {
+            this.resource = resource;
+            this.resources = resources;
+            this.visited = visited;
+            this.metadataByFile = metadataByFile;
+        }
+
+        @Override
+        protected void compute() {
+            List<String> imports = new ArrayList<>();
+            metadataByFile.put(resource.getKey(), getFileMetadata(resource.getPath(), metadataEnricher, imports));
+            List<ImportTask> tasks = new ArrayList<>();
+            try (BuildMetrics.Timer timer = metrics.start("xml.imports")) {
+                for (String location : imports) {
+                    List<XmlResources.Resource> imported = resources.resolveImport(resource, location);
+                    metrics.count("xml.imports", imported.isEmpty() ? "unresolved" : "imports", 1);
+                    for (XmlResources.Resource importedResource : imported) {
+                        if (visited.add(importedResource.getKey())) {
+                            tasks.add(new ImportTask(importedResource, resources, visited, metadataByFile));
+                        }
+                    }
+                }
+            }
+            invokeAll(tasks);
+        }
+    }
+
+    /**
+     * Scans Spring xml files packaged in the jar. Entries are streamed from the zip without extracting them. An entry
+     * is parsed only if its bytes contain both the placeholder prefix and the Spring schema namespace, so resources
+     * without placeholders and xml files of other kinds are skipped without parsing. The source type of a property is
+     * the name of its xml file, the same as for files of the locations. An entry that is not well-formed is logged
+     * and skipped.
+     *
+     * @since 1.1
+     */
+    public Set<ItemMetadata> scanJar(Path jar) {
+        Set<ItemMetadata> jarMetadata = new LinkedHashSet<>();
+        try (ZipFile zipFile = new ZipFile(jar.toFile())) {
+            List<? extends ZipEntry> entries = zipFile.stream()
+                    .filter(entry -> !entry.isDirectory() && "xml".equals(StringUtils.getFilenameExtension(entry.getName())))
+                    .sorted(Comparator.comparing(ZipEntry::getName))
+                    .collect(Collectors.toList());
+            metrics.count("xml.prefilter", "jars", 1);
+            for (ZipEntry entry : entries) {
+                byte[] content;
+                boolean candidate;
+                try (BuildMetrics.Timer timer = metrics.start("xml.prefilter");
+                     InputStream inputStream = zipFile.getInputStream(entry)) {
+                    content = inputStream.readAllBytes();
+                    candidate = indexOf(content, PLACEHOLDER_PREFIX_BYTES) >= 0
+                            && indexOf(content, NAMESPACE_SPRING_BYTES) >= 0;
+                }
+                metrics.count("xml.prefilter", "files", 1);
+                metrics.count("xml.prefilter", "bytes", content.length);
+                if (!candidate) {
+                    metrics.count("xml.prefilter", "skipped", 1);
+                    continue;
+                }
+                String name = entry.getName();
+                try {
+                    jarMetadata.addAll(getMetadata(new ByteArrayInputStream(content), content.length,
+                            name.substring(name.lastIndexOf('/') + 1), metadataEnricher, null));
+                } catch (XmlPullParserException | IOException e) {
+                    // The entry is already read, so the parser failed. A broken resource of a dependency must not
+                    // fail the build of the project
+                    LOGGER.warn("Unable to process file:[{}] of:[{}], it is skipped. {}", name, jar, e.getMessage());
+                    metrics.count("xml.parse", "skipped", 1);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return jarMetadata;
+    }
 
+    /**
+     * Returns the index of the first occurrence of the pattern in the content, -1 if there is none.
+     */
+    static int indexOf(byte[] content, byte[] pattern) {
+        byte first = pattern[0];
+        int last = content.length - pattern.length;
+        for (int i = 0; i <= last; i++) {
+            if (content[i] != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < pattern.length && content[i + j] == pattern[j]) {
+                j++;
+            }
+            if (j == pattern.length) {
+                return i;
+            }
+        }
+        return -1;
     }
 
-    private Set<ItemMetadata> getRootMetadata(Path root) {
+    private Set<ItemMetadata> getRootMetadata(Path root, MetadataEnricher metadataEnricher) {
         Set<ItemMetadata> rootMetadata;
         if (!root.toFile().exists()) {
             rootMetadata = Set.of();
         } else {
 
-            try (Stream<Path> pathStream = Files.find(root, Integer.MAX_VALUE,
-                    ((path, fileAttributes) -> fileAttributes.isRegularFile() && "xml".equals(StringUtils.getFilenameExtension(path.toString()))))) {
-                rootMetadata = pathStream.filter(XmlMetadataScanner::isSpringXml)
-                        .flatMap(path -> getFileMetadata(path).stream())
-                        .collect(Collectors.toSet());
+            List<Path> paths = new ArrayList<>();
+            try (BuildMetrics.Timer timer = metrics.start("xml.discovery")) {
+                Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) {
+                        if (!dir.equals(root) && pathFilter.isExcludedDirectory(root.relativize(dir))) {
+                            metrics.count("xml.discovery", "skippedDirectories", 1);
+                            return FileVisitResult.SKIP_SUBTREE;
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                        if (attributes.isRegularFile() && "xml".equals(StringUtils.getFilenameExtension(file.toString()))
+                                && pathFilter.accepts(root.relativize(file))) {
+                            paths.add(file);
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
             } catch (IOException e) {
                 throw new UncheckedIOException(e);
             }
+            Collections.sort(paths);
+            metrics.count("xml.discovery", "files", paths.size());
+            rootMetadata = paths.stream()
+                    .filter(this::isSpringXml)
+                    .flatMap(path -> getFileMetadata(path, metadataEnricher, null).stream())
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
         }
         return rootMetadata;
     }
 
-    private static boolean isSpringXml(Path path) {
-        try {
-            BufferedReader reader = Files.newBufferedReader(path);
+    private boolean isSpringXml(Path path) {
+        boolean spring;
+        try (BuildMetrics.Timer timer = metrics.start("xml.sniff");
+             BufferedReader reader = Files.newBufferedReader(path)) {
             Xpp3DomEx firstTag = Xpp3DomBuilderEx.buildFirstTag(reader);
-            return firstTag != null && firstTag.getAttributes() != null
+            spring = firstTag != null && firstTag.getAttributes() != null
                     && firstTag.getAttributes().values().stream().anyMatch(v -> v.startsWith(NAMESPACE_SPRING));
         } catch (IOException | XmlPullParserException e) {
             //throw new RuntimeException("Error parsing file '" + path + "'", e);
-            return false;
+            spring = false;
         }
+        metrics.count("xml.sniff", "files", 1);
+        metrics.count("xml.sniff", "springFiles", spring ? 1 : 0);
+        return spring;
+    }
 
+    /**
+     * @param imports if not {@code null}, locations of {@code <import>} elements are added to it
+     */
+    private Set<ItemMetadata> getFileMetadata(Path path, MetadataEnricher metadataEnricher, List<String> imports) {
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            return getMetadata(inputStream, Files.size(path), path.getFileName().toString(), metadataEnricher, imports);
+        } catch (IOException | XmlPullParserException e){
+            throw new RuntimeException("Unable to process file '" + path +"'. " + e.getMessage(), e);
+        }
     }
 
-    private Set<ItemMetadata> getFileMetadata(Path path) {
-        Set<ItemMetadata> fileMetadata = new HashSet<>();
+    /**
+     * Parses the xml from bytes, so the encoding declared by the file is honored.
+     */
+    private Set<ItemMetadata> getMetadata(InputStream inputStream, long size, String sourceType, MetadataEnricher metadataEnricher,
+                                          List<String> imports) throws IOException, XmlPullParserException {
+        Set<ItemMetadata> fileMetadata = new LinkedHashSet<>();
         LinkedBlockingQueue<Xpp3DomEx> queue = new LinkedBlockingQueue<>();
         Xpp3DomEx node;
 
-        try {
-            BufferedReader reader = Files.newBufferedReader(path);
-            Xpp3DomEx root =  Xpp3DomBuilderEx.buildWithComments(reader);
-            if (root == null) return fileMetadata;
+        Xpp3DomEx root;
+        try (BuildMetrics.Timer timer = metrics.start("xml.parse")) {
+            root = Xpp3DomBuilderEx.buildWithComments(inputStream, null);
+        }
+        metrics.count("xml.parse", "files", 1);
+        metrics.count("xml.parse", "bytes", size);
+        if (root == null) return fileMetadata;
 
-            queue.offer(root);
-            while ((node = queue.poll()) != null) {
+        queue.offer(root);
+        while ((node = queue.poll()) != null) {
 
-                if (StringUtils.hasText(node.getValue())) {
-                    Collection<ItemMetadata> metadata = extractMeta(node.getValue(), path);
-                    for (ItemMetadata item : metadata) {
-                         metadataEnricher.enrich(item, node);
-                    }
+            if (StringUtils.hasText(node.getValue())) {
+                Collection<ItemMetadata> metadata = extractMeta(node.getValue(), sourceType);
+                enrich(metadata, node, metadataEnricher);
+                fileMetadata.addAll(metadata);
+            }
 
+            if (node.getAttributes() != null) {
+                for (String value : node.getAttributes().values()) {
+                    Collection<ItemMetadata> metadata = extractMeta(value, sourceType);
+                    enrich(metadata, node, metadataEnricher);
                     fileMetadata.addAll(metadata);
                 }
-
-                if (node.getAttributes() != null) {
-                    for (String value : node.getAttributes().values()) {
-                        Collection<ItemMetadata> metadata = extractMeta(value, path);
-                        for (ItemMetadata item : metadata) {
-                            metadataEnricher.enrich(item, node);
-                        }
-                        fileMetadata.addAll(metadata);
-                    }
+                if (imports != null && isImport(node)) {
+                    imports.add(node.getAttribute(IMPORT_RESOURCE));
                 }
-
-                if (node.getChildList() != null) queue.addAll(node.getChildList());
             }
-        } catch (IOException | XmlPullParserException e){
-            throw new RuntimeException("Unable to process file '" + path +"'. " + e.getMessage(), e);
+
+            if (node.getChildList() != null) queue.addAll(node.getChildList());
         }
         return fileMetadata;
     }
 
-    private Collection<ItemMetadata> extractMeta(String value, Path path) {
-        Map<String, String> map = PROPERTY_HELPER.extractPlaceholders(value);
+    private static boolean isImport(Xpp3DomEx node) {
+        String name = node.getName();
+        return (name.equals(IMPORT) || name.endsWith(VALUE_SEPARATOR + IMPORT)) && node.getAttribute(IMPORT_RESOURCE) != null;
+    }
+
+    private void enrich(Collection<ItemMetadata> metadata, Xpp3DomEx node, MetadataEnricher metadataEnricher) {
+        if (metadata.isEmpty()) {
+            return;
+        }
+        try (BuildMetrics.Timer timer = metrics.start("xml.enrich")) {
+            for (ItemMetadata item : metadata) {
+                metadataEnricher.enrich(item, node);
+            }
+        }
+        metrics.count("xml.enrich", "items", metadata.size());
+    }
+
+    private Collection<ItemMetadata> extractMeta(String value, String sourceType) {
+        Collection<ItemMetadata> metadata;
+        try (BuildMetrics.Timer timer = metrics.start("xml.extract")) {
+            metadata = extractPlaceholders(value, sourceType);
+        }
+        metrics.count("xml.extract", "items", metadata.size());
+        return metadata;
+    }
+
+    private Collection<ItemMetadata> extractPlaceholders(String value, String sourceType) {
+        Map<String, String> map = new TreeMap<>(PROPERTY_HELPER.extractPlaceholders(value));
         return map.entrySet().stream()
                 .map(entry -> {
                     String placeHolder = entry.getKey();
                     String defVal = entry.getValue();
                     ItemMetadata metadata = ItemMetadata.newProperty("", placeHolder, String.class.getCanonicalName(),
-                            path.getFileName().toString(), null, null, defVal, null);
+                            sourceType, null, null, defVal, null);
                     return metadata;
-                }).collect(Collectors.toSet());
+                }).collect(Collectors.toCollection(LinkedHashSet::new));
     }
 
 
@@ -0,0 +1,86 @@
+package org.springframework.configuration.maven.xml;
+
+import java.nio.file.FileSystem;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Glob patterns of xml files to include and to exclude, relative to a root directory. Patterns are compiled once.
+ * <p>
+ * A pattern starting with {@code **}{@code /} matches files of the root directory too. A directory is skipped with all
+ * its files if an exclude pattern matches it or, for a pattern ending with {@code /**}, the part of the pattern before.
+ *
+ * @author tia
+ * @since 1.1
+ */
+final class XmlPathFilter {
+
+    private static final String ANY_DIRECTORY = "**/";
+    private static final String ANY_CONTENT = "/**";
+
+    private final List<PathMatcher> includes;
+    private final List<PathMatcher> excludes;
+    private final List<PathMatcher> excludedDirectories;
+
+    XmlPathFilter(FileSystem fileSystem, List<String> includes, List<String> excludes) {
+        this.includes = compile(fileSystem, includes);
+        this.excludes = compile(fileSystem, excludes);
+        List<String> directories = new ArrayList<>();
+        if (excludes != null) {
+            for (String exclude : excludes) {
+                String pattern = exclude.trim();
+                directories.add(pattern.endsWith(ANY_CONTENT)
+                        ? pattern.substring(0, pattern.length() - ANY_CONTENT.length())
+                        : pattern);
+            }
+        }
+        this.excludedDirectories = compile(fileSystem, directories);
+    }
+
+    private static List<PathMatcher> compile(FileSystem fileSystem, List<String> patterns) {
+        List<PathMatcher> matchers = new ArrayList<>();
+        if (patterns == null) {
+            return matchers;
+        }
+        for (String pattern : patterns) {
+            pattern = pattern.trim();
+            if (pattern.isEmpty()) {
+                continue;
+            }
+            matchers.add(fileSystem.getPathMatcher("glob:" + pattern));
+            if (pattern.startsWith(ANY_DIRECTORY)) {
+                matchers.add(fileSystem.getPathMatcher("glob:" + pattern.substring(ANY_DIRECTORY.length())));
+            }
+        }
+        return matchers;
+    }
+
+    /**
+     * Returns {@code true} if the directory and all its files are to be skipped.
+     *
+     * @param directory relative to the root directory
+     */
+    boolean isExcludedDirectory(Path directory) {
+        return matchesAny(excludedDirectories, directory);
+    }
+
+    /**
+     * Returns {@code true} if the file is included, or there are no includes, and not excluded.
+     *
+     * @param file relative to the root directory
+     */
+    boolean accepts(Path file) {
+        return (includes.isEmpty() || matchesAny(includes, file)) && !matchesAny(excludes, file);
+    }
+
+    private static boolean matchesAny(List<PathMatcher> matchers, Path path) {
+        for (PathMatcher matcher : matchers) {
+            if (matcher.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
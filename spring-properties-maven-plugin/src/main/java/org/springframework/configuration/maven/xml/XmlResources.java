@@ -0,0 +1,284 @@
+package org.springframework.configuration.maven.xml;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Resolves locations of Spring xml resources the way an application context does:
+ * <ul>
+ *     <li>{@code classpath:name} - the first resource of the name on the classpath;</li>
+ *     <li>{@code classpath*:name} - resources of the name in all classpath entries;</li>
+ *     <li>{@code file:path} or a plain path - a file;</li>
+ *     <li>a location of an {@code <import>} without a prefix - relative to the importing resource.</li>
+ * </ul>
+ * Names and paths may contain Ant-style patterns: {@code ?}, {@code *} and {@code **}.
+ * <p>
+ * Classpath entries are directories and jars. A jar is opened by the first lookup that is not found in the entries
+ * before it and stays open until the resources are closed. Lookups may run in parallel.
+ *
+ * @author tia
+ * @since 1.1
+ */
+final class XmlResources implements Closeable {
+
+    static final String CLASSPATH_PREFIX = "classpath:";
+    static final String CLASSPATH_ALL_PREFIX = "classpath*:";
+    static final String FILE_PREFIX = "file:";
+
+    private static final Pattern URL_PREFIX = Pattern.compile("[a-zA-Z][a-zA-Z0-9+.-]+:.*");
+
+    private final List<Path> classpath;
+    private final Map<Path, FileSystem> jars = new ConcurrentHashMap<>();
+
+    XmlResources(List<Path> classpath) {
+        this.classpath = classpath;
+    }
+
+    /**
+     * Resolves a root location.
+     *
+     * @throws IllegalArgumentException if the location is not a pattern and there is no such resource
+     */
+    List<Resource> resolve(String location) {
+        List<Resource> resources;
+        if (location.startsWith(CLASSPATH_ALL_PREFIX)) {
+            resources = findOnClasspath(location.substring(CLASSPATH_ALL_PREFIX.length()), true);
+        } else if (location.startsWith(CLASSPATH_PREFIX)) {
+            resources = findOnClasspath(location.substring(CLASSPATH_PREFIX.length()), false);
+        } else {
+            resources = findFiles(toPath(location));
+        }
+        if (resources.isEmpty() && !isPattern(location)) {
+            throw new IllegalArgumentException("Root context '" + location + "' is not found");
+        }
+        return resources;
+    }
+
+    /**
+     * Resolves the location of an {@code <import>} of the resource.
+     *
+     * @return resources found, empty if there are none or the location is not supported, e.g. contains placeholders
+     * or is an URL
+     */
+    List<Resource> resolveImport(Resource importer, String location) {
+        location = location.trim();
+        if (location.isEmpty() || location.contains("${")) {
+            return List.of();
+        }
+        if (location.startsWith(CLASSPATH_ALL_PREFIX)) {
+            return findOnClasspath(location.substring(CLASSPATH_ALL_PREFIX.length()), true);
+        }
+        if (location.startsWith(CLASSPATH_PREFIX)) {
+            return findOnClasspath(location.substring(CLASSPATH_PREFIX.length()), false);
+        }
+        if (location.startsWith(FILE_PREFIX)) {
+            return findFiles(toPath(location));
+        }
+        if (URL_PREFIX.matcher(location).matches()) {
+            return List.of();
+        }
+        // As ClassPathResource.createRelative() and FileSystemResource.createRelative(): a leading slash is ignored
+        String relative = location.replaceFirst("^/+", "");
+        if (importer.getClasspathName() != null) {
+            String name = importer.getClasspathName();
+            String parent = name.substring(0, name.lastIndexOf('/') + 1);
+            String normalized = Path.of(parent + relative).normalize().toString().replace('\\', '/');
+            return findOnClasspath(normalized, false);
+        }
+        return findFiles(importer.getPath().resolveSibling(relative).normalize());
+    }
+
+    private List<Resource> findOnClasspath(String name, boolean all) {
+        name = name.replaceFirst("^/+", "");
+        List<Resource> found = new ArrayList<>();
+        for (Path entry : classpath) {
+            Path root = rootOf(entry);
+            if (root == null) {
+                continue;
+            }
+            List<Path> paths;
+            if (isPattern(name)) {
+                paths = match(root, name);
+            } else {
+                Path path = root.resolve(name);
+                paths = Files.isRegularFile(path) ? List.of(path) : List.of();
+            }
+            for (Path path : paths) {
+                found.add(new Resource(path, separatorsOf(root.relativize(path))));
+            }
+            if (!all && !found.isEmpty()) {
+                break;
+            }
+        }
+        return found;
+    }
+
+    private List<Resource> findFiles(Path path) {
+        String pathString = separatorsOf(path);
+        if (!isPattern(pathString)) {
+            return Files.isRegularFile(path) ? List.of(new Resource(path, null)) : List.of();
+        }
+        int wildcard = indexOfWildcard(pathString);
+        int base = pathString.lastIndexOf('/', wildcard);
+        Path baseDir = path.getFileSystem().getPath(pathString.substring(0, base + 1));
+        return match(baseDir, pathString.substring(base + 1)).stream()
+                .map(file -> new Resource(file, null))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the files under the directory which relative paths match the pattern, sorted.
+     */
+    private static List<Path> match(Path dir, String pattern) {
+        int wildcard = indexOfWildcard(pattern);
+        int base = pattern.lastIndexOf('/', wildcard);
+        Path baseDir = dir.resolve(pattern.substring(0, base + 1));
+        if (!Files.isDirectory(baseDir)) {
+            return List.of();
+        }
+        String remaining = pattern.substring(base + 1);
+        Pattern regex = toRegex(remaining);
+        int depth = remaining.contains("**") ? Integer.MAX_VALUE : remaining.split("/").length;
+        try (Stream<Path> paths = Files.find(baseDir, depth, (path, attributes) -> attributes.isRegularFile()
+                && regex.matcher(separatorsOf(baseDir.relativize(path))).matches())) {
+            return paths.sorted().collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static Pattern toRegex(String antPattern) {
+        StringBuilder regex = new StringBuilder(antPattern.length() * 2);
+        int i = 0;
+        while (i < antPattern.length()) {
+            char c = antPattern.charAt(i);
+            if (antPattern.startsWith("**/", i)) {
+                regex.append("(?:.*/)?");
+                i += 3;
+                continue;
+            }
+            if (antPattern.startsWith("**", i)) {
+                regex.append(".*");
+                i += 2;
+                continue;
+            }
+            if (c == '*') {
+                regex.append("[^/]*");
+            } else if (c == '?') {
+                regex.append("[^/]");
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+            i++;
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    private static boolean isPattern(String location) {
+        return indexOfWildcard(location) >= 0;
+    }
+
+    private static int indexOfWildcard(String location) {
+        int star = location.indexOf('*', location.startsWith(CLASSPATH_ALL_PREFIX) ? CLASSPATH_ALL_PREFIX.length() : 0);
+        int question = location.indexOf('?');
+        return star < 0 ? question : question < 0 ? star : Math.min(star, question);
+    }
+
+    private static Path toPath(String location) {
+        if (location.startsWith(FILE_PREFIX)) {
+            return location.startsWith(FILE_PREFIX + "/") && !isPattern(location)
+                    ? Path.of(URI.create(location))
+                    : Path.of(location.substring(FILE_PREFIX.length()));
+        }
+        return Path.of(location);
+    }
+
+    private static String separatorsOf(Path path) {
+        return path.toString().replace(path.getFileSystem().getSeparator(), "/");
+    }
+
+    /**
+     * Returns the root of a classpath entry, {@code null} if it is neither a directory nor a jar.
+     */
+    private Path rootOf(Path entry) {
+        if (Files.isDirectory(entry)) {
+            return entry;
+        }
+        if (!Files.isRegularFile(entry)) {
+            return null;
+        }
+        FileSystem jar = jars.computeIfAbsent(entry, XmlResources::openJar);
+        return jar == null ? null : jar.getPath("/");
+    }
+
+    private static FileSystem openJar(Path jar) {
+        try {
+            return FileSystems.newFileSystem(jar, (ClassLoader) null);
+        } catch (IOException | RuntimeException e) {
+            // Not a zip file
+            return null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (FileSystem jar : jars.values()) {
+            try {
+                jar.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        jars.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * A resolved xml file.
+     */
+    static final class Resource {
+        private final Path path;
+        private final String classpathName;
+        private final String key;
+
+        Resource(Path path, String classpathName) {
+            this.path = path;
+            this.classpathName = classpathName;
+            this.key = path.toAbsolutePath().normalize().toUri().toString();
+        }
+
+        Path getPath() {
+            return path;
+        }
+
+        /**
+         * Returns the name on the classpath, {@code null} for a file resource.
+         */
+        String getClasspathName() {
+            return classpathName;
+        }
+
+        /**
+         * Returns the unique key of the file: its URI.
+         */
+        String getKey() {
+            return key;
+        }
+    }
+}
@@ -194,6 +194,21 @@ public class Xpp3DomBuilderEx {
         }
     }
 
+    /**
+     * @param encoding {@code null} to honor the encoding declared by the document, UTF-8 if none is declared
+     */
+    public static Xpp3DomEx buildWithComments(InputStream is, String encoding) throws XmlPullParserException, IOException {
+        XmlPullParser parser = new MXParser();
+
+        parser.setInput(is, encoding);
+
+        try {
+            return buildWithComments(parser, DEFAULT_TRIM);
+        } finally {
+            close(is);
+        }
+    }
+
     public static Xpp3DomEx buildWithComments(XmlPullParser parser, boolean trim) throws XmlPullParserException, IOException {
         List<Xpp3DomEx> elements = new ArrayList<>();
 
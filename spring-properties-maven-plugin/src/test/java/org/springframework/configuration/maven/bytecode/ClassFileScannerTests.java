@@ -0,0 +1,174 @@
+package org.springframework.configuration.maven.bytecode;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.configurationprocessor.metadata.ItemMetadata;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatRuntimeException;
+import static org.assertj.core.api.Assertions.tuple;
+
+class ClassFileScannerTests {
+
+    /**
+     * Fixtures compiled by the tests: {@code @Value} is declared by the fixtures, so no Spring jar is needed.
+     */
+    private static final Map<String, String> SOURCES = Map.of(
+            "org/springframework/beans/factory/annotation/Value.java",
+            "package org.springframework.beans.factory.annotation;\n"
+                    + "import java.lang.annotation.*;\n"
+                    + "@Retention(RetentionPolicy.RUNTIME)\n"
+                    + "@Target({ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER, ElementType.ANNOTATION_TYPE})\n"
+                    + "public @interface Value { String value(); }\n",
+            "com/example/ServerPort.java",
+            "package com.example;\n"
+                    + "import java.lang.annotation.*;\n"
+                    + "import org.springframework.beans.factory.annotation.Value;\n"
+                    + "@Value(\"${server.port:8080}\")\n"
+                    + "@Retention(RetentionPolicy.RUNTIME)\n"
+                    + "public @interface ServerPort { }\n",
+            "com/example/Server.java",
+            "package com.example;\n"
+                    + "import org.springframework.beans.factory.annotation.Value;\n"
+                    + "public class Server {\n"
+                    + "    static final long TIMEOUT = 30_000_000_000L;\n"
+                    + "    static final double RATIO = 0.75;\n"
+                    + "    static final long[] LIMITS = {40_000_000_000L, 50_000_000_000L};\n"
+                    + "    static final double[] WEIGHTS = {0.25, 0.5};\n"
+                    + "    @Value(\"${server.host:localhost}\") String host;\n"
+                    + "    @ServerPort int port;\n"
+                    + "    @Deprecated @Value(\"${server.legacy}\") long legacy;\n"
+                    + "    public Server(@Value(\"${server.threads:4}\") int threads) { }\n"
+                    + "    @Value(\"${server.name}\") public void setName(String name) { }\n"
+                    + "}\n");
+
+    @TempDir
+    Path tempDir;
+
+    private Path classes;
+
+    @BeforeEach
+    void compileFixtures() throws IOException {
+        Path sources = tempDir.resolve("sources");
+        classes = tempDir.resolve("classes");
+        Files.createDirectories(classes);
+        for (Map.Entry<String, String> source : SOURCES.entrySet()) {
+            Path file = sources.resolve(source.getKey());
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, source.getValue());
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        List<String> arguments;
+        try (Stream<Path> files = Files.walk(sources)) {
+            arguments = Stream.concat(Stream.of("-d", classes.toString()),
+                    files.filter(Files::isRegularFile).map(Path::toString)).collect(Collectors.toList());
+        }
+        assertThat(compiler.run(null, null, null, arguments.toArray(String[]::new))).isZero();
+    }
+
+    @Test
+    void scanClassFindsValueOfFieldsParametersAndMethods() throws IOException {
+        List<ItemMetadata> properties = new ClassFileScanner().scanClass(classFile("com/example/Server.class"));
+
+        assertThat(properties)
+                .extracting(ItemMetadata::getName, ItemMetadata::getType, ItemMetadata::getSourceType,
+                        ItemMetadata::getDefaultValue)
+                .containsExactlyInAnyOrder(
+                        tuple("server.host", "java.lang.String", "com.example.Server", "localhost"),
+                        tuple("server.legacy", "java.lang.Long", "com.example.Server", null),
+                        tuple("server.threads", "java.lang.Integer", "com.example.Server", "4"),
+                        tuple("server.name", "java.lang.String", "com.example.Server", null));
+        assertThat(properties).filteredOn(property -> property.getDeprecation() != null)
+                .extracting(ItemMetadata::getName)
+                .containsExactly("server.legacy");
+    }
+
+    @Test
+    void scanClassFindsValueOfMetaAnnotation() throws IOException {
+        List<ItemMetadata> properties = new ClassFileScanner().scanClass(classFile("com/example/ServerPort.class"));
+
+        // The property belongs to the annotation declaring it, not to the elements annotated by it
+        assertThat(properties)
+                .extracting(ItemMetadata::getName, ItemMetadata::getType, ItemMetadata::getSourceType,
+                        ItemMetadata::getDefaultValue)
+                .containsExactly(tuple("server.port", "java.lang.String", "com.example.ServerPort", "8080"));
+    }
+
+    @Test
+    void scanClassReadsConstantPoolAfterLongAndDoubleConstants() throws IOException {
+        byte[] classFile = classFile("com/example/Server.class");
+        // Long and Double constants take two constant pool slots, entries after them must still be found
+        String constantPool = new String(classFile, StandardCharsets.ISO_8859_1);
+        assertThat(constantPool)
+                .contains(new String(ByteBuffer.allocate(9).put((byte) 5).putLong(30_000_000_000L).array(),
+                        StandardCharsets.ISO_8859_1))
+                .contains(new String(ByteBuffer.allocate(9).put((byte) 6).putDouble(0.75).array(),
+                        StandardCharsets.ISO_8859_1));
+
+        assertThat(new ClassFileScanner().scanClass(classFile)).extracting(ItemMetadata::getName)
+                .contains("server.host", "server.threads");
+    }
+
+    @Test
+    void scanClassSkipsClassWithoutPlaceholders() throws IOException {
+        assertThat(new ClassFileScanner().scanClass(
+                classFile("org/springframework/beans/factory/annotation/Value.class"))).isEmpty();
+    }
+
+    @Test
+    void scanClassRejectsCorruptClass() throws IOException {
+        byte[] classFile = classFile("com/example/Server.class");
+
+        assertThatRuntimeException().isThrownBy(() -> new ClassFileScanner().scanClass(new byte[]{1, 2, 3}));
+        assertThatRuntimeException().isThrownBy(() -> new ClassFileScanner()
+                .scanClass(Arrays.copyOf(classFile, classFile.length - 40)));
+    }
+
+    @Test
+    void scanJarSkipsCorruptClasses() throws IOException {
+        byte[] classFile = classFile("com/example/Server.class");
+        byte[] unknownTag = Arrays.copyOf(classFile, classFile.length);
+        unknownTag[10] = (byte) 99;
+        Path jar = tempDir.resolve("lib.jar");
+        try (OutputStream outputStream = Files.newOutputStream(jar);
+             ZipOutputStream zip = new ZipOutputStream(outputStream)) {
+            addEntry(zip, "com/example/A.class", "not a class".getBytes(StandardCharsets.US_ASCII));
+            addEntry(zip, "com/example/B.class", Arrays.copyOf(classFile, classFile.length - 40));
+            addEntry(zip, "com/example/C.class", unknownTag);
+            addEntry(zip, "com/example/Server.class", classFile);
+            addEntry(zip, "com/example/ServerPort.class", classFile("com/example/ServerPort.class"));
+        }
+
+        assertThat(new ClassFileScanner().scanJar(jar)).extracting(ItemMetadata::getName)
+                .containsExactlyInAnyOrder("server.host", "server.legacy", "server.threads", "server.name",
+                        "server.port");
+    }
+
+    private byte[] classFile(String name) throws IOException {
+        return Files.readAllBytes(classes.resolve(name));
+    }
+
+    private static void addEntry(ZipOutputStream zip, String name, byte[] content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content);
+        zip.closeEntry();
+    }
+}
@@ -0,0 +1,45 @@
+package org.springframework.configuration.maven.patch;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DocumentPagesTests {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void deleteStalePagesDeletesOnlyPagesWrittenBefore() throws IOException {
+        File output = tempDir.resolve("properties.md").toFile();
+        for (String name : new String[]{"properties-1.md", "properties-2.md", "properties-3.md"}) {
+            Files.writeString(tempDir.resolve(name), name);
+        }
+        DocumentPages.deleteStalePages(output, 3);
+
+        Files.writeString(tempDir.resolve("properties-4.md"), "written by hand");
+        DocumentPages.deleteStalePages(output, 1);
+
+        assertThat(tempDir.resolve("properties-1.md")).exists();
+        assertThat(tempDir.resolve("properties-2.md")).doesNotExist();
+        assertThat(tempDir.resolve("properties-3.md")).doesNotExist();
+        assertThat(tempDir.resolve("properties-4.md")).exists();
+        assertThat(DocumentPages.manifestFile(output)).hasContent("properties-1.md");
+    }
+
+    @Test
+    void deleteStalePagesKeepsFilesWithoutManifest() throws IOException {
+        File output = tempDir.resolve("properties.adoc").toFile();
+        Files.writeString(tempDir.resolve("properties-2.adoc"), "not written by the plugin");
+
+        DocumentPages.deleteStalePages(output, 1);
+
+        assertThat(tempDir.resolve("properties-2.adoc")).exists();
+    }
+}
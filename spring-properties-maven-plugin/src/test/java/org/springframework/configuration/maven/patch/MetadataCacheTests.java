@@ -0,0 +1,68 @@
+package org.springframework.configuration.maven.patch;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MetadataCacheTests {
+
+    private static final String SHA1 = "0123456789abcdef0123456789abcdef01234567";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void jarReplacedUnderUnchangedChecksumFileMisses() throws IOException {
+        Path jar = tempDir.resolve("repository/lib-1.0-SNAPSHOT.jar");
+        Files.createDirectories(jar.getParent());
+        Files.writeString(jar, "first jar");
+        Files.writeString(jar.resolveSibling(jar.getFileName() + ".sha1"), SHA1);
+        Files.setLastModifiedTime(jar, FileTime.fromMillis(1_000_000L));
+        MetadataCache cache = new MetadataCache(tempDir.resolve("cache"));
+        Artifact artifact = artifactOf(jar);
+
+        Path entry = cache.entryOf(artifact);
+        cache.put(entry, "{}".getBytes(StandardCharsets.UTF_8));
+        assertThat(cache.get(cache.entryOf(artifact))).isEqualTo("{}".getBytes(StandardCharsets.UTF_8));
+
+        Files.writeString(jar, "second jar, rewritten by install");
+        Files.setLastModifiedTime(jar, FileTime.fromMillis(2_000_000L));
+
+        Path replacedEntry = cache.entryOf(artifact);
+        assertThat(replacedEntry).isNotEqualTo(entry);
+        assertThat(cache.get(replacedEntry)).isNull();
+    }
+
+    @Test
+    void jarOfSameSizeTouchedUnderUnchangedChecksumFileMisses() throws IOException {
+        Path jar = tempDir.resolve("lib-1.0.jar");
+        Files.writeString(jar, "jar a");
+        Files.writeString(jar.resolveSibling(jar.getFileName() + ".sha1"), SHA1);
+        Files.setLastModifiedTime(jar, FileTime.fromMillis(1_000_000L));
+        MetadataCache cache = new MetadataCache(tempDir.resolve("cache"));
+        Artifact artifact = artifactOf(jar);
+        cache.put(cache.entryOf(artifact), MetadataCache.NO_METADATA);
+
+        Files.writeString(jar, "jar b");
+        Files.setLastModifiedTime(jar, FileTime.fromMillis(1_001_000L));
+
+        assertThat(cache.get(cache.entryOf(artifact))).isNull();
+    }
+
+    private static Artifact artifactOf(Path jar) {
+        DefaultArtifact artifact = new DefaultArtifact("com.example", "lib", "1.0", "compile", "jar", null,
+                new DefaultArtifactHandler("jar"));
+        artifact.setFile(jar.toFile());
+        return artifact;
+    }
+}
@@ -0,0 +1,73 @@
+package org.springframework.configuration.maven.patch;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.rodnansol.core.generator.template.data.Property;
+import org.rodnansol.core.generator.template.data.PropertyGroup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class MetadataReaderPatchTests {
+
+    private static final String TYPE = "com.example.Properties";
+
+    @Test
+    void propertyGoesToGroupWithLongestMatchingName() {
+        Map<String, PropertyGroup> groups = read(
+                new String[]{"", "foo", "foo.bar", "foobar"},
+                new String[]{"top", "other.a", "foo.a", "foo.bar.b", "foo.barbaz.c", "foobar.d"});
+
+        assertThat(groups.get("").getProperties()).extracting(Property::getFqName, Property::getKey)
+                .containsExactlyInAnyOrder(tuple("top", "top"), tuple("other.a", "other.a"));
+        assertThat(groups.get("foo").getProperties()).extracting(Property::getFqName, Property::getKey)
+                .containsExactlyInAnyOrder(tuple("foo.a", "a"), tuple("foo.barbaz.c", "barbaz.c"));
+        assertThat(groups.get("foo.bar").getProperties()).extracting(Property::getFqName, Property::getKey)
+                .containsExactlyInAnyOrder(tuple("foo.bar.b", "b"));
+        assertThat(groups.get("foobar").getProperties()).extracting(Property::getFqName, Property::getKey)
+                .containsExactlyInAnyOrder(tuple("foobar.d", "d"));
+    }
+
+    @Test
+    void propertyNamedLikeGroupGoesToEnclosingGroup() {
+        Map<String, PropertyGroup> groups = read(new String[]{"", "foo"}, new String[]{"foo", "foo.a"});
+
+        assertThat(groups.get("").getProperties()).extracting(Property::getFqName).containsExactlyInAnyOrder("foo");
+        assertThat(groups.get("foo").getProperties()).extracting(Property::getFqName).containsExactlyInAnyOrder("foo.a");
+    }
+
+    @Test
+    void propertyWithoutMatchingGroupIsNotListed() {
+        Map<String, PropertyGroup> groups = read(new String[]{"foo", "foo.bar"}, new String[]{"foo.a", "other.b"});
+
+        assertThat(groups.get("foo").getProperties()).extracting(Property::getFqName).containsExactlyInAnyOrder("foo.a");
+        assertThat(groups.get("foo.bar").getProperties()).isEmpty();
+    }
+
+    /**
+     * Reads groups and properties of one class, returns groups by name.
+     */
+    private static Map<String, PropertyGroup> read(String[] groupNames, String[] propertyNames) {
+        StringBuilder json = new StringBuilder("{\"groups\": [");
+        for (int i = 0; i < groupNames.length; i++) {
+            json.append(i > 0 ? ", " : "").append("{\"name\": \"").append(groupNames[i]).append("\", \"type\": \"")
+                    .append(TYPE).append("\", \"sourceType\": \"").append(TYPE).append("\"}");
+        }
+        json.append("], \"properties\": [");
+        for (int i = 0; i < propertyNames.length; i++) {
+            json.append(i > 0 ? ", " : "").append("{\"name\": \"").append(propertyNames[i])
+                    .append("\", \"type\": \"java.lang.String\", \"sourceType\": \"").append(TYPE).append("\"}");
+        }
+        json.append("]}");
+        List<PropertyGroup> groups = new MetadataReaderPatch().readPropertiesAsPropertyGroupList(
+                new ByteArrayInputStream(json.toString().getBytes(StandardCharsets.UTF_8)));
+        return groups.stream()
+                .filter(group -> !group.isUnknownGroup())
+                .collect(Collectors.toMap(PropertyGroup::getGroupName, group -> group));
+    }
+}
@@ -0,0 +1,119 @@
+package org.springframework.configuration.maven.properties;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.configuration.maven.properties.PropertiesCrossReference.Finding;
+import org.springframework.configurationprocessor.metadata.ConfigurationMetadata;
+import org.springframework.configurationprocessor.metadata.ItemMetadata;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class PropertiesCrossReferenceTests {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void unknownKeysAreReportedAsUnused() throws IOException {
+        PropertiesCrossReference.Report report = check(metadata("server.port", "java.lang.Integer", 8080),
+                "server.port=9090\nserver.host=localhost\n");
+
+        assertThat(report.getUnusedKeys()).extracting(Finding::getName, Finding::getLine)
+                .containsExactly(tuple("server.host", 2));
+        assertThat(report.getUndefinedPlaceholders()).isEmpty();
+        assertThat(report.getUndefinedProperties()).isEmpty();
+    }
+
+    @Test
+    void keysMatchMetadataByRelaxedNames() throws IOException {
+        PropertiesCrossReference.Report report = check(metadata("app.my-prop", "java.lang.String", null),
+                "app.my_prop=1\n");
+
+        assertThat(report.isEmpty()).isTrue();
+    }
+
+    @Test
+    void elementsOfMapAndListPropertiesAreKnown() throws IOException {
+        ConfigurationMetadata metadata = metadata("app.labels", "java.util.Map<java.lang.String,java.lang.String>", "");
+        metadata.add(property("app.hosts", "java.util.List<java.lang.String>", ""));
+        metadata.add(property("app.ports", "java.lang.Integer[]", ""));
+        PropertiesCrossReference.Report report = check(metadata,
+                "app.labels.team=core\napp.hosts[0]=a\napp.hosts[1]=b\napp.ports[0]=80\napp.other=1\n");
+
+        assertThat(report.getUnusedKeys()).extracting(Finding::getName).containsExactly("app.other");
+    }
+
+    @Test
+    void propertiesWithoutDefaultValueMustBeDefined() throws IOException {
+        ConfigurationMetadata metadata = metadata("server.port", "java.lang.Integer", 8080);
+        metadata.add(property("server.host", "java.lang.String", null));
+        metadata.add(property("server.name", "java.lang.String", null));
+        PropertiesCrossReference.Report report = check(metadata, "server.name=main\n");
+
+        assertThat(report.getUndefinedProperties()).containsExactly("server.host");
+    }
+
+    @Test
+    void placeholdersMustBeDefined() throws IOException {
+        PropertiesCrossReference.Report report = check(metadata("server.port", "java.lang.Integer", null),
+                "server.port=${base.port}\nbase.url=http://${base.host}:${server.port}\nbase.host=localhost\n");
+
+        assertThat(report.getUndefinedPlaceholders()).extracting(Finding::getName, Finding::getLine)
+                .containsExactly(tuple("base.port", 1));
+        assertThat(report.getUndefinedProperties()).isEmpty();
+    }
+
+    @Test
+    void placeholdersMarkUnknownKeysAsUsedByRelaxedNames() throws IOException {
+        PropertiesCrossReference.Report report = check(new ConfigurationMetadata(),
+                "app.my-prop=1\napp.other=2\napp.url=${app.my_prop}\n");
+
+        assertThat(report.getUnusedKeys()).extracting(Finding::getName).containsExactly("app.other", "app.url");
+        assertThat(report.getUndefinedPlaceholders()).isEmpty();
+    }
+
+    @Test
+    void placeholdersWithDefaultValueMarkKeysAsUsed() throws IOException {
+        PropertiesCrossReference.Report report = check(new ConfigurationMetadata(),
+                "app.a=1\napp.url=${app.a:x}\napp.name=${app.b:y}\n");
+
+        assertThat(report.getUnusedKeys()).extracting(Finding::getName).containsExactly("app.url", "app.name");
+        assertThat(report.getUndefinedPlaceholders()).isEmpty();
+    }
+
+    @Test
+    void placeholderIsReportedOnceAcrossFiles() throws IOException {
+        Path first = tempDir.resolve("first.properties");
+        Files.writeString(first, "app.a=${app.missing:x}\n");
+        Path second = tempDir.resolve("second.properties");
+        Files.writeString(second, "app.b=${app.missing}\napp.c=${app.missing}\n");
+        PropertiesCrossReference.Report report = new PropertiesCrossReference(new ConfigurationMetadata())
+                .check(List.of(first, second), StandardCharsets.UTF_8);
+
+        assertThat(report.getUndefinedPlaceholders()).extracting(Finding::getName, Finding::getFile, Finding::getLine)
+                .containsExactly(tuple("app.missing", second, 1));
+    }
+
+    private PropertiesCrossReference.Report check(ConfigurationMetadata metadata, String content) throws IOException {
+        Path file = tempDir.resolve("application.properties");
+        Files.writeString(file, content);
+        return new PropertiesCrossReference(metadata).check(List.of(file), StandardCharsets.UTF_8);
+    }
+
+    private static ConfigurationMetadata metadata(String name, String type, Object defaultValue) {
+        ConfigurationMetadata metadata = new ConfigurationMetadata();
+        metadata.add(property(name, type, defaultValue));
+        return metadata;
+    }
+
+    private static ItemMetadata property(String name, String type, Object defaultValue) {
+        return ItemMetadata.newProperty(null, name, type, null, null, null, defaultValue, null);
+    }
+}
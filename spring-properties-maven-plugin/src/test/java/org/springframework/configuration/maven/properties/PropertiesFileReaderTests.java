@@ -0,0 +1,79 @@
+package org.springframework.configuration.maven.properties;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+class PropertiesFileReaderTests {
+
+    @Test
+    void separatorsAreReadLikeProperties() throws IOException {
+        assertSameAsProperties("a=1\nb:2\nc 3\nd\t=\t4\ne  :  5\nf\fg\nh\ni=\nj = = k\n");
+    }
+
+    @Test
+    void continuationLinesAreReadLikeProperties() throws IOException {
+        assertSameAsProperties("a=one \\\n    two \\\n\tthree\n"
+                + "ke\\\n  y=value\n"
+                + "b=even\\\\\nc=odd\\\\\\\n  next\n"
+                + "d=\\\n\n"
+                + "e=\\\n  # not a comment\n"
+                + "\\\n# after an empty continuation\n"
+                + "f=last\\");
+    }
+
+    @Test
+    void escapesAreReadLikeProperties() throws IOException {
+        assertSameAsProperties("a=tab\\tnew\\nreturn\\rfeed\\f\n"
+                + "b=\\u0041\\u00e9\\u4e2d\n"
+                + "c=\\u0041\n"
+                + "key\\ with\\ spaces=1\n"
+                + "key\\=equals\\:colon=2\n"
+                + "d=\\x\\y\\\\\n"
+                + "e=\\u20AC");
+    }
+
+    @Test
+    void commentsAndBlankLinesAreSkipped() throws IOException {
+        assertSameAsProperties("# comment\n! comment\n   # indented comment\n\n   \na=1 # not a comment\n");
+    }
+
+    @Test
+    void lineEndingsAreReadLikeProperties() throws IOException {
+        assertSameAsProperties("a=1\r\nb=2\rc=\\\r\n  3\r\n");
+    }
+
+    @Test
+    void lineOfFirstPhysicalLineIsReported() throws IOException {
+        Map<String, Integer> lines = new LinkedHashMap<>();
+        PropertiesFileReader.read(new BufferedReader(new StringReader("# comment\na=1\nb=one \\\n two\n\nc=3\n")),
+                (key, value, line) -> lines.put(key, line));
+
+        assertThat(lines).containsExactly(entry("a", 2), entry("b", 3), entry("c", 6));
+    }
+
+    private static void assertSameAsProperties(String content) throws IOException {
+        Properties expected = new Properties();
+        expected.load(new StringReader(content));
+        Map<String, String> actual = new LinkedHashMap<>();
+        PropertiesFileReader.read(new BufferedReader(new StringReader(content)), (key, value, line) -> actual.put(key, value));
+
+        assertThat(actual).containsExactlyInAnyOrderEntriesOf(toMap(expected));
+    }
+
+    private static Map<String, String> toMap(Properties properties) {
+        Map<String, String> map = new LinkedHashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            map.put(name, properties.getProperty(name));
+        }
+        return map;
+    }
+}
@@ -0,0 +1,36 @@
+package org.springframework.configuration.maven.xml;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MetadataProcessorTests {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void fragmentIsDeletedWhenThereAreNoProperties() throws IOException {
+        Path xml = tempDir.resolve("resources/context.xml");
+        Files.createDirectories(xml.getParent());
+        Files.writeString(xml, "<beans xmlns=\"http://www.springframework.org/schema/beans\">\n"
+                + "    <bean class=\"com.example.Server\" p:port=\"${server.port:8080}\"/>\n"
+                + "</beans>\n");
+        Path fragments = tempDir.resolve("fragments");
+        Path fragment = fragments.resolve(MetadataStore.XML_FRAGMENT_PATH);
+
+        new MetadataProcessor(List.of(xml.getParent()), tempDir.resolve("META-INF"), fragments).execute();
+        assertThat(fragment).content().contains("server.port");
+
+        Files.writeString(xml, "<beans xmlns=\"http://www.springframework.org/schema/beans\"/>\n");
+        new MetadataProcessor(List.of(xml.getParent()), tempDir.resolve("META-INF"), fragments).execute();
+        assertThat(fragment).doesNotExist();
+        assertThat(tempDir.resolve("META-INF")).doesNotExist();
+    }
+}
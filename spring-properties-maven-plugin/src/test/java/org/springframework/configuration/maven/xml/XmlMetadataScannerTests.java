@@ -0,0 +1,71 @@
+package org.springframework.configuration.maven.xml;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.configurationprocessor.metadata.ItemMetadata;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class XmlMetadataScannerTests {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void scanJarSkipsMalformedEntry() throws IOException {
+        Path jar = jarOf(
+                "META-INF/spring/broken.xml", beans("server.port", "8080").replace("</beans>", ""), StandardCharsets.UTF_8,
+                "META-INF/spring/context.xml", beans("server.host", "localhost"), StandardCharsets.UTF_8);
+
+        assertThat(new XmlMetadataScanner(List.of()).scanJar(jar))
+                .extracting(ItemMetadata::getName, ItemMetadata::getSourceType)
+                .containsExactly(tuple("server.host", "context.xml"));
+    }
+
+    @Test
+    void scanJarHonorsDeclaredEncoding() throws IOException {
+        String xml = beans("greeting", "Grüße").replace("<?xml version=\"1.0\"?>",
+                "<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?>");
+        Path jar = jarOf("META-INF/spring/context.xml", xml, StandardCharsets.ISO_8859_1);
+
+        assertThat(new XmlMetadataScanner(List.of()).scanJar(jar))
+                .extracting(ItemMetadata::getDefaultValue)
+                .containsExactly("Grüße");
+    }
+
+    private static String beans(String property, String defaultValue) {
+        return "<?xml version=\"1.0\"?>\n"
+                + "<beans xmlns=\"http://www.springframework.org/schema/beans\">\n"
+                + "    <bean class=\"com.example.Server\">\n"
+                + "        <property name=\"value\" value=\"${" + property + ":" + defaultValue + "}\"/>\n"
+                + "    </bean>\n"
+                + "</beans>\n";
+    }
+
+    /**
+     * @param entries name, content and charset of every entry
+     */
+    private Path jarOf(Object... entries) throws IOException {
+        Path jar = tempDir.resolve("lib.jar");
+        try (OutputStream outputStream = Files.newOutputStream(jar);
+             ZipOutputStream zip = new ZipOutputStream(outputStream)) {
+            for (int i = 0; i < entries.length; i += 3) {
+                zip.putNextEntry(new ZipEntry((String) entries[i]));
+                zip.write(((String) entries[i + 1]).getBytes((Charset) entries[i + 2]));
+                zip.closeEntry();
+            }
+        }
+        return jar;
+    }
+}
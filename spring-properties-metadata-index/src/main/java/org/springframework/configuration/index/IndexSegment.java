@@ -0,0 +1,154 @@
+package org.springframework.configuration.index;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Index of one metadata resource over its binary form, see {@link PropertyMetadataIndexWriter}.
+ * Only absolute reads are used, so the segment is safe for concurrent use. Properties are decoded on access.
+ *
+ * @author tia
+ * @since 1.1
+ */
+final class IndexSegment {
+
+    /**
+     * Strings of a record, see {@link #decode(int)}.
+     */
+    private static final int FIELDS = 8;
+
+    private final ByteBuffer buffer;
+    private final int size;
+
+    IndexSegment(ByteBuffer buffer) {
+        if (buffer.limit() < PropertyMetadataIndexWriter.HEADER_SIZE || buffer.getInt(0) != PropertyMetadataIndexWriter.MAGIC) {
+            throw new IllegalArgumentException("Not a properties metadata index");
+        }
+        if (buffer.getInt(4) != PropertyMetadataIndexWriter.VERSION) {
+            throw new IllegalArgumentException("Unsupported properties metadata index version: " + buffer.getInt(4));
+        }
+        this.buffer = buffer;
+        this.size = buffer.getInt(8);
+        validate();
+    }
+
+    /**
+     * Checks that the record table and every record are within the buffer, so that a truncated or corrupt index
+     * is rejected up front instead of failing a lookup.
+     */
+    private void validate() {
+        int limit = buffer.limit();
+        long tableEnd = PropertyMetadataIndexWriter.HEADER_SIZE + 4L * size;
+        if (size < 0 || tableEnd > limit) {
+            throw new IllegalArgumentException("Corrupt properties metadata index: " + size + " records do not fit");
+        }
+        for (int index = 0; index < size; index++) {
+            int offset = recordOffset(index);
+            if (offset < tableEnd) {
+                throw new IllegalArgumentException("Corrupt properties metadata index: record " + index
+                        + " is at " + offset);
+            }
+            for (int field = 0; field < FIELDS; field++) {
+                if (offset > limit - 4) {
+                    throw new IllegalArgumentException("Corrupt properties metadata index: record " + index
+                            + " is truncated");
+                }
+                int length = buffer.getInt(offset);
+                offset += 4;
+                if (length < -1 || length > limit - offset) {
+                    throw new IllegalArgumentException("Corrupt properties metadata index: record " + index
+                            + " is truncated");
+                }
+                offset += Math.max(length, 0);
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    PropertyMetadata get(byte[] name) {
+        int index = lowerBound(name);
+        return index < size && compareName(index, name) == 0 ? decode(index) : null;
+    }
+
+    /**
+     * Adds properties whose names start with the prefix in the order of names.
+     */
+    void addWithPrefix(byte[] prefix, List<PropertyMetadata> properties) {
+        for (int index = lowerBound(prefix); index < size && startsWith(index, prefix); index++) {
+            properties.add(decode(index));
+        }
+    }
+
+    /**
+     * Index of the first record whose name is not less than the given one.
+     */
+    private int lowerBound(byte[] name) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compareName(middle, name) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int compareName(int index, byte[] name) {
+        int offset = recordOffset(index);
+        int length = buffer.getInt(offset);
+        offset += 4;
+        int common = Math.min(length, name.length);
+        for (int i = 0; i < common; i++) {
+            int diff = (buffer.get(offset + i) & 0xFF) - (name[i] & 0xFF);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return length - name.length;
+    }
+
+    private boolean startsWith(int index, byte[] prefix) {
+        int offset = recordOffset(index);
+        if (buffer.getInt(offset) < prefix.length) {
+            return false;
+        }
+        offset += 4;
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer.get(offset + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private PropertyMetadata decode(int index) {
+        int[] offset = {recordOffset(index)};
+        return new PropertyMetadata(readString(offset), readString(offset), readString(offset), readString(offset),
+                readString(offset), readString(offset), readString(offset), readString(offset));
+    }
+
+    private String readString(int[] offset) {
+        int length = buffer.getInt(offset[0]);
+        offset[0] += 4;
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(offset[0] + i);
+        }
+        offset[0] += length;
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int recordOffset(int index) {
+        return buffer.getInt(PropertyMetadataIndexWriter.HEADER_SIZE + 4 * index);
+    }
+}
@@ -0,0 +1,269 @@
+package org.springframework.configuration.index;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads properties from `spring-configuration-metadata.json`. Groups and hints are skipped without building objects.
+ *
+ * @author tia
+ * @since 1.1
+ */
+final class MetadataJsonReader {
+
+    private final String json;
+    private int position;
+
+    private MetadataJsonReader(String json) {
+        this.json = json;
+    }
+
+    static List<PropertyMetadata> read(InputStream inputStream) throws IOException {
+        return new MetadataJsonReader(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8)).readMetadata();
+    }
+
+    private List<PropertyMetadata> readMetadata() throws IOException {
+        List<PropertyMetadata> properties = new ArrayList<>();
+        expect('{');
+        if (!tryConsume('}')) {
+            do {
+                String key = readString();
+                expect(':');
+                if ("properties".equals(key)) {
+                    expect('[');
+                    if (!tryConsume(']')) {
+                        do {
+                            properties.add(readProperty());
+                        } while (tryConsume(','));
+                        expect(']');
+                    }
+                } else {
+                    skipValue();
+                }
+            } while (tryConsume(','));
+            expect('}');
+        }
+        return properties;
+    }
+
+    private PropertyMetadata readProperty() throws IOException {
+        String name = null;
+        String type = null;
+        String sourceType = null;
+        String description = null;
+        String defaultValue = null;
+        String deprecationLevel = null;
+        String deprecationReason = null;
+        String deprecationReplacement = null;
+        boolean deprecated = false;
+        expect('{');
+        if (!tryConsume('}')) {
+            do {
+                String key = readString();
+                expect(':');
+                switch (key) {
+                case "name":
+                    name = readText();
+                    break;
+                case "type":
+                    type = readText();
+                    break;
+                case "sourceType":
+                    sourceType = readText();
+                    break;
+                case "description":
+                    description = readText();
+                    break;
+                case "defaultValue":
+                    defaultValue = readText();
+                    break;
+                case "deprecated":
+                    deprecated = "true".equals(readText());
+                    break;
+                case "deprecation":
+                    deprecated = true;
+                    expect('{');
+                    if (!tryConsume('}')) {
+                        do {
+                            String deprecationKey = readString();
+                            expect(':');
+                            String value = readText();
+                            if ("level".equals(deprecationKey)) {
+                                deprecationLevel = value;
+                            } else if ("reason".equals(deprecationKey)) {
+                                deprecationReason = value;
+                            } else if ("replacement".equals(deprecationKey)) {
+                                deprecationReplacement = value;
+                            }
+                        } while (tryConsume(','));
+                        expect('}');
+                    }
+                    break;
+                default:
+                    skipValue();
+                }
+            } while (tryConsume(','));
+            expect('}');
+        }
+        if (name == null) {
+            throw error("Property without name");
+        }
+        if (deprecated && deprecationLevel == null) {
+            deprecationLevel = "warning";
+        }
+        return new PropertyMetadata(name, type, sourceType, description, defaultValue, deprecationLevel, deprecationReason,
+                deprecationReplacement);
+    }
+
+    /**
+     * Reads a value as text: a string as is, a number or literal as written, elements of an array separated by comma.
+     * Returns {@code null} for {@code null} and objects.
+     */
+    private String readText() throws IOException {
+        char c = peek();
+        if (c == '"') {
+            return readString();
+        }
+        if (c == '[') {
+            position++;
+            StringBuilder text = new StringBuilder();
+            if (!tryConsume(']')) {
+                do {
+                    if (text.length() > 0) {
+                        text.append(',');
+                    }
+                    String element = readText();
+                    text.append(element == null ? "" : element);
+                } while (tryConsume(','));
+                expect(']');
+            }
+            return text.toString();
+        }
+        if (c == '{') {
+            skipValue();
+            return null;
+        }
+        int start = position;
+        while (position < json.length() && ",}] \t\r\n".indexOf(json.charAt(position)) < 0) {
+            position++;
+        }
+        String literal = json.substring(start, position);
+        return "null".equals(literal) ? null : literal;
+    }
+
+    private void skipValue() throws IOException {
+        char c = peek();
+        if (c == '"') {
+            readString();
+        } else if (c == '{' || c == '[') {
+            char close = c == '{' ? '}' : ']';
+            position++;
+            if (!tryConsume(close)) {
+                do {
+                    if (c == '{') {
+                        readString();
+                        expect(':');
+                    }
+                    skipValue();
+                } while (tryConsume(','));
+                expect(close);
+            }
+        } else {
+            readText();
+        }
+    }
+
+    private String readString() throws IOException {
+        expect('"');
+        StringBuilder text = null;
+        int start = position;
+        while (position < json.length()) {
+            char c = json.charAt(position++);
+            if (c == '"') {
+                return text == null ? json.substring(start, position - 1) : text.toString();
+            }
+            if (c == '\\') {
+                if (text == null) {
+                    text = new StringBuilder(json.substring(start, position - 1));
+                }
+                if (position >= json.length()) {
+                    break;
+                }
+                char escaped = json.charAt(position++);
+                switch (escaped) {
+                case 'b':
+                    text.append('\b');
+                    break;
+                case 'f':
+                    text.append('\f');
+                    break;
+                case 'n':
+                    text.append('\n');
+                    break;
+                case 'r':
+                    text.append('\r');
+                    break;
+                case 't':
+                    text.append('\t');
+                    break;
+                case 'u':
+                    if (position + 4 > json.length()) {
+                        throw error("Invalid escape");
+                    }
+                    int code = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(json.charAt(position + i), 16);
+                        if (digit < 0) {
+                            throw error("Invalid escape");
+                        }
+                        code = code * 16 + digit;
+                    }
+                    text.append((char) code);
+                    position += 4;
+                    break;
+                default:
+                    text.append(escaped);
+                }
+            } else if (text != null) {
+                text.append(c);
+            }
+        }
+        throw error("Unterminated string");
+    }
+
+    private char peek() throws IOException {
+        skipWhitespace();
+        if (position >= json.length()) {
+            throw error("Unexpected end");
+        }
+        return json.charAt(position);
+    }
+
+    private void expect(char expected) throws IOException {
+        if (peek() != expected) {
+            throw error("'" + expected + "' expected");
+        }
+        position++;
+    }
+
+    private boolean tryConsume(char expected) throws IOException {
+        if (peek() == expected) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void skipWhitespace() {
+        while (position < json.length() && Character.isWhitespace(json.charAt(position))) {
+            position++;
+        }
+    }
+
+    private IOException error(String message) {
+        return new IOException(message + " at " + position);
+    }
+}
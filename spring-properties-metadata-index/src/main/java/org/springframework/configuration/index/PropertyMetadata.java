@@ -0,0 +1,103 @@
+package org.springframework.configuration.index;
+
+import java.util.Objects;
+
+/**
+ * Metadata of a configuration property as it is described in `spring-configuration-metadata.json`.
+ * A default value is kept as text, elements of an array default value are separated by comma.
+ *
+ * @author tia
+ * @since 1.1
+ */
+public final class PropertyMetadata {
+
+    private final String name;
+    private final String type;
+    private final String sourceType;
+    private final String description;
+    private final String defaultValue;
+    private final String deprecationLevel;
+    private final String deprecationReason;
+    private final String deprecationReplacement;
+
+    public PropertyMetadata(String name, String type, String sourceType, String description, String defaultValue) {
+        this(name, type, sourceType, description, defaultValue, null, null, null);
+    }
+
+    /**
+     * @param deprecationLevel {@code warning} or {@code error} if the property is deprecated, {@code null} otherwise.
+     */
+    public PropertyMetadata(String name, String type, String sourceType, String description, String defaultValue,
+                            String deprecationLevel, String deprecationReason, String deprecationReplacement) {
+        this.name = Objects.requireNonNull(name, "name is NULL");
+        this.type = type;
+        this.sourceType = sourceType;
+        this.description = description;
+        this.defaultValue = defaultValue;
+        this.deprecationLevel = deprecationLevel;
+        this.deprecationReason = deprecationReason;
+        this.deprecationReplacement = deprecationReplacement;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getSourceType() {
+        return sourceType;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getDefaultValue() {
+        return defaultValue;
+    }
+
+    public boolean isDeprecated() {
+        return deprecationLevel != null;
+    }
+
+    public String getDeprecationLevel() {
+        return deprecationLevel;
+    }
+
+    public String getDeprecationReason() {
+        return deprecationReason;
+    }
+
+    public String getDeprecationReplacement() {
+        return deprecationReplacement;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PropertyMetadata)) {
+            return false;
+        }
+        PropertyMetadata that = (PropertyMetadata) o;
+        return name.equals(that.name) && Objects.equals(type, that.type) && Objects.equals(sourceType, that.sourceType)
+                && Objects.equals(description, that.description) && Objects.equals(defaultValue, that.defaultValue)
+                && Objects.equals(deprecationLevel, that.deprecationLevel)
+                && Objects.equals(deprecationReason, that.deprecationReason)
+                && Objects.equals(deprecationReplacement, that.deprecationReplacement);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, type, sourceType, defaultValue);
+    }
+
+    @Override
+    public String toString() {
+        return "PropertyMetadata{name='" + name + "', type='" + type + "', defaultValue='" + defaultValue + "'}";
+    }
+}
@@ -0,0 +1,205 @@
+package org.springframework.configuration.index;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Configuration properties metadata for lookups at runtime: by property name in O(log n) and by name prefix.
+ * <p>
+ * The index is built from `META-INF/spring-configuration-metadata.idx` resources written at build time by
+ * {@code index-metadata} goal of {@code spring-properties-maven-plugin}. An index file is memory-mapped,
+ * an index in a jar is read into a buffer as is. Properties are decoded only when they are looked up.
+ * Resources `META-INF/spring-configuration-metadata.json` without an index next to them are parsed into an index.
+ * <p>
+ * If a property is described by several resources, the first one in the class path wins. A corrupt resource
+ * fails loading with an {@link IOException} naming the resource.
+ * The index is immutable and safe for concurrent use.
+ *
+ * @author tia
+ * @since 1.1
+ */
+public final class PropertyMetadataIndex {
+
+    public static final String METADATA_LOCATION = "META-INF/spring-configuration-metadata.json";
+    public static final String INDEX_LOCATION = "META-INF/spring-configuration-metadata.idx";
+
+    private final List<IndexSegment> segments;
+
+    private PropertyMetadataIndex(List<IndexSegment> segments) {
+        this.segments = segments;
+    }
+
+    /**
+     * Loads metadata of the class path of the class loader.
+     */
+    public static PropertyMetadataIndex load(ClassLoader classLoader) throws IOException {
+        List<URL> indexes = list(classLoader.getResources(INDEX_LOCATION));
+        Map<String, Integer> indexPositions = new HashMap<>();
+        for (int i = 0; i < indexes.size(); i++) {
+            indexPositions.putIfAbsent(baseOf(indexes.get(i), INDEX_LOCATION), i);
+        }
+        // Both lists are in class path order; an index is written next to its metadata, so class path entries
+        // having both place the indexes among the metadata. An index without metadata goes before the next
+        // entry having both.
+        List<IndexSegment> segments = new ArrayList<>();
+        int nextIndex = 0;
+        for (URL url : list(classLoader.getResources(METADATA_LOCATION))) {
+            Integer indexPosition = indexPositions.get(baseOf(url, METADATA_LOCATION));
+            if (indexPosition == null) {
+                segments.add(readMetadata(url));
+            }
+            while (indexPosition != null && nextIndex <= indexPosition) {
+                segments.add(readIndexSegment(indexes.get(nextIndex++)));
+            }
+        }
+        while (nextIndex < indexes.size()) {
+            segments.add(readIndexSegment(indexes.get(nextIndex++)));
+        }
+        return new PropertyMetadataIndex(segments);
+    }
+
+    /**
+     * Maps the index file into memory.
+     */
+    public static PropertyMetadataIndex map(Path index) throws IOException {
+        try {
+            return new PropertyMetadataIndex(List.of(new IndexSegment(mapFile(index))));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unable to read " + index, e);
+        }
+    }
+
+    /**
+     * Reads the index from a buffer, e.g. a memory-mapped file. The buffer must not be changed afterwards.
+     */
+    public static PropertyMetadataIndex read(ByteBuffer index) {
+        return new PropertyMetadataIndex(List.of(new IndexSegment(index.duplicate())));
+    }
+
+    /**
+     * Parses `spring-configuration-metadata.json` into an index.
+     */
+    public static PropertyMetadataIndex parse(InputStream metadata) throws IOException {
+        return new PropertyMetadataIndex(List.of(segmentOf(MetadataJsonReader.read(metadata))));
+    }
+
+    /**
+     * Returns properties of `spring-configuration-metadata.json`, e.g. to write an index.
+     */
+    public static List<PropertyMetadata> readProperties(InputStream metadata) throws IOException {
+        return MetadataJsonReader.read(metadata);
+    }
+
+    /**
+     * Returns the property or {@code null} if there is no such property.
+     */
+    public PropertyMetadata get(String name) {
+        byte[] key = Objects.requireNonNull(name, "name is NULL").getBytes(StandardCharsets.UTF_8);
+        for (IndexSegment segment : segments) {
+            PropertyMetadata property = segment.get(key);
+            if (property != null) {
+                return property;
+            }
+        }
+        return null;
+    }
+
+    public boolean contains(String name) {
+        return get(name) != null;
+    }
+
+    /**
+     * Returns properties whose names start with the prefix, sorted by name. Empty prefix returns all properties.
+     */
+    public List<PropertyMetadata> getWithPrefix(String prefix) {
+        byte[] key = Objects.requireNonNull(prefix, "prefix is NULL").getBytes(StandardCharsets.UTF_8);
+        List<PropertyMetadata> properties = new ArrayList<>();
+        for (IndexSegment segment : segments) {
+            segment.addWithPrefix(key, properties);
+        }
+        if (segments.size() < 2) {
+            return properties;
+        }
+        Map<String, PropertyMetadata> byName = new LinkedHashMap<>();
+        for (PropertyMetadata property : properties) {
+            byName.putIfAbsent(property.getName(), property);
+        }
+        List<PropertyMetadata> merged = new ArrayList<>(byName.values());
+        merged.sort((left, right) -> PropertyMetadataIndexWriter.compare(
+                left.getName().getBytes(StandardCharsets.UTF_8), right.getName().getBytes(StandardCharsets.UTF_8)));
+        return merged;
+    }
+
+    /**
+     * Number of properties.
+     */
+    public int size() {
+        return segments.size() == 1 ? segments.get(0).size() : getWithPrefix("").size();
+    }
+
+    private static IndexSegment segmentOf(List<PropertyMetadata> properties) {
+        return new IndexSegment(ByteBuffer.wrap(PropertyMetadataIndexWriter.toBytes(properties)));
+    }
+
+    private static IndexSegment readMetadata(URL url) throws IOException {
+        try (InputStream inputStream = url.openStream()) {
+            return segmentOf(MetadataJsonReader.read(inputStream));
+        } catch (IOException e) {
+            throw new IOException("Unable to read " + url, e);
+        }
+    }
+
+    private static IndexSegment readIndexSegment(URL url) throws IOException {
+        try {
+            return new IndexSegment(readIndex(url));
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IOException("Unable to read " + url, e);
+        }
+    }
+
+    private static ByteBuffer readIndex(URL url) throws IOException {
+        if ("file".equals(url.getProtocol())) {
+            try {
+                return mapFile(Path.of(url.toURI()));
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                // Not a local file, read it as a stream
+            }
+        }
+        try (InputStream inputStream = url.openStream()) {
+            return ByteBuffer.wrap(inputStream.readAllBytes());
+        }
+    }
+
+    private static ByteBuffer mapFile(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Location of the class path entry containing the resource.
+     */
+    private static String baseOf(URL url, String resource) {
+        String location = url.toString();
+        return location.endsWith(resource) ? location.substring(0, location.length() - resource.length()) : location;
+    }
+
+    private static List<URL> list(Enumeration<URL> urls) {
+        return Collections.list(urls);
+    }
+}
@@ -0,0 +1,108 @@
+package org.springframework.configuration.index;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Writes properties metadata in the binary format read by {@link PropertyMetadataIndex}.
+ * <p>
+ * Format (big-endian): magic {@code SPMI}, version, number of properties, absolute offsets of the records, records.
+ * A record is a sequence of strings: name, type, source type, description, default value, deprecation level,
+ * reason and replacement. A string is its UTF-8 length followed by the bytes, length -1 is {@code null}.
+ * Records are sorted by unsigned UTF-8 bytes of the name, so the index is searched without decoding names.
+ *
+ * @author tia
+ * @since 1.1
+ */
+public final class PropertyMetadataIndexWriter {
+
+    static final int MAGIC = 0x53504D49;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 12;
+
+    private PropertyMetadataIndexWriter() {
+    }
+
+    /**
+     * Writes the index. If a name occurs more than once, the first property is written.
+     */
+    public static void write(Collection<PropertyMetadata> properties, OutputStream outputStream) throws IOException {
+        TreeMap<byte[], PropertyMetadata> sorted = new TreeMap<>(PropertyMetadataIndexWriter::compare);
+        for (PropertyMetadata property : properties) {
+            sorted.putIfAbsent(property.getName().getBytes(StandardCharsets.UTF_8), property);
+        }
+        List<byte[]> records = new ArrayList<>(sorted.size());
+        ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+        DataOutputStream recordOutput = new DataOutputStream(record);
+        for (PropertyMetadata property : sorted.values()) {
+            record.reset();
+            writeString(recordOutput, property.getName());
+            writeString(recordOutput, property.getType());
+            writeString(recordOutput, property.getSourceType());
+            writeString(recordOutput, property.getDescription());
+            writeString(recordOutput, property.getDefaultValue());
+            writeString(recordOutput, property.getDeprecationLevel());
+            writeString(recordOutput, property.getDeprecationReason());
+            writeString(recordOutput, property.getDeprecationReplacement());
+            records.add(record.toByteArray());
+        }
+
+        DataOutputStream output = new DataOutputStream(outputStream);
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeInt(records.size());
+        int offset = HEADER_SIZE + 4 * records.size();
+        for (byte[] bytes : records) {
+            output.writeInt(offset);
+            offset += bytes.length;
+        }
+        for (byte[] bytes : records) {
+            output.write(bytes);
+        }
+        output.flush();
+    }
+
+    /**
+     * Returns the index in memory.
+     */
+    static byte[] toBytes(Collection<PropertyMetadata> properties) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try {
+            write(properties, outputStream);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        }
+    }
+
+    /**
+     * Unsigned comparison of UTF-8 bytes, the same as comparison of code points.
+     */
+    static int compare(byte[] left, byte[] right) {
+        int length = Math.min(left.length, right.length);
+        for (int i = 0; i < length; i++) {
+            int diff = (left[i] & 0xFF) - (right[i] & 0xFF);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return left.length - right.length;
+    }
+}
@@ -0,0 +1,165 @@
+package org.springframework.configuration.index;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Tests for {@link PropertyMetadataIndex}.
+ *
+ * @author tia
+ */
+class PropertyMetadataIndexTests {
+
+    private static final List<PropertyMetadata> PROPERTIES = List.of(
+            new PropertyMetadata("server.port", "java.lang.Integer", "com.example.Server", "Port", "8080"),
+            new PropertyMetadata("server.address", "java.lang.String", "com.example.Server", "Address", null),
+            new PropertyMetadata("server", "java.lang.String", null, null, null),
+            new PropertyMetadata("serverless.enabled", "java.lang.Boolean", null, "Сервер не нужен", "false"),
+            new PropertyMetadata("cache.ttl", "java.time.Duration", null, null, "10s", "error", "Removed", "cache.expiry"),
+            new PropertyMetadata("server.port", "java.lang.Long", null, null, null));
+
+    @Test
+    void getReturnsFirstPropertyWithName() {
+        PropertyMetadataIndex index = PropertyMetadataIndex.read(ByteBuffer.wrap(PropertyMetadataIndexWriter.toBytes(PROPERTIES)));
+
+        assertThat(index.size()).isEqualTo(5);
+        assertThat(index.get("server.port")).isEqualTo(PROPERTIES.get(0));
+        assertThat(index.get("serverless.enabled").getDescription()).isEqualTo("Сервер не нужен");
+        assertThat(index.get("cache.ttl").isDeprecated()).isTrue();
+        assertThat(index.get("cache.ttl").getDeprecationReplacement()).isEqualTo("cache.expiry");
+        assertThat(index.get("server.portal")).isNull();
+        assertThat(index.contains("a")).isFalse();
+        assertThat(index.contains("zzz")).isFalse();
+    }
+
+    @Test
+    void getWithPrefixReturnsSortedProperties() {
+        PropertyMetadataIndex index = PropertyMetadataIndex.read(ByteBuffer.wrap(PropertyMetadataIndexWriter.toBytes(PROPERTIES)));
+
+        assertThat(index.getWithPrefix("server.")).extracting(PropertyMetadata::getName)
+                .containsExactly("server.address", "server.port");
+        assertThat(index.getWithPrefix("server")).extracting(PropertyMetadata::getName)
+                .containsExactly("server", "server.address", "server.port", "serverless.enabled");
+        assertThat(index.getWithPrefix("")).hasSize(5);
+        assertThat(index.getWithPrefix("spring.")).isEmpty();
+    }
+
+    @Test
+    void parseMetadataJson() throws IOException {
+        String json = "{\"groups\": [{\"name\": \"server\", \"type\": \"com.example.Server\"}],\n"
+                + "\"properties\": [\n"
+                + "  {\"name\": \"server.hosts\", \"type\": \"java.lang.String[]\", \"defaultValue\": [\"a\", \"b\"],"
+                + " \"description\": \"Hosts \\\"list\\\"\\n\\u0041\"},\n"
+                + "  {\"name\": \"server.timeout\", \"type\": \"java.lang.Integer\", \"defaultValue\": 30,"
+                + " \"deprecation\": {\"reason\": \"Use server.timeouts\", \"replacement\": \"server.timeouts\"}},\n"
+                + "  {\"name\": \"server.legacy\", \"deprecated\": true, \"defaultValue\": null}\n"
+                + "],\n"
+                + "\"hints\": [{\"name\": \"server.hosts\", \"values\": [{\"value\": \"a\"}]}]}";
+
+        PropertyMetadataIndex index = PropertyMetadataIndex.parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(index.size()).isEqualTo(3);
+        assertThat(index.get("server.hosts").getDefaultValue()).isEqualTo("a,b");
+        assertThat(index.get("server.hosts").getDescription()).isEqualTo("Hosts \"list\"\nA");
+        assertThat(index.get("server.timeout").getDefaultValue()).isEqualTo("30");
+        assertThat(index.get("server.timeout").getDeprecationLevel()).isEqualTo("warning");
+        assertThat(index.get("server.timeout").getDeprecationReplacement()).isEqualTo("server.timeouts");
+        assertThat(index.get("server.legacy").isDeprecated()).isTrue();
+        assertThat(index.get("server.legacy").getDefaultValue()).isNull();
+    }
+
+    @Test
+    void mapWrittenIndex(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("spring-configuration-metadata.idx");
+        try (OutputStream outputStream = Files.newOutputStream(file)) {
+            PropertyMetadataIndexWriter.write(PROPERTIES, outputStream);
+        }
+
+        PropertyMetadataIndex index = PropertyMetadataIndex.map(file);
+
+        assertThat(index.get("server.address")).isEqualTo(PROPERTIES.get(1));
+        assertThat(index.getWithPrefix("cache")).containsExactly(PROPERTIES.get(4));
+    }
+
+    @Test
+    void readRejectsOtherContent() {
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> PropertyMetadataIndex.read(ByteBuffer.wrap("{\"properties\": []}".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    void loadPrefersFirstResourceInClassPath(@TempDir Path dir) throws IOException {
+        Path jsonOnly = dir.resolve("json-only");
+        Files.createDirectories(jsonOnly.resolve("META-INF"));
+        Files.writeString(jsonOnly.resolve(PropertyMetadataIndex.METADATA_LOCATION),
+                "{\"properties\": [{\"name\": \"server.port\", \"type\": \"java.lang.Short\"}]}");
+        Path indexed = dir.resolve("indexed");
+        Files.createDirectories(indexed.resolve("META-INF"));
+        Files.writeString(indexed.resolve(PropertyMetadataIndex.METADATA_LOCATION), "{\"properties\": []}");
+        Files.write(indexed.resolve(PropertyMetadataIndex.INDEX_LOCATION), PropertyMetadataIndexWriter.toBytes(PROPERTIES));
+
+        try (URLClassLoader classLoader = classLoader(jsonOnly, indexed)) {
+            PropertyMetadataIndex index = PropertyMetadataIndex.load(classLoader);
+
+            assertThat(index.get("server.port").getType()).isEqualTo("java.lang.Short");
+            assertThat(index.get("server.address")).isEqualTo(PROPERTIES.get(1));
+        }
+        try (URLClassLoader classLoader = classLoader(indexed, jsonOnly)) {
+            assertThat(PropertyMetadataIndex.load(classLoader).get("server.port")).isEqualTo(PROPERTIES.get(0));
+        }
+    }
+
+    @Test
+    void loadRejectsTruncatedIndex(@TempDir Path dir) throws IOException {
+        byte[] bytes = PropertyMetadataIndexWriter.toBytes(PROPERTIES);
+        Files.createDirectories(dir.resolve("META-INF"));
+        Path index = dir.resolve(PropertyMetadataIndex.INDEX_LOCATION);
+        Files.write(index, Arrays.copyOf(bytes, bytes.length - 3));
+
+        try (URLClassLoader classLoader = classLoader(dir)) {
+            assertThatIOException().isThrownBy(() -> PropertyMetadataIndex.load(classLoader))
+                    .withMessageContaining(index.toString())
+                    .withCauseInstanceOf(IllegalArgumentException.class);
+        }
+        Files.write(index, Arrays.copyOf(bytes, PropertyMetadataIndexWriter.HEADER_SIZE + 2));
+        assertThatIOException().isThrownBy(() -> PropertyMetadataIndex.map(index))
+                .withMessageContaining(index.toString());
+    }
+
+    @Test
+    void loadRejectsInvalidEscape(@TempDir Path dir) throws IOException {
+        Files.createDirectories(dir.resolve("META-INF"));
+        Path metadata = dir.resolve(PropertyMetadataIndex.METADATA_LOCATION);
+        Files.writeString(metadata, "{\"properties\": [{\"name\": \"server.\\u00zz\"}]}");
+
+        try (URLClassLoader classLoader = classLoader(dir)) {
+            assertThatIOException().isThrownBy(() -> PropertyMetadataIndex.load(classLoader))
+                    .withMessageContaining(metadata.toString())
+                    .havingCause().withMessageContaining("Invalid escape");
+        }
+    }
+
+    private static URLClassLoader classLoader(Path... entries) throws IOException {
+        URL[] urls = new URL[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            urls[i] = entries[i].toUri().toURL();
+        }
+        return new URLClassLoader(urls, null);
+    }
+}
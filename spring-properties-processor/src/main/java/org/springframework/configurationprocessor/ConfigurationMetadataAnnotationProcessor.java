@@ -23,7 +23,10 @@ import javax.annotation.processing.RoundEnvironment;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
+import javax.lang.model.element.ModuleElement;
+import javax.lang.model.element.PackageElement;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementScanner9;
 import javax.tools.Diagnostic.Kind;
 import java.io.FileNotFoundException;
 import java.io.PrintWriter;
@@ -36,6 +39,7 @@ import java.util.Set;
 import org.springframework.configurationprocessor.metadata.ConfigurationMetadata;
 import org.springframework.configurationprocessor.metadata.InvalidConfigurationMetadataException;
 import org.springframework.configurationprocessor.metadata.ItemMetadata;
+import org.springframework.configurationprocessor.metadata.PropertyUsages;
 import org.springframework.configurationprocessor.xml.project_layout.GradleProjectLayout;
 import org.springframework.configurationprocessor.xml.project_layout.IdeaProjectLayout;
 import org.springframework.configurationprocessor.xml.project_layout.MavenProjectLayout;
@@ -71,6 +75,48 @@ public class ConfigurationMetadataAnnotationProcessor extends AbstractProcessor
 
 	static final String OPTION_ADDITIONAL_METADATA_LOCATIONS = "org.springframework.configurationprocessor.additionalMetadataLocations";
 
+	static final String OPTION_METADATA_FRAGMENTS_DIRECTORY = "org.springframework.configurationprocessor.metadataFragmentsDirectory";
+
+	/**
+	 * If {@code true}, groups are inferred from property names, nested groups included.
+	 * Otherwise every source type gets one group with the empty name.
+	 */
+	static final String OPTION_NESTED_GROUPS = "org.springframework.configurationprocessor.nestedGroups";
+
+	/**
+	 * Comma separated patterns of packages to process, e.g. {@code com.example.**}. All
+	 * packages by default.
+	 * @see RootElementFilter
+	 */
+	static final String OPTION_INCLUDE_PACKAGES = "org.springframework.configurationprocessor.includePackages";
+
+	/**
+	 * Comma separated patterns of packages to skip, e.g. {@code **.proto}.
+	 * @see RootElementFilter
+	 */
+	static final String OPTION_EXCLUDE_PACKAGES = "org.springframework.configurationprocessor.excludePackages";
+
+	/**
+	 * Comma separated glob patterns of source files to process. All source files by
+	 * default.
+	 * @see RootElementFilter
+	 */
+	static final String OPTION_INCLUDE_SOURCES = "org.springframework.configurationprocessor.includeSources";
+
+	/**
+	 * Comma separated glob patterns of source files to skip, e.g.
+	 * {@code **}{@code /generated-sources/**}.
+	 * @see RootElementFilter
+	 */
+	static final String OPTION_EXCLUDE_SOURCES = "org.springframework.configurationprocessor.excludeSources";
+
+	/**
+	 * If {@code true}, properties of the same name are written as one property with the
+	 * list of its usage sites.
+	 * @see PropertyUsages
+	 */
+	static final String OPTION_AGGREGATE_USAGES = "org.springframework.configurationprocessor.aggregateUsages";
+
 	private static final Set<String> SUPPORTED_ANNOTATIONS = Set.of(
 			"org.springframework.*"
 			/*"org.springframework.beans.factory.annotation.Value",
@@ -91,7 +137,9 @@ public class ConfigurationMetadataAnnotationProcessor extends AbstractProcessor
 			"org.springframework.web.bind.annotation.PutMapping",*/
 			);
 
-	private static final Set<String> SUPPORTED_OPTIONS = Set.of(OPTION_ADDITIONAL_METADATA_LOCATIONS);
+	private static final Set<String> SUPPORTED_OPTIONS = Set.of(OPTION_ADDITIONAL_METADATA_LOCATIONS,
+			OPTION_METADATA_FRAGMENTS_DIRECTORY, OPTION_NESTED_GROUPS, OPTION_INCLUDE_PACKAGES, OPTION_EXCLUDE_PACKAGES,
+			OPTION_INCLUDE_SOURCES, OPTION_EXCLUDE_SOURCES, OPTION_AGGREGATE_USAGES);
 
 	private MetadataStore metadataStore;
 
@@ -99,6 +147,12 @@ public class ConfigurationMetadataAnnotationProcessor extends AbstractProcessor
 
 	MetadataGenerationEnvironment metadataEnv;
 
+	private boolean nestedGroups;
+
+	private boolean aggregateUsages;
+
+	private RootElementFilter rootElementFilter;
+
 
 	@Override
 	public SourceVersion getSupportedSourceVersion() {
@@ -122,6 +176,9 @@ public class ConfigurationMetadataAnnotationProcessor extends AbstractProcessor
 		this.metadataStore = new MetadataStore(env);
 		this.metadataCollector = new MetadataCollector(env, this.metadataStore.readMetadata());
 		this.metadataEnv = new MetadataGenerationEnvironment(env);
+		this.nestedGroups = Boolean.parseBoolean(env.getOptions().get(OPTION_NESTED_GROUPS));
+		this.aggregateUsages = Boolean.parseBoolean(env.getOptions().get(OPTION_AGGREGATE_USAGES));
+		this.rootElementFilter = RootElementFilter.of(env);
 	}
 
 	@Override
@@ -129,7 +186,15 @@ public class ConfigurationMetadataAnnotationProcessor extends AbstractProcessor
 
 		this.metadataCollector.processing(roundEnv);
 
-		if (!annotations.isEmpty()) {
+		if (!annotations.isEmpty() && this.rootElementFilter != null) {
+			AnnotatedElementScanner scanner = new AnnotatedElementScanner(annotations);
+			for (Element element : roundEnv.getRootElements()) {
+				if (this.rootElementFilter.matches(element)) {
+					scanner.scan(element);
+				}
+			}
+		}
+		else if (!annotations.isEmpty()) {
 			/*Set<TypeElement> supportedAnnotationElements = metadataEnv.getSupportedAnnotationElements();
 			supportedAnnotationElements.retainAll(annotations);*/
 			for (TypeElement annotationElement : annotations) {
@@ -143,8 +208,8 @@ public class ConfigurationMetadataAnnotationProcessor extends AbstractProcessor
 		if (roundEnv.processingOver()) {
 			//processXml();
 			try {
-				//Set<ItemMetadata> groups = metadataCollector.generateGroups();
-				Set<ItemMetadata> groups = metadataCollector.generateBlankGroups();
+				Set<ItemMetadata> groups = this.nestedGroups ? metadataCollector.generateGroups()
+						: metadataCollector.generateBlankGroups();
 				metadataCollector.add(groups);
 				writeMetadata();
 			}
@@ -169,23 +234,68 @@ public class ConfigurationMetadataAnnotationProcessor extends AbstractProcessor
 
 
 	private void processValueElement(Element element, TypeElement annotationElement) {
+		for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+			Element elementAnnotation = annotation.getAnnotationType().asElement();
+			if (elementAnnotation.equals(annotationElement)) {
+				processValueAnnotation(element, annotation);
+			}
+		}
+	}
+
+	private void processValueAnnotation(Element element, AnnotationMirror annotation) {
 		try {
+			metadataEnv.extractDescriptors(element, annotation).forEach( descriptor -> {
+				ItemMetadata metadata = descriptor.resolveItemMetadata("", this.metadataEnv);
+				if (metadata != null) {
+					this.metadataCollector.add(metadata);
+				}
+			});
+		}
+		catch (Exception ex) {
+			throw new IllegalStateException("Error processing configuration meta-data on " + element, ex);
+		}
+	}
+
+	/**
+	 * Processes annotations of the round in a single pass over a root element, unlike
+	 * {@link RoundEnvironment#getElementsAnnotatedWith(TypeElement)} which passes over
+	 * all root elements per annotation. Only the package itself is visited for a package
+	 * root element.
+	 */
+	private final class AnnotatedElementScanner extends ElementScanner9<Void, Void> {
+
+		private final Set<? extends TypeElement> annotations;
 
+		AnnotatedElementScanner(Set<? extends TypeElement> annotations) {
+			this.annotations = annotations;
+		}
+
+		@Override
+		public Void scan(Element element, Void parameter) {
 			for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
-				Element elementAnnotation = annotation.getAnnotationType().asElement();
-				if (elementAnnotation.equals(annotationElement)) {
-					metadataEnv.extractDescriptors(element, annotation).forEach( descriptor -> {
-						ItemMetadata metadata = descriptor.resolveItemMetadata("", this.metadataEnv);
-						if (metadata != null) {
-							this.metadataCollector.add(metadata);
-						}
-					});
+				if (this.annotations.contains(annotation.getAnnotationType().asElement())) {
+					processValueAnnotation(element, annotation);
 				}
 			}
+			return super.scan(element, parameter);
 		}
-		catch (Exception ex) {
-			throw new IllegalStateException("Error processing configuration meta-data on " + element, ex);
+
+		@Override
+		public Void visitPackage(PackageElement element, Void parameter) {
+			return null;
+		}
+
+		@Override
+		public Void visitModule(ModuleElement element, Void parameter) {
+			return null;
 		}
+
+		@Override
+		public Void visitUnknown(Element element, Void parameter) {
+			// Record components, their annotations are propagated to fields and parameters
+			return null;
+		}
+
 	}
 
 	/*
@@ -301,11 +411,11 @@ public class ConfigurationMetadataAnnotationProcessor extends AbstractProcessor
 	protected ConfigurationMetadata writeMetadata() throws Exception {
 		ConfigurationMetadata metadata = this.metadataCollector.getMetadata();
 		metadata = mergeAdditionalMetadata(metadata);
-		if (!metadata.getItems().isEmpty()) {
-			this.metadataStore.writeMetadata(metadata);
-			return metadata;
+		if (this.aggregateUsages) {
+			metadata = PropertyUsages.aggregate(metadata);
 		}
-		return null;
+		this.metadataStore.writeMetadata(metadata);
+		return metadata.getItems().isEmpty() ? null : metadata;
 	}
 
 	private ConfigurationMetadata mergeAdditionalMetadata(ConfigurationMetadata metadata) {
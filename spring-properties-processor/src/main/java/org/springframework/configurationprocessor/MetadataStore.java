@@ -20,12 +20,18 @@ import javax.annotation.processing.ProcessingEnvironment;
 import javax.tools.Diagnostic;
 import javax.tools.FileObject;
 import javax.tools.StandardLocation;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 import org.springframework.configurationprocessor.metadata.ConfigurationMetadata;
 import org.springframework.configurationprocessor.metadata.InvalidConfigurationMetadataException;
@@ -41,6 +47,8 @@ public class MetadataStore {
 
 	static final String METADATA_PATH = "META-INF/spring-configuration-metadata.json";
 
+	static final String METADATA_FRAGMENT_NAME = "annotation-processor.json";
+
 	private static final String ADDITIONAL_METADATA_PATH = "META-INF/additional-spring-configuration-metadata.json";
 
 	private static final String RESOURCES_DIRECTORY = "resources";
@@ -55,17 +63,40 @@ public class MetadataStore {
 
 	public ConfigurationMetadata readMetadata() {
 		try {
-			return readMetadata(getMetadataResource().openInputStream());
+			File fragment = getMetadataFragment();
+			return readMetadata((fragment != null) ? Files.newInputStream(fragment.toPath())
+					: getMetadataResource().openInputStream());
 		}
 		catch (IOException ex) {
 			return null;
 		}
 	}
 
+	/**
+	 * Writes the metadata unless the file already has the same content, so the file
+	 * keeps its modification time when the build produces the same metadata. A fragment
+	 * is replaced atomically through a temporary file, and deleted if there are no items,
+	 * so a fragment of a previous build is not merged.
+	 */
 	public void writeMetadata(ConfigurationMetadata metadata) throws IOException {
-		if (!metadata.getItems().isEmpty()) {
-			try (OutputStream outputStream = createMetadataResource().openOutputStream()) {
-				new JsonMarshaller().write(metadata, outputStream);
+		if (metadata.getItems().isEmpty()) {
+			File fragment = getMetadataFragment();
+			if (fragment != null) {
+				Files.deleteIfExists(fragment.toPath());
+			}
+		}
+		else {
+			ByteArrayOutputStream content = new ByteArrayOutputStream();
+			new JsonMarshaller().write(metadata, content);
+			byte[] bytes = content.toByteArray();
+			File fragment = getMetadataFragment();
+			if (fragment != null) {
+				writeFragment(fragment.toPath(), bytes);
+			}
+			else if (!hasContent(bytes)) {
+				try (OutputStream outputStream = createMetadataResource().openOutputStream()) {
+					outputStream.write(bytes);
+				}
 			}
 		}
 	}
@@ -99,6 +130,59 @@ public class MetadataStore {
 		return this.environment.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", METADATA_PATH);
 	}
 
+	private boolean hasContent(byte[] content) {
+		byte[] existing;
+		try (InputStream inputStream = getMetadataResource().openInputStream()) {
+			existing = inputStream.readAllBytes();
+		}
+		catch (IOException ex) {
+			return false;
+		}
+		return existing.length == content.length && MessageDigest.isEqual(sha256(existing), sha256(content));
+	}
+
+	private static void writeFragment(Path fragment, byte[] content) throws IOException {
+		if (Files.isRegularFile(fragment) && Files.size(fragment) == content.length
+				&& MessageDigest.isEqual(sha256(Files.readAllBytes(fragment)), sha256(content))) {
+			return;
+		}
+		Files.createDirectories(fragment.getParent());
+		Path tmp = Files.createTempFile(fragment.getParent(), fragment.getFileName().toString(), ".tmp");
+		try {
+			Files.write(tmp, content);
+			try {
+				Files.move(tmp, fragment, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			}
+			catch (AtomicMoveNotSupportedException ex) {
+				Files.move(tmp, fragment, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	private static byte[] sha256(byte[] content) {
+		try {
+			return MessageDigest.getInstance("SHA-256").digest(content);
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	/**
+	 * Return the fragment file this processor owns when a fragments directory is configured.
+	 * In that mode the processor never touches {@value #METADATA_PATH}; the fragments of
+	 * all producers are merged into it by the {@code merge-metadata} goal.
+	 * @return the fragment file or {@code null} to write {@value #METADATA_PATH} directly
+	 */
+	File getMetadataFragment() {
+		String directory = this.environment.getOptions()
+			.get(ConfigurationMetadataAnnotationProcessor.OPTION_METADATA_FRAGMENTS_DIRECTORY);
+		return (directory != null && !directory.isBlank()) ? new File(directory, METADATA_FRAGMENT_NAME) : null;
+	}
+
 	private InputStream getAdditionalMetadataStream() throws IOException {
 		// Most build systems will have copied the file to the class output location
 		FileObject fileObject = this.environment.getFiler()
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2012-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.configurationprocessor;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.FileObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.regex.Pattern;
+
+/**
+ * Selects root elements of a round by their package and source file, so the elements of
+ * other ones, e.g. of generated classes, are never inspected.
+ * <p>
+ * Packages are matched by comma separated patterns where {@code *} matches a part of a
+ * name segment and {@code **} any number of segments: {@code com.example.**} matches
+ * {@code com.example} and its subpackages. Source files are matched by their absolute
+ * path with {@link java.nio.file.FileSystem#getPathMatcher glob} patterns, e.g.
+ * {@code **}{@code /generated-sources/**}. An element is processed if it matches any of
+ * the include patterns, if given, and none of the exclude patterns. Patterns are compiled
+ * once per compilation.
+ *
+ * @author tia
+ * @since 1.1
+ */
+class RootElementFilter {
+
+	private final Elements elementUtils;
+
+	private final Pattern includePackages;
+
+	private final Pattern excludePackages;
+
+	private final List<PathMatcher> includeSources;
+
+	private final List<PathMatcher> excludeSources;
+
+	private final SourceLocator sourceLocator;
+
+	private RootElementFilter(ProcessingEnvironment env, Pattern includePackages, Pattern excludePackages,
+			List<PathMatcher> includeSources, List<PathMatcher> excludeSources) {
+		this.elementUtils = env.getElementUtils();
+		this.includePackages = includePackages;
+		this.excludePackages = excludePackages;
+		this.includeSources = includeSources;
+		this.excludeSources = excludeSources;
+		this.sourceLocator = (includeSources.isEmpty() && excludeSources.isEmpty()) ? null : SourceLocator.of(env);
+	}
+
+	/**
+	 * Returns the filter of the options of the environment or {@code null} if no option
+	 * is given.
+	 */
+	static RootElementFilter of(ProcessingEnvironment env) {
+		Pattern includePackages = compilePackagePatterns(
+				env.getOptions().get(ConfigurationMetadataAnnotationProcessor.OPTION_INCLUDE_PACKAGES));
+		Pattern excludePackages = compilePackagePatterns(
+				env.getOptions().get(ConfigurationMetadataAnnotationProcessor.OPTION_EXCLUDE_PACKAGES));
+		List<PathMatcher> includeSources = compileSourcePatterns(
+				env.getOptions().get(ConfigurationMetadataAnnotationProcessor.OPTION_INCLUDE_SOURCES));
+		List<PathMatcher> excludeSources = compileSourcePatterns(
+				env.getOptions().get(ConfigurationMetadataAnnotationProcessor.OPTION_EXCLUDE_SOURCES));
+		if (includePackages == null && excludePackages == null && includeSources.isEmpty()
+				&& excludeSources.isEmpty()) {
+			return null;
+		}
+		RootElementFilter filter = new RootElementFilter(env, includePackages, excludePackages, includeSources,
+				excludeSources);
+		if ((!includeSources.isEmpty() || !excludeSources.isEmpty()) && filter.sourceLocator == null) {
+			env.getMessager()
+				.printMessage(Kind.WARNING, "Source files are unknown to the compiler, source patterns are ignored");
+		}
+		return filter;
+	}
+
+	/**
+	 * Returns {@code true} if the root element and its enclosed elements are to be
+	 * processed.
+	 */
+	boolean matches(Element rootElement) {
+		if (this.includePackages != null || this.excludePackages != null) {
+			String packageName = packageNameOf(rootElement);
+			if (packageName != null) {
+				if (this.includePackages != null && !this.includePackages.matcher(packageName).matches()) {
+					return false;
+				}
+				if (this.excludePackages != null && this.excludePackages.matcher(packageName).matches()) {
+					return false;
+				}
+			}
+		}
+		if (this.sourceLocator != null) {
+			Path source = this.sourceLocator.getSource(rootElement);
+			if (source != null) {
+				if (!this.includeSources.isEmpty() && !matchesAny(this.includeSources, source)) {
+					return false;
+				}
+				return !matchesAny(this.excludeSources, source);
+			}
+		}
+		return true;
+	}
+
+	private String packageNameOf(Element element) {
+		if (element.getKind() == ElementKind.MODULE) {
+			return null;
+		}
+		PackageElement packageElement = (element instanceof PackageElement) ? (PackageElement) element
+				: this.elementUtils.getPackageOf(element);
+		return packageElement.getQualifiedName().toString();
+	}
+
+	private static boolean matchesAny(List<PathMatcher> matchers, Path path) {
+		for (PathMatcher matcher : matchers) {
+			if (matcher.matches(path)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	static Pattern compilePackagePatterns(String patterns) {
+		if (patterns == null || patterns.isBlank()) {
+			return null;
+		}
+		StringJoiner regex = new StringJoiner("|");
+		for (String pattern : patterns.split(",")) {
+			if (!pattern.isBlank()) {
+				regex.add(packageRegex(pattern.trim()));
+			}
+		}
+		return Pattern.compile(regex.toString());
+	}
+
+	private static String packageRegex(String pattern) {
+		StringBuilder regex = new StringBuilder();
+		String[] segments = pattern.split("\\.");
+		boolean separated = true;
+		for (int i = 0; i < segments.length; i++) {
+			String segment = segments[i];
+			if (segment.equals("**")) {
+				if (i == segments.length - 1) {
+					regex.append((i == 0) ? ".*" : "(?:\\..+)?");
+				}
+				else {
+					regex.append((i == 0) ? "(?:[^.]+\\.)*" : "\\.(?:[^.]+\\.)*");
+					separated = true;
+				}
+				continue;
+			}
+			if (!separated) {
+				regex.append("\\.");
+			}
+			separated = false;
+			int start = 0;
+			for (int star = segment.indexOf('*'); star >= 0; star = segment.indexOf('*', start)) {
+				regex.append(Pattern.quote(segment.substring(start, star))).append("[^.]*");
+				start = star + 1;
+			}
+			regex.append(Pattern.quote(segment.substring(start)));
+		}
+		return regex.toString();
+	}
+
+	private static List<PathMatcher> compileSourcePatterns(String patterns) {
+		List<PathMatcher> matchers = new ArrayList<>();
+		if (patterns != null) {
+			for (String pattern : patterns.split(",")) {
+				if (!pattern.isBlank()) {
+					matchers.add(FileSystems.getDefault().getPathMatcher("glob:" + pattern.trim()));
+				}
+			}
+		}
+		return matchers;
+	}
+
+	/**
+	 * Reflection based access to source files of {@code com.sun.source.util.Trees}.
+	 */
+	private static final class SourceLocator {
+
+		private final Object trees;
+
+		private final Method getPath;
+
+		private final Method getCompilationUnit;
+
+		private final Method getSourceFile;
+
+		private SourceLocator(Object trees, ClassLoader classLoader) throws ReflectiveOperationException {
+			this.trees = trees;
+			this.getPath = Class.forName("com.sun.source.util.Trees", false, classLoader)
+				.getMethod("getPath", Element.class);
+			this.getCompilationUnit = Class.forName("com.sun.source.util.TreePath", false, classLoader)
+				.getMethod("getCompilationUnit");
+			this.getSourceFile = Class.forName("com.sun.source.tree.CompilationUnitTree", false, classLoader)
+				.getMethod("getSourceFile");
+		}
+
+		/**
+		 * Returns the locator or {@code null} if the compiler is not javac.
+		 */
+		static SourceLocator of(ProcessingEnvironment env) {
+			try {
+				ClassLoader classLoader = env.getClass().getClassLoader();
+				Class<?> type = Class.forName("com.sun.source.util.Trees", false, classLoader);
+				Object trees = type.getMethod("instance", ProcessingEnvironment.class).invoke(null, env);
+				return new SourceLocator(trees, classLoader);
+			}
+			catch (Exception | LinkageError ex) {
+				ProcessingEnvironment delegate = unwrap(env);
+				return (delegate != null) ? of(delegate) : null;
+			}
+		}
+
+		private static ProcessingEnvironment unwrap(ProcessingEnvironment wrapper) {
+			try {
+				Field delegateField = wrapper.getClass().getDeclaredField("delegate");
+				delegateField.setAccessible(true);
+				return (ProcessingEnvironment) delegateField.get(wrapper);
+			}
+			catch (Exception ex) {
+				return null;
+			}
+		}
+
+		/**
+		 * Returns the source file of the element or {@code null} if it is not a file.
+		 */
+		Path getSource(Element element) {
+			try {
+				Object path = this.getPath.invoke(this.trees, element);
+				if (path == null) {
+					return null;
+				}
+				FileObject source = (FileObject) this.getSourceFile.invoke(this.getCompilationUnit.invoke(path));
+				URI uri = (source != null) ? source.toUri() : null;
+				return (uri != null && "file".equals(uri.getScheme())) ? Path.of(uri) : null;
+			}
+			catch (Exception ex) {
+				return null;
+			}
+		}
+
+	}
+
+}
@@ -16,6 +16,8 @@
 
 package org.springframework.configurationprocessor.metadata;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
 
 /**
@@ -44,6 +46,8 @@ public final class ItemMetadata implements Comparable<ItemMetadata> {
 
 	private ItemDeprecation deprecation;
 
+	private List<String> usages = Collections.emptyList();
+
 	ItemMetadata(ItemType itemType, String prefix, String name, String type, String sourceType, String sourceMethod,
 			String description, Object defaultValue, ItemDeprecation deprecation) {
 		this.itemType = itemType;
@@ -137,6 +141,21 @@ public final class ItemMetadata implements Comparable<ItemMetadata> {
 		this.deprecation = deprecation;
 	}
 
+	/**
+	 * Return the sites the property is used at if it is an aggregate of several usages.
+	 * @return the sites in the format of {@link PropertyUsages#siteOf(ItemMetadata)} or
+	 * an empty list
+	 * @since 1.1
+	 * @see PropertyUsages
+	 */
+	public List<String> getUsages() {
+		return this.usages;
+	}
+
+	public void setUsages(List<String> usages) {
+		this.usages = (usages != null) ? List.copyOf(usages) : Collections.emptyList();
+	}
+
 	@Override
 	public boolean equals(Object o) {
 		if (this == o) {
@@ -155,6 +174,7 @@ public final class ItemMetadata implements Comparable<ItemMetadata> {
 		result = result && nullSafeEquals(this.sourceMethod, other.sourceMethod);
 		result = result && nullSafeEquals(this.defaultValue, other.defaultValue);
 		result = result && nullSafeEquals(this.deprecation, other.deprecation);
+		result = result && nullSafeEquals(this.usages, other.usages);
 		return result;
 	}
 
@@ -168,6 +188,7 @@ public final class ItemMetadata implements Comparable<ItemMetadata> {
 		result = 31 * result + nullSafeHashCode(this.sourceMethod);
 		result = 31 * result + nullSafeHashCode(this.defaultValue);
 		result = 31 * result + nullSafeHashCode(this.deprecation);
+		result = 31 * result + nullSafeHashCode(this.usages);
 		return result;
 	}
 
@@ -193,6 +214,7 @@ public final class ItemMetadata implements Comparable<ItemMetadata> {
 		buildToStringProperty(string, "description", this.description);
 		buildToStringProperty(string, "defaultValue", this.defaultValue);
 		buildToStringProperty(string, "deprecation", this.deprecation);
+		buildToStringProperty(string, "usages", this.usages.isEmpty() ? null : this.usages);
 		return string.toString();
 	}
 
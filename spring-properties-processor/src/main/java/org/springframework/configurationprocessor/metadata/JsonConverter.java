@@ -35,7 +35,7 @@ import org.springframework.configurationprocessor.metadata.ItemMetadata.ItemType
  */
 class JsonConverter {
 
-	private static final ItemMetadataComparator ITEM_COMPARATOR = new ItemMetadataComparator();
+	static final Comparator<ItemMetadata> ITEM_COMPARATOR = new ItemMetadataComparator();
 
 	JSONArray toJsonArray(ConfigurationMetadata metadata, ItemType itemType) throws Exception {
 		JSONArray jsonArray = new JSONArray();
@@ -86,6 +86,9 @@ class JsonConverter {
 			}
 			jsonObject.put("deprecation", deprecationJsonObject);
 		}
+		if (!item.getUsages().isEmpty()) {
+			jsonObject.put("usages", new JSONArray(item.getUsages()));
+		}
 		return jsonObject;
 	}
 
@@ -161,14 +164,36 @@ class JsonConverter {
 		return defaultValue;
 	}
 
+	/**
+	 * Total order of items, so equal inputs are written the same way whatever order the
+	 * items are collected in. Items are compared by the sort key first, then by every
+	 * other attribute written.
+	 */
 	private static class ItemMetadataComparator implements Comparator<ItemMetadata> {
 
+		private static final Comparator<String> NULLS_FIRST = Comparator.nullsFirst(Comparator.naturalOrder());
+
+		private static final Comparator<ItemMetadata> ATTRIBUTES = Comparator
+			.comparing(ItemMetadata::getType, NULLS_FIRST)
+			.thenComparing(ItemMetadata::getSourceMethod, NULLS_FIRST)
+			.thenComparing(ItemMetadata::getDescription, NULLS_FIRST)
+			.thenComparing(ItemMetadataComparator::getDefaultValueText, NULLS_FIRST)
+			.thenComparing((item) -> (item.getDeprecation() != null) ? item.getDeprecation().getLevel() : null,
+					NULLS_FIRST)
+			.thenComparing((item) -> (item.getDeprecation() != null) ? item.getDeprecation().getReason() : null,
+					NULLS_FIRST)
+			.thenComparing((item) -> (item.getDeprecation() != null) ? item.getDeprecation().getReplacement() : null,
+					NULLS_FIRST)
+			.thenComparing((item) -> String.join(",", item.getUsages()));
+
 		private static final Comparator<ItemMetadata> GROUP = Comparator.comparing(ItemMetadata::getName)
-			.thenComparing(ItemMetadata::getSourceType, Comparator.nullsFirst(Comparator.naturalOrder()));
+			.thenComparing(ItemMetadata::getSourceType, NULLS_FIRST)
+			.thenComparing(ATTRIBUTES);
 
 		private static final Comparator<ItemMetadata> ITEM = Comparator.comparing(ItemMetadataComparator::isDeprecated)
 			.thenComparing(ItemMetadata::getName)
-			.thenComparing(ItemMetadata::getSourceType, Comparator.nullsFirst(Comparator.naturalOrder()));
+			.thenComparing(ItemMetadata::getSourceType, NULLS_FIRST)
+			.thenComparing(ATTRIBUTES);
 
 		@Override
 		public int compare(ItemMetadata o1, ItemMetadata o2) {
@@ -182,6 +207,21 @@ class JsonConverter {
 			return item.getDeprecation() != null;
 		}
 
+		private static String getDefaultValueText(ItemMetadata item) {
+			Object defaultValue = item.getDefaultValue();
+			if (defaultValue == null) {
+				return null;
+			}
+			if (!defaultValue.getClass().isArray()) {
+				return String.valueOf(defaultValue);
+			}
+			StringBuilder text = new StringBuilder("[");
+			for (int i = 0; i < Array.getLength(defaultValue); i++) {
+				text.append((i > 0) ? ", " : "").append(Array.get(defaultValue, i));
+			}
+			return text.append(']').toString();
+		}
+
 	}
 
 }
@@ -16,12 +16,16 @@
 
 package org.springframework.configurationprocessor.metadata;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -48,7 +52,9 @@ public class JsonMarshaller {
 			JsonConverter converter = new JsonConverter();
 			object.put("groups", converter.toJsonArray(metadata, ItemType.GROUP));
 			object.put("properties", converter.toJsonArray(metadata, ItemType.PROPERTY));
-			object.put("hints", converter.toJsonArray(metadata.getHints()));
+			List<ItemHint> hints = new ArrayList<>(metadata.getHints());
+			hints.sort(Comparator.comparing(ItemHint::getName));
+			object.put("hints", converter.toJsonArray(hints));
 			outputStream.write(object.toString(2).getBytes(StandardCharsets.UTF_8));
 		}
 		catch (Exception ex) {
@@ -62,30 +68,107 @@ public class JsonMarshaller {
 		}
 	}
 
+	/**
+	 * Write items that are already sorted in output order. Produces the same document as
+	 * {@link #write(ConfigurationMetadata, OutputStream)}, but renders one item at a time
+	 * instead of building the whole JSON tree first.
+	 * @param groups the groups in output order
+	 * @param properties the properties in output order
+	 * @param hints the hints in output order
+	 * @param outputStream the stream to write to
+	 * @throws IOException if the document cannot be written
+	 */
+	void write(Iterator<ItemMetadata> groups, Iterator<ItemMetadata> properties, List<ItemHint> hints,
+			OutputStream outputStream) throws IOException {
+		try {
+			JsonConverter converter = new JsonConverter();
+			Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+			writer.write("{");
+			writeItems(writer, "groups", groups, converter);
+			writer.write(",");
+			writeItems(writer, "properties", properties, converter);
+			writer.write(",\n  \"hints\": ");
+			writer.write(indent(converter.toJsonArray(hints).toString(2), 1));
+			writer.write("\n}");
+			writer.flush();
+		}
+		catch (Exception ex) {
+			if (ex instanceof IOException) {
+				throw (IOException) ex;
+			}
+			if (ex instanceof RuntimeException) {
+				throw (RuntimeException) ex;
+			}
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private void writeItems(Writer writer, String key, Iterator<ItemMetadata> items, JsonConverter converter)
+			throws Exception {
+		writer.write("\n  \"" + key + "\": [");
+		boolean empty = true;
+		while (items.hasNext()) {
+			writer.write(empty ? "\n    " : ",\n    ");
+			writer.write(indent(converter.toJsonObject(items.next()).toString(2), 2));
+			empty = false;
+		}
+		writer.write(empty ? "]" : "\n  ]");
+	}
+
+	private String indent(String json, int level) {
+		return json.replace("\n", "\n" + "  ".repeat(level));
+	}
+
 	public ConfigurationMetadata read(InputStream inputStream) throws Exception {
 		ConfigurationMetadata metadata = new ConfigurationMetadata();
-		JSONObject object = new JSONObject(toString(inputStream));
-		JSONArray groups = object.optJSONArray("groups");
-		if (groups != null) {
-			for (int i = 0; i < groups.length(); i++) {
-				metadata.add(toItemMetadata((JSONObject) groups.get(i), ItemType.GROUP));
-			}
+		JSONObject object = readObject(inputStream);
+		for (ItemMetadata group : readItems(object, ItemType.GROUP)) {
+			metadata.add(group);
 		}
-		JSONArray properties = object.optJSONArray("properties");
-		if (properties != null) {
-			for (int i = 0; i < properties.length(); i++) {
-				metadata.add(toItemMetadata((JSONObject) properties.get(i), ItemType.PROPERTY));
-			}
+		for (ItemMetadata property : readItems(object, ItemType.PROPERTY)) {
+			metadata.add(property);
 		}
-		JSONArray hints = object.optJSONArray("hints");
-		if (hints != null) {
-			for (int i = 0; i < hints.length(); i++) {
-				metadata.add(toItemHint((JSONObject) hints.get(i)));
-			}
+		for (ItemHint hint : readHints(object)) {
+			metadata.add(hint);
 		}
 		return metadata;
 	}
 
+	JSONObject readObject(InputStream inputStream) throws Exception {
+		return new JSONObject(toString(inputStream));
+	}
+
+	/**
+	 * Return the items of the given type in document order.
+	 * @param object the metadata document
+	 * @param itemType the type of the items to read
+	 * @return the items
+	 * @throws Exception if an item is malformed
+	 */
+	List<ItemMetadata> readItems(JSONObject object, ItemType itemType) throws Exception {
+		JSONArray array = object.optJSONArray((itemType == ItemType.GROUP) ? "groups" : "properties");
+		if (array == null) {
+			return new ArrayList<>();
+		}
+		List<ItemMetadata> items = new ArrayList<>(array.length());
+		for (int i = 0; i < array.length(); i++) {
+			items.add(toItemMetadata((JSONObject) array.get(i), itemType));
+		}
+		return items;
+	}
+
+	List<ItemHint> readHints(JSONObject object) throws Exception {
+		JSONArray array = object.optJSONArray("hints");
+		if (array == null) {
+			return new ArrayList<>();
+		}
+		List<ItemHint> hints = new ArrayList<>(array.length());
+		for (int i = 0; i < array.length(); i++) {
+			hints.add(toItemHint((JSONObject) array.get(i)));
+		}
+		return hints;
+	}
+
 	private ItemMetadata toItemMetadata(JSONObject object, ItemType itemType) throws Exception {
 		String name = object.getString("name");
 		String type = object.optString("type", null);
@@ -94,8 +177,17 @@ public class JsonMarshaller {
 		String sourceMethod = object.optString("sourceMethod", null);
 		Object defaultValue = readItemValue(object.opt("defaultValue"));
 		ItemDeprecation deprecation = toItemDeprecation(object);
-		return new ItemMetadata(itemType, name, null, type, sourceType, sourceMethod, description, defaultValue,
-				deprecation);
+		ItemMetadata item = new ItemMetadata(itemType, name, null, type, sourceType, sourceMethod, description,
+				defaultValue, deprecation);
+		JSONArray usages = object.optJSONArray("usages");
+		if (usages != null) {
+			List<String> sites = new ArrayList<>(usages.length());
+			for (int i = 0; i < usages.length(); i++) {
+				sites.add(usages.getString(i));
+			}
+			item.setUsages(sites);
+		}
+		return item;
 	}
 
 	private ItemDeprecation toItemDeprecation(JSONObject object) throws Exception {
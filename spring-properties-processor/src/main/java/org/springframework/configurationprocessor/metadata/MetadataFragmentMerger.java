@@ -0,0 +1,184 @@
+/*
+ * Copyright 2012-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.configurationprocessor.metadata;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+import org.springframework.configurationprocessor.json_shade.json.JSONObject;
+import org.springframework.configurationprocessor.metadata.ItemMetadata.ItemType;
+
+/**
+ * Merges metadata fragments written independently by several producers (the annotation
+ * processor, the xml scanner) into a single {@code spring-configuration-metadata.json}.
+ * <p>
+ * Fragments are sorted the way {@link JsonMarshaller} writes them, so they are combined
+ * with a single k-way merge and written item by item. Items that are equal in several
+ * fragments are written once, hints are taken from the first fragment that defines them.
+ *
+ * @author tia
+ * @since 1.1
+ */
+public class MetadataFragmentMerger {
+
+	private final JsonMarshaller marshaller = new JsonMarshaller();
+
+	private boolean aggregateUsages;
+
+	/**
+	 * If {@code true}, properties of the same name are merged into one property with the
+	 * list of its usage sites. The merged metadata is then held in memory before it is
+	 * written.
+	 * @param aggregateUsages whether to aggregate usages
+	 * @see PropertyUsages
+	 */
+	public void setAggregateUsages(boolean aggregateUsages) {
+		this.aggregateUsages = aggregateUsages;
+	}
+
+	/**
+	 * Merge the given fragments and write the result to {@code outputStream}.
+	 * @param fragments the fragments to merge, in precedence order
+	 * @param outputStream the stream to write the merged metadata to
+	 * @throws Exception if a fragment cannot be read or the result cannot be written
+	 */
+	public void merge(List<InputStream> fragments, OutputStream outputStream) throws Exception {
+		List<List<ItemMetadata>> groups = new ArrayList<>(fragments.size());
+		List<List<ItemMetadata>> properties = new ArrayList<>(fragments.size());
+		Map<String, ItemHint> hints = new TreeMap<>();
+		for (InputStream fragment : fragments) {
+			JSONObject object = this.marshaller.readObject(fragment);
+			groups.add(sorted(this.marshaller.readItems(object, ItemType.GROUP)));
+			properties.add(sorted(this.marshaller.readItems(object, ItemType.PROPERTY)));
+			for (ItemHint hint : this.marshaller.readHints(object)) {
+				hints.putIfAbsent(hint.getName(), hint);
+			}
+		}
+		if (this.aggregateUsages) {
+			ConfigurationMetadata metadata = new ConfigurationMetadata();
+			new MergingIterator(groups).forEachRemaining(metadata::add);
+			new MergingIterator(properties).forEachRemaining(metadata::add);
+			hints.values().forEach(metadata::add);
+			this.marshaller.write(PropertyUsages.aggregate(metadata), outputStream);
+			return;
+		}
+		this.marshaller.write(new MergingIterator(groups), new MergingIterator(properties),
+				new ArrayList<>(hints.values()), outputStream);
+	}
+
+	private static List<ItemMetadata> sorted(List<ItemMetadata> items) {
+		// Fragments written by JsonMarshaller are already sorted, so this is a single pass
+		items.sort(JsonConverter.ITEM_COMPARATOR);
+		return items;
+	}
+
+	/**
+	 * Iterates over the union of several sorted item lists in sorted order, skipping items
+	 * already returned for the same sort key.
+	 */
+	private static final class MergingIterator implements Iterator<ItemMetadata> {
+
+		private final PriorityQueue<Cursor> queue;
+
+		private final List<ItemMetadata> sameKeyItems = new ArrayList<>();
+
+		private ItemMetadata next;
+
+		MergingIterator(List<List<ItemMetadata>> sources) {
+			this.queue = new PriorityQueue<>(Math.max(1, sources.size()), Cursor.ORDER);
+			for (int i = 0; i < sources.size(); i++) {
+				Iterator<ItemMetadata> iterator = sources.get(i).iterator();
+				if (iterator.hasNext()) {
+					this.queue.add(new Cursor(i, iterator));
+				}
+			}
+			advance();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return this.next != null;
+		}
+
+		@Override
+		public ItemMetadata next() {
+			if (this.next == null) {
+				throw new NoSuchElementException();
+			}
+			ItemMetadata result = this.next;
+			advance();
+			return result;
+		}
+
+		private void advance() {
+			this.next = null;
+			while (this.next == null && !this.queue.isEmpty()) {
+				Cursor cursor = this.queue.poll();
+				ItemMetadata candidate = cursor.current;
+				if (cursor.advance()) {
+					this.queue.add(cursor);
+				}
+				if (!this.sameKeyItems.isEmpty()
+						&& JsonConverter.ITEM_COMPARATOR.compare(this.sameKeyItems.get(0), candidate) != 0) {
+					this.sameKeyItems.clear();
+				}
+				if (!this.sameKeyItems.contains(candidate)) {
+					this.sameKeyItems.add(candidate);
+					this.next = candidate;
+				}
+			}
+		}
+
+	}
+
+	private static final class Cursor {
+
+		static final Comparator<Cursor> ORDER = Comparator
+			.comparing((Cursor cursor) -> cursor.current, JsonConverter.ITEM_COMPARATOR)
+			.thenComparingInt((cursor) -> cursor.index);
+
+		private final int index;
+
+		private final Iterator<ItemMetadata> iterator;
+
+		private ItemMetadata current;
+
+		Cursor(int index, Iterator<ItemMetadata> iterator) {
+			this.index = index;
+			this.iterator = iterator;
+			this.current = iterator.next();
+		}
+
+		boolean advance() {
+			if (this.iterator.hasNext()) {
+				this.current = this.iterator.next();
+				return true;
+			}
+			return false;
+		}
+
+	}
+
+}
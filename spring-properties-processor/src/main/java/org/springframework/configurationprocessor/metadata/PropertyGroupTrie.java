@@ -0,0 +1,118 @@
+/*
+ * Copyright 2012-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.configurationprocessor.metadata;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Infers groups of properties from their names. Property names of every source type are
+ * put into a trie of dotted name segments, so groups are computed in time linear in the
+ * total length of the names.
+ * <p>
+ * Every first name segment of a source type gets a group named by the longest prefix
+ * common to its properties. Below it, every name segment shared by at least two
+ * properties gets a nested group the same way. Properties without a dot belong to the
+ * group with the empty name. A group is created only if it has properties of its own,
+ * so no group is left empty in the documents.
+ *
+ * @author tia
+ * @since 1.1
+ */
+public class PropertyGroupTrie {
+
+	private final Map<String, Node> roots = new LinkedHashMap<>();
+
+	/**
+	 * Adds a property. Items other than properties are ignored.
+	 */
+	public void add(ItemMetadata item) {
+		if (!item.isOfItemType(ItemMetadata.ItemType.PROPERTY)) {
+			return;
+		}
+		Node node = this.roots.computeIfAbsent(String.valueOf(item.getSourceType()), (key) -> new Node());
+		node.properties++;
+		String name = item.getName();
+		int start = 0;
+		for (int dot = name.indexOf('.'); dot >= 0; dot = name.indexOf('.', start)) {
+			node = node.children.computeIfAbsent(name.substring(start, dot), (key) -> new Node());
+			node.properties++;
+			start = dot + 1;
+		}
+		node.ownProperties++;
+	}
+
+	/**
+	 * Returns groups of all added properties, their type and source type are the source
+	 * type of the properties.
+	 */
+	public Set<ItemMetadata> getGroups() {
+		Set<ItemMetadata> groups = new LinkedHashSet<>();
+		for (Map.Entry<String, Node> entry : this.roots.entrySet()) {
+			String sourceType = entry.getKey();
+			Node root = entry.getValue();
+			if (root.ownProperties > 0) {
+				groups.add(ItemMetadata.newGroup("", sourceType, sourceType, null));
+			}
+			for (Map.Entry<String, Node> child : root.children.entrySet()) {
+				addGroups(child.getKey(), child.getValue(), sourceType, groups);
+			}
+		}
+		return groups;
+	}
+
+	private void addGroups(String name, Node node, String sourceType, Set<ItemMetadata> groups) {
+		StringBuilder groupName = new StringBuilder(name);
+		while (node.ownProperties == 0 && node.children.size() == 1) {
+			Map.Entry<String, Node> only = node.children.entrySet().iterator().next();
+			groupName.append('.').append(only.getKey());
+			node = only.getValue();
+		}
+		boolean hasOwnProperties = node.ownProperties > 0;
+		for (Map.Entry<String, Node> child : node.children.entrySet()) {
+			if (child.getValue().properties > 1) {
+				addGroups(groupName + "." + child.getKey(), child.getValue(), sourceType, groups);
+			}
+			else {
+				hasOwnProperties = true;
+			}
+		}
+		if (hasOwnProperties) {
+			groups.add(ItemMetadata.newGroup(groupName.toString(), sourceType, sourceType, null));
+		}
+	}
+
+	private static final class Node {
+
+		private final Map<String, Node> children = new HashMap<>(4);
+
+		/**
+		 * Number of properties in the subtree.
+		 */
+		private int properties;
+
+		/**
+		 * Number of properties whose name ends right below this node.
+		 */
+		private int ownProperties;
+
+	}
+
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2012-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.configurationprocessor.metadata;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+import org.springframework.configurationprocessor.metadata.ItemMetadata.ItemType;
+
+/**
+ * Aggregates the properties of the same name into one property that lists the sites it
+ * is used at, so a property referenced from many classes or xml files is written once.
+ * <p>
+ * A site is the source type of a property, followed by {@code #} and the source method
+ * if there is one. The sites of an aggregated property are sorted, the first one gives
+ * its source type and source method. Other attributes are merged this way:
+ * <ul>
+ * <li>the type is kept if all usages have the same one, otherwise it is
+ * {@code java.lang.String};</li>
+ * <li>distinct descriptions are joined by a blank line;</li>
+ * <li>the default value is kept if all usages have the same one, otherwise there is
+ * none;</li>
+ * <li>the property is deprecated if all usages are, the deprecation of the first site is
+ * kept.</li>
+ * </ul>
+ * A property used once is left as is. Groups of source types that have no properties
+ * left are removed, hints are kept. Aggregating aggregated metadata changes nothing.
+ *
+ * @author tia
+ * @since 1.1
+ */
+public final class PropertyUsages {
+
+	private static final String SITE_SEPARATOR = "#";
+
+	private static final String MIXED_TYPE = String.class.getName();
+
+	private PropertyUsages() {
+	}
+
+	/**
+	 * Returns the site of a property that is not aggregated.
+	 */
+	public static String siteOf(ItemMetadata item) {
+		String sourceType = String.valueOf(item.getSourceType());
+		return (item.getSourceMethod() != null) ? sourceType + SITE_SEPARATOR + item.getSourceMethod() : sourceType;
+	}
+
+	/**
+	 * Returns the source type of a site.
+	 */
+	public static String sourceTypeOf(String site) {
+		int separator = site.indexOf(SITE_SEPARATOR);
+		return (separator >= 0) ? site.substring(0, separator) : site;
+	}
+
+	/**
+	 * Returns metadata with the properties of the same name aggregated.
+	 */
+	public static ConfigurationMetadata aggregate(ConfigurationMetadata metadata) {
+		Map<String, List<ItemMetadata>> propertiesByName = new TreeMap<>();
+		List<ItemMetadata> groups = new ArrayList<>();
+		for (ItemMetadata item : metadata.getItems()) {
+			if (item.isOfItemType(ItemType.PROPERTY)) {
+				propertiesByName.computeIfAbsent(item.getName(), (name) -> new ArrayList<>()).add(item);
+			}
+			else {
+				groups.add(item);
+			}
+		}
+		Set<String> sourceTypesBefore = new HashSet<>();
+		Set<String> sourceTypesAfter = new HashSet<>();
+		ConfigurationMetadata aggregated = new ConfigurationMetadata();
+		for (List<ItemMetadata> properties : propertiesByName.values()) {
+			for (ItemMetadata property : properties) {
+				sourceTypesBefore.add(property.getSourceType());
+			}
+			ItemMetadata property = (properties.size() == 1) ? properties.get(0) : merge(properties);
+			sourceTypesAfter.add(property.getSourceType());
+			aggregated.add(property);
+		}
+		for (ItemMetadata group : groups) {
+			String sourceType = group.getSourceType();
+			if (!sourceTypesBefore.contains(sourceType) || sourceTypesAfter.contains(sourceType)) {
+				aggregated.add(group);
+			}
+		}
+		for (ItemHint hint : metadata.getHints()) {
+			aggregated.add(hint);
+		}
+		return aggregated;
+	}
+
+	/**
+	 * Returns the property with the usages of the source types accepted by the filter
+	 * only, or {@code null} if there are none. Merged attributes are kept as they are.
+	 * @param item a group or a property, aggregated or not
+	 * @param sourceTypeFilter accepts the source types to keep
+	 * @return the item, a copy with fewer usages, or {@code null}
+	 */
+	public static ItemMetadata retainUsages(ItemMetadata item, Predicate<String> sourceTypeFilter) {
+		if (item.getUsages().isEmpty()) {
+			return sourceTypeFilter.test(item.getSourceType()) ? item : null;
+		}
+		List<String> usages = new ArrayList<>(item.getUsages().size());
+		for (String usage : item.getUsages()) {
+			if (sourceTypeFilter.test(sourceTypeOf(usage))) {
+				usages.add(usage);
+			}
+		}
+		if (usages.size() == item.getUsages().size()) {
+			return item;
+		}
+		if (usages.isEmpty()) {
+			return null;
+		}
+		return newProperty(item.getName(), item.getType(), usages, item.getDescription(), item.getDefaultValue(),
+				item.getDeprecation());
+	}
+
+	private static ItemMetadata merge(List<ItemMetadata> properties) {
+		Map<String, ItemMetadata> propertiesBySite = new TreeMap<>();
+		for (ItemMetadata property : properties) {
+			if (property.getUsages().isEmpty()) {
+				propertiesBySite.putIfAbsent(siteOf(property), property);
+			}
+			else {
+				for (String usage : property.getUsages()) {
+					propertiesBySite.putIfAbsent(usage, property);
+				}
+			}
+		}
+		// An aggregated property contributes its attributes once, in the order of its first site
+		Set<ItemMetadata> ordered = new LinkedHashSet<>(propertiesBySite.values());
+		Set<String> types = new TreeSet<>();
+		Set<String> descriptions = new LinkedHashSet<>();
+		ItemMetadata first = ordered.iterator().next();
+		boolean sameDefaultValue = true;
+		boolean deprecated = true;
+		for (ItemMetadata property : ordered) {
+			if (property.getType() != null) {
+				types.add(property.getType());
+			}
+			if (property.getDescription() != null && !property.getDescription().isBlank()) {
+				descriptions.add(property.getDescription().strip());
+			}
+			sameDefaultValue = sameDefaultValue
+					&& Objects.deepEquals(first.getDefaultValue(), property.getDefaultValue());
+			deprecated = deprecated && property.getDeprecation() != null;
+		}
+		String type = (types.size() > 1) ? MIXED_TYPE : types.stream().findFirst().orElse(null);
+		String description = descriptions.isEmpty() ? null : String.join("\n\n", descriptions);
+		Object defaultValue = sameDefaultValue ? first.getDefaultValue() : null;
+		return newProperty(first.getName(), type, new ArrayList<>(propertiesBySite.keySet()), description,
+				defaultValue, deprecated ? first.getDeprecation() : null);
+	}
+
+	private static ItemMetadata newProperty(String name, String type, List<String> usages, String description,
+			Object defaultValue, ItemDeprecation deprecation) {
+		String site = usages.get(0);
+		int separator = site.indexOf(SITE_SEPARATOR);
+		String sourceMethod = (separator >= 0) ? site.substring(separator + 1) : null;
+		ItemMetadata property = ItemMetadata.newProperty(null, name, type, sourceTypeOf(site), sourceMethod,
+				description, defaultValue, deprecation);
+		if (usages.size() > 1) {
+			property.setUsages(usages);
+		}
+		return property;
+	}
+
+}
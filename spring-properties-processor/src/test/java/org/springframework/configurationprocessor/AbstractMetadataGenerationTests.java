@@ -18,7 +18,11 @@ package org.springframework.configurationprocessor;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.io.TempDir;
@@ -47,9 +51,18 @@ public abstract class AbstractMetadataGenerationTests {
 	}
 
 	protected ConfigurationMetadata compile(Class<?>... types) {
+		return compile(Collections.emptyMap(), types);
+	}
+
+	/**
+	 * Compiles the types with the given processor options.
+	 */
+	protected ConfigurationMetadata compile(Map<String, String> options, Class<?>... types) {
 		TestConfigurationMetadataAnnotationProcessor processor = new TestConfigurationMetadataAnnotationProcessor(
 				this.compiler.getOutputLocation());
-		this.compiler.getTask(types).call(processor);
+		List<String> compilerOptions = new ArrayList<>();
+		options.forEach((name, value) -> compilerOptions.add("-A" + name + "=" + value));
+		this.compiler.getTask(compilerOptions, types).call(processor);
 		return processor.getMetadata();
 	}
 
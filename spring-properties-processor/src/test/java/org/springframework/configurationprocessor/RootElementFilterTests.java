@@ -0,0 +1,84 @@
+/*
+ * Copyright 2012-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.configurationprocessor;
+
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.configurationprocessor.metadata.ConfigurationMetadata;
+import org.springframework.configurationprocessor.metadata.ItemMetadata;
+import org.springframework.configurationsample.tia.generated.GeneratedValue;
+import org.springframework.configurationsample.tia.value.SimpleValue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link RootElementFilter}.
+ *
+ * @author tia
+ */
+class RootElementFilterTests extends AbstractMetadataGenerationTests {
+
+	@Test
+	void excludedPackageIsSkipped() {
+		ConfigurationMetadata metadata = compile(
+				Map.of(ConfigurationMetadataAnnotationProcessor.OPTION_EXCLUDE_PACKAGES, "**.generated"),
+				SimpleValue.class, GeneratedValue.class);
+		assertThat(metadata.getItems()).extracting(ItemMetadata::getName)
+			.contains("prop1", "param1")
+			.doesNotContain("generated.prop", "generated.param");
+	}
+
+	@Test
+	void onlyIncludedPackageIsProcessed() {
+		ConfigurationMetadata metadata = compile(
+				Map.of(ConfigurationMetadataAnnotationProcessor.OPTION_INCLUDE_PACKAGES,
+						"com.example.**, org.springframework.configurationsample.*.generated"),
+				SimpleValue.class, GeneratedValue.class);
+		assertThat(metadata.getItems()).filteredOn((item) -> item.isOfItemType(ItemMetadata.ItemType.PROPERTY))
+			.extracting(ItemMetadata::getName)
+			.containsExactlyInAnyOrder("generated.prop", "generated.param");
+	}
+
+	@Test
+	void excludedSourceIsSkipped() {
+		ConfigurationMetadata metadata = compile(
+				Map.of(ConfigurationMetadataAnnotationProcessor.OPTION_EXCLUDE_SOURCES, "**/tia/value/**"),
+				SimpleValue.class, GeneratedValue.class);
+		assertThat(metadata.getItems()).filteredOn((item) -> item.isOfItemType(ItemMetadata.ItemType.PROPERTY))
+			.extracting(ItemMetadata::getName)
+			.containsExactlyInAnyOrder("generated.prop", "generated.param");
+	}
+
+	@Test
+	void packagePatterns() {
+		Pattern pattern = RootElementFilter.compilePackagePatterns("com.example.**, **.proto, org.*.dto, a.**.b");
+		assertThat(pattern.matcher("com.example").matches()).isTrue();
+		assertThat(pattern.matcher("com.example.sub.pkg").matches()).isTrue();
+		assertThat(pattern.matcher("com.examples").matches()).isFalse();
+		assertThat(pattern.matcher("proto").matches()).isTrue();
+		assertThat(pattern.matcher("com.acme.proto").matches()).isTrue();
+		assertThat(pattern.matcher("com.acme.protobuf").matches()).isFalse();
+		assertThat(pattern.matcher("org.acme.dto").matches()).isTrue();
+		assertThat(pattern.matcher("org.acme.sub.dto").matches()).isFalse();
+		assertThat(pattern.matcher("a.b").matches()).isTrue();
+		assertThat(pattern.matcher("a.x.y.b").matches()).isTrue();
+		assertThat(RootElementFilter.compilePackagePatterns(" ")).isNull();
+	}
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2012-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.configurationprocessor.metadata;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link MetadataFragmentMerger}.
+ *
+ * @author tia
+ */
+class MetadataFragmentMergerTests {
+
+	@Test
+	void mergedFragmentsAreWrittenLikeSingleMetadata() throws Exception {
+		ConfigurationMetadata java = new ConfigurationMetadata();
+		java.add(ItemMetadata.newGroup("", "com.example.Config", "com.example.Config", null));
+		java.add(ItemMetadata.newProperty("app", "timeout", "java.lang.Integer", "com.example.Config", null,
+				"Timeout", 60, null));
+		java.add(ItemMetadata.newProperty("app", "old", "java.lang.String", "com.example.Config", null, null, null,
+				new ItemDeprecation("reason", null)));
+		java.add(ItemHint.newHint("app.timeout", new ItemHint.ValueHint(30, "short")));
+		ConfigurationMetadata xml = new ConfigurationMetadata();
+		xml.add(ItemMetadata.newGroup("", "context.xml", "context.xml", null));
+		xml.add(ItemMetadata.newProperty("", "app.title", "java.lang.String", "context.xml", null, null, "MyApp",
+				null));
+		xml.add(ItemMetadata.newProperty("", "app.timeout", "java.lang.String", "context.xml", null, null, null,
+				null));
+
+		ConfigurationMetadata all = new ConfigurationMetadata(java);
+		xml.getItems().forEach(all::add);
+
+		assertThat(merge(java, xml)).isEqualTo(write(all));
+	}
+
+	@Test
+	void equalItemsAreWrittenOnce() throws Exception {
+		ConfigurationMetadata first = new ConfigurationMetadata();
+		first.add(ItemMetadata.newProperty("", "a", "java.lang.String", "a.xml", null, null, null, null));
+		first.add(ItemMetadata.newProperty("", "b", "java.lang.String", "a.xml", null, null, null, null));
+		ConfigurationMetadata second = new ConfigurationMetadata();
+		second.add(ItemMetadata.newProperty("", "a", "java.lang.String", "a.xml", null, null, null, null));
+		second.add(ItemMetadata.newProperty("", "a", "java.lang.String", "a.xml", null, "other", null, null));
+
+		ConfigurationMetadata merged = new JsonMarshaller()
+			.read(new ByteArrayInputStream(merge(first, second).getBytes(StandardCharsets.UTF_8)));
+
+		assertThat(merged.getItems()).hasSize(3);
+	}
+
+	private String merge(ConfigurationMetadata... fragments) throws Exception {
+		List<InputStream> inputs = new ArrayList<>();
+		for (ConfigurationMetadata fragment : fragments) {
+			inputs.add(new ByteArrayInputStream(write(fragment).getBytes(StandardCharsets.UTF_8)));
+		}
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		new MetadataFragmentMerger().merge(inputs, outputStream);
+		return outputStream.toString(StandardCharsets.UTF_8);
+	}
+
+	private String write(ConfigurationMetadata metadata) throws IOException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		new JsonMarshaller().write(metadata, outputStream);
+		return outputStream.toString(StandardCharsets.UTF_8);
+	}
+
+}
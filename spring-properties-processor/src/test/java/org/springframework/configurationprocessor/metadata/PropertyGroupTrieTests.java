@@ -0,0 +1,66 @@
+/*
+ * Copyright 2012-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.configurationprocessor.metadata;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Tests for {@link PropertyGroupTrie}.
+ *
+ * @author tia
+ */
+class PropertyGroupTrieTests {
+
+	@Test
+	void nestedGroupsAreInferredPerSourceType() {
+		PropertyGroupTrie trie = new PropertyGroupTrie();
+		trie.add(property("server.port", "com.example.Server"));
+		trie.add(property("server.ssl.enabled", "com.example.Server"));
+		trie.add(property("server.ssl.key-store.path", "com.example.Server"));
+		trie.add(property("server.ssl.key-store.type", "com.example.Server"));
+		trie.add(property("app.db.pool.size", "context.xml"));
+		trie.add(property("app.db.pool.timeout", "context.xml"));
+		trie.add(property("debug", "context.xml"));
+		trie.add(property("mail.host", "context.xml"));
+		trie.add(ItemMetadata.newGroup("ignored", "context.xml", "context.xml", null));
+
+		assertThat(trie.getGroups()).allMatch((group) -> group.isOfItemType(ItemMetadata.ItemType.GROUP))
+			.extracting(ItemMetadata::getName, ItemMetadata::getSourceType)
+			.containsExactlyInAnyOrder(tuple("server", "com.example.Server"),
+					tuple("server.ssl", "com.example.Server"), tuple("server.ssl.key-store", "com.example.Server"),
+					tuple("", "context.xml"), tuple("app.db.pool", "context.xml"), tuple("mail", "context.xml"));
+	}
+
+	@Test
+	void groupWithoutPropertiesOfItsOwnIsSkipped() {
+		PropertyGroupTrie trie = new PropertyGroupTrie();
+		trie.add(property("app.a.x", "context.xml"));
+		trie.add(property("app.a.y", "context.xml"));
+		trie.add(property("app.b.x", "context.xml"));
+		trie.add(property("app.b.y", "context.xml"));
+
+		assertThat(trie.getGroups()).extracting(ItemMetadata::getName).containsExactlyInAnyOrder("app.a", "app.b");
+	}
+
+	private static ItemMetadata property(String name, String sourceType) {
+		return ItemMetadata.newProperty("", name, "java.lang.String", sourceType, null, null, null, null);
+	}
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2012-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.configurationprocessor.metadata;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link PropertyUsages}.
+ *
+ * @author tia
+ */
+class PropertyUsagesTests {
+
+	@Test
+	void propertiesOfSameNameAreAggregated() {
+		ConfigurationMetadata metadata = new ConfigurationMetadata();
+		metadata.add(property("db.url", "java.lang.String", "com.example.B", "init()", "Url.", "jdbc:h2:mem"));
+		metadata.add(property("db.url", "java.lang.String", "com.example.A", null, "Url.", "jdbc:h2:mem"));
+		metadata.add(property("db.url", "java.net.URI", "context.xml", null, "Database url.", null));
+		metadata.add(property("db.user", "java.lang.String", "com.example.A", null, null, "sa"));
+		metadata.add(ItemMetadata.newGroup("", "com.example.A", "com.example.A", null));
+		metadata.add(ItemMetadata.newGroup("", "com.example.B", "com.example.B", null));
+		metadata.add(ItemMetadata.newGroup("", "context.xml", "context.xml", null));
+
+		ConfigurationMetadata aggregated = PropertyUsages.aggregate(metadata);
+
+		ItemMetadata url = aggregated.getItems().get(aggregated.getItems().size() - 2);
+		assertThat(url.getName()).isEqualTo("db.url");
+		assertThat(url.getUsages()).containsExactly("com.example.A", "com.example.B#init()", "context.xml");
+		assertThat(url.getSourceType()).isEqualTo("com.example.A");
+		assertThat(url.getType()).isEqualTo("java.lang.String");
+		assertThat(url.getDescription()).isEqualTo("Url.\n\nDatabase url.");
+		assertThat(url.getDefaultValue()).isNull();
+		assertThat(aggregated.getItems()).filteredOn((item) -> item.isOfItemType(ItemMetadata.ItemType.GROUP))
+			.extracting(ItemMetadata::getSourceType)
+			.containsExactly("com.example.A");
+		assertThat(PropertyUsages.aggregate(aggregated).getItems()).isEqualTo(aggregated.getItems());
+	}
+
+	@Test
+	void usagesAreWrittenAndRead() throws Exception {
+		ConfigurationMetadata metadata = new ConfigurationMetadata();
+		metadata.add(property("db.url", "java.lang.String", "com.example.A", null, null, null));
+		metadata.add(property("db.url", "java.lang.String", "context.xml", null, null, null));
+		ByteArrayOutputStream json = new ByteArrayOutputStream();
+		new JsonMarshaller().write(PropertyUsages.aggregate(metadata), json);
+
+		List<ItemMetadata> items = new JsonMarshaller().read(new ByteArrayInputStream(json.toByteArray())).getItems();
+
+		assertThat(items).singleElement()
+			.satisfies((item) -> assertThat(item.getUsages()).containsExactly("com.example.A", "context.xml"));
+	}
+
+	@Test
+	void retainedUsagesKeepMergedAttributes() {
+		ItemMetadata property = property("db.url", "java.lang.String", "com.example.A", null, "Url.", null);
+		property.setUsages(List.of("com.example.A", "com.example.B#init()", "context.xml"));
+
+		ItemMetadata retained = PropertyUsages.retainUsages(property, (sourceType) -> !sourceType.endsWith(".xml"));
+		assertThat(retained.getUsages()).containsExactly("com.example.A", "com.example.B#init()");
+		assertThat(retained.getDescription()).isEqualTo("Url.");
+
+		retained = PropertyUsages.retainUsages(property, "com.example.B"::equals);
+		assertThat(retained.getUsages()).isEmpty();
+		assertThat(retained.getSourceType()).isEqualTo("com.example.B");
+		assertThat(retained.getSourceMethod()).isEqualTo("init()");
+
+		assertThat(PropertyUsages.retainUsages(property, "com.example.C"::equals)).isNull();
+	}
+
+	private static ItemMetadata property(String name, String type, String sourceType, String sourceMethod,
+			String description, Object defaultValue) {
+		return ItemMetadata.newProperty("", name, type, sourceType, sourceMethod, description, defaultValue, null);
+	}
+
+}
@@ -0,0 +1,12 @@
+package org.springframework.configurationsample.tia.generated;
+
+import org.springframework.configurationsample.tia.Value;
+
+public class GeneratedValue {
+
+    @Value("${generated.prop}")
+    String generated;
+
+    void generated(@Value("${generated.param}") String param) {
+    }
+}
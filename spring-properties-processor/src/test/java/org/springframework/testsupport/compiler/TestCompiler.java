@@ -71,13 +71,21 @@ public class TestCompiler {
 	}
 
 	public TestCompilationTask getTask(Class<?>... types) {
+		return getTask(null, types);
+	}
+
+	public TestCompilationTask getTask(Iterable<String> options, Class<?>... types) {
 		Iterable<? extends JavaFileObject> javaFileObjects = getJavaFileObjects(types);
-		return getTask(javaFileObjects);
+		return getTask(options, javaFileObjects);
 	}
 
 	private TestCompilationTask getTask(Iterable<? extends JavaFileObject> javaFileObjects) {
+		return getTask(null, javaFileObjects);
+	}
+
+	private TestCompilationTask getTask(Iterable<String> options, Iterable<? extends JavaFileObject> javaFileObjects) {
 		return new TestCompilationTask(
-				this.compiler.getTask(null, this.fileManager, null, null, null, javaFileObjects));
+				this.compiler.getTask(null, this.fileManager, null, options, null, javaFileObjects));
 	}
 
 	public File getOutputLocation() {